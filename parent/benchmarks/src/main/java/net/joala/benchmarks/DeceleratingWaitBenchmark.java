@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.benchmarks;
+
+import com.google.common.base.Function;
+import net.joala.condition.timing.DeceleratingWait;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import org.hamcrest.Matcher;
+import org.hamcrest.core.IsNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Overhead of {@link DeceleratingWait#until(Object, Function, Matcher)} per poll. Sleeping is skipped, so that
+ * the result is the cost of the wait's bookkeeping and a trivial state query only.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeceleratingWaitBenchmark {
+  private static final int POLLS = 100;
+  private static final Timeout TIMEOUT = new TimeoutImpl(1L, TimeUnit.MINUTES);
+  private static final Matcher<Object> NOT_NULL = IsNull.notNullValue();
+
+  private final DeceleratingWait wait = new NonSleepingWait();
+  private final Countdown countdown = new Countdown();
+
+  @Benchmark
+  public Integer untilImmediateMatch() {
+    return wait.until(Integer.valueOf(1), countdown, NOT_NULL);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POLLS)
+  public Integer untilPerPoll() {
+    return wait.until(Integer.valueOf(POLLS), countdown, NOT_NULL);
+  }
+
+  /**
+   * State query which fails with {@code null} until it has been called as often as its input says.
+   */
+  private static final class Countdown implements Function<Integer, Integer> {
+    private int remaining;
+    private Integer current;
+
+    @Override
+    public Integer apply(final Integer input) {
+      if (!input.equals(current)) {
+        current = input;
+        remaining = input;
+      }
+      remaining--;
+      if (remaining > 0) {
+        return null;
+      }
+      current = null;
+      return input;
+    }
+  }
+
+  private static final class NonSleepingWait extends DeceleratingWait {
+    private NonSleepingWait() {
+      super(TIMEOUT);
+    }
+
+    @Override
+    protected void sleep(final long millis) {
+      // measure polling overhead only
+    }
+  }
+}
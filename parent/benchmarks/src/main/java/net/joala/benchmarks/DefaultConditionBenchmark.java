@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.benchmarks;
+
+import net.joala.condition.Condition;
+import net.joala.condition.DefaultCondition;
+import net.joala.expression.AbstractExpression;
+import net.joala.time.TimeoutImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Cost of {@link Condition#await()} if the expression matches immediately, which is the most common
+ * case in tests. Run with {@code -prof gc} to get the allocation rate per operation.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DefaultConditionBenchmark {
+  private final Condition<String> condition = new DefaultCondition<>(new AbstractExpression<String>() {
+    @Override
+    public String get() {
+      return "value";
+    }
+  }, new TimeoutImpl(1L, TimeUnit.MINUTES));
+
+  @Benchmark
+  public String await() {
+    return condition.await();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.benchmarks;
+
+import com.google.common.base.Function;
+import net.joala.condition.timing.DeceleratingWait;
+import net.joala.condition.timing.LowLatencyWait;
+import net.joala.condition.timing.StateChangeSignal;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import org.hamcrest.Matcher;
+import org.hamcrest.core.IsEqual;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Reaction latency: the time from a state change to its detection by a wait. Each invocation changes
+ * the state from another thread after {@link #CHANGE_DELAY_MICROS} microseconds; subtract this delay
+ * from the measured times to get the reaction latency.
+ * </p>
+ * <p>
+ * Compares polling with decelerating intervals, the low latency wait and waking up on a change signal.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReactionLatencyBenchmark {
+  static final long CHANGE_DELAY_MICROS = 1000L;
+  private static final Timeout TIMEOUT = new TimeoutImpl(1L, TimeUnit.MINUTES);
+  private static final Matcher<Boolean> TRUE = IsEqual.equalTo(Boolean.TRUE);
+
+  @Param({"decelerating", "lowLatency", "signal"})
+  public String waitType;
+
+  private final Flag flag = new Flag();
+  private final StateChangeSignal signal = new StateChangeSignal();
+  private ScheduledExecutorService changer;
+  private DeceleratingWait wait;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    changer = Executors.newSingleThreadScheduledExecutor();
+    switch (waitType) {
+      case "lowLatency":
+        wait = new LowLatencyWait(TIMEOUT);
+        break;
+      case "signal":
+        wait = new DeceleratingWait(TIMEOUT).withChangeSignal(signal);
+        break;
+      default:
+        wait = new DeceleratingWait(TIMEOUT);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    changer.shutdownNow();
+  }
+
+  @Benchmark
+  public Boolean detectChange() {
+    flag.value = false;
+    changer.schedule(() -> {
+      flag.value = true;
+      signal.signal();
+    }, CHANGE_DELAY_MICROS, TimeUnit.MICROSECONDS);
+    return wait.until(flag, Flag.IS_SET, TRUE);
+  }
+
+  private static final class Flag {
+    private static final Function<Flag, Boolean> IS_SET = new Function<Flag, Boolean>() {
+      @Override
+      public Boolean apply(final Flag input) {
+        return input.value;
+      }
+    };
+
+    private volatile boolean value;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.benchmarks;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import net.joala.condition.timing.IgnorableStateQueryException;
+import net.joala.condition.timing.WaitFailStrategy;
+import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.condition.timing.WaitTimeoutFailStrategy;
+import org.hamcrest.Matcher;
+import org.hamcrest.core.IsEqual;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Cost of describing a failure with {@link WaitTimeoutFailStrategy}, both for a mismatching last value
+ * and for a last exception.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WaitTimeoutFailStrategyBenchmark {
+  private final WaitFailStrategy failStrategy = new WaitTimeoutFailStrategy();
+  private final Function<String, String> stateQuery = Functions.identity();
+  private final Matcher<String> matcher = IsEqual.equalTo("expected");
+  private final IgnorableStateQueryException lastException = new IgnorableStateQueryException(stateQuery, "not yet");
+
+  @Benchmark
+  public String failOnMismatch() {
+    try {
+      failStrategy.fail("message", stateQuery, "input", "actual", matcher, 1000L);
+      throw new IllegalStateException("Fail strategy did not fail.");
+    } catch (WaitTimeoutException e) {
+      return e.getMessage();
+    }
+  }
+
+  @Benchmark
+  public String failOnException() {
+    try {
+      failStrategy.fail("message", stateQuery, "input", lastException, 1000L);
+      throw new IllegalStateException("Fail strategy did not fail.");
+    } catch (WaitTimeoutException e) {
+      return e.getMessage();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import com.google.common.base.Function;
+import net.joala.condition.timing.IgnorableStateQueryException;
+import net.joala.expression.AsyncExpression;
+import net.joala.expression.ExpressionEvaluationException;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A function to start the evaluation of an asynchronous expression. Like {@link ExpressionFunction}
+ * it wraps exceptions of type {@link ExpressionEvaluationException} into
+ * {@link IgnorableStateQueryException}, whether thrown or completing the stage.
+ * </p>
+ *
+ * @param <T> the type of the value the expression returns
+ * @since 1.3.0
+ */
+final class AsyncExpressionFunction<T> implements Function<AsyncExpression<T>, CompletionStage<T>> {
+  private static final AsyncExpressionFunction<?> INSTANCE = new AsyncExpressionFunction<>();
+
+  /**
+   * The function is stateless, thus one instance serves all expressions.
+   *
+   * @param <T> the type of the value the expression returns
+   * @return function
+   */
+  @SuppressWarnings("unchecked")
+  static <T> AsyncExpressionFunction<T> instance() {
+    return (AsyncExpressionFunction<T>) INSTANCE;
+  }
+
+  /**
+   * <p>
+   * Starts the evaluation of the expression and makes any {@link ExpressionEvaluationException} ignorable.
+   * </p>
+   *
+   * @param input the expression to evaluate
+   * @return stage which completes with the result of the expression
+   */
+  @Override
+  @Nonnull
+  public CompletionStage<T> apply(final AsyncExpression<T> input) {
+    checkNotNull(input, "Expression must not be null.");
+    final CompletionStage<T> stage;
+    try {
+      stage = checkNotNull(input.getAsync(), "Expression must not return null stage.");
+    } catch (ExpressionEvaluationException e) {
+      throw new IgnorableStateQueryException(this, e);
+    }
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    stage.whenComplete((value, failure) -> {
+      final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+      if (cause == null) {
+        result.complete(value);
+      } else if (cause instanceof ExpressionEvaluationException) {
+        result.completeExceptionally(new IgnorableStateQueryException(this, cause));
+      } else {
+        result.completeExceptionally(cause);
+      }
+    });
+    return result;
+  }
+}
@@ -19,7 +19,14 @@
 
 package net.joala.condition;
 
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitListener;
 import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.expression.AsyncExpression;
 import net.joala.expression.Expression;
 import net.joala.expression.ExpressionEvaluationException;
 import org.hamcrest.Matcher;
@@ -27,10 +34,17 @@ import org.hamcrest.Matcher;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
 
 /**
+ * <p>
  * A test condition to wait for using a given timeout. If the condition does not become true within
  * time exceptions will be thrown.
+ * </p>
+ * <p>
+ * The {@code with...} and {@code abortWhen} methods tune how the condition waits. A condition which does
+ * not support a setting returns itself unchanged, which is what these methods do by default.
+ * </p>
  *
  * @param <T> the type of the value which will be verified
  * @since 2/24/12
@@ -69,6 +83,24 @@ public interface Condition<T> {
    */
   T await(@Nonnull Matcher<? super T> matcher);
 
+  /**
+   * <p>
+   * Wait for the condition value until it fulfills the given matcher without blocking the calling
+   * thread.
+   * </p>
+   * <p>
+   * An {@link AsyncExpression} is evaluated through its stages: the next evaluation
+   * starts when the previous stage completed, and no thread waits for a pending stage.
+   * </p>
+   *
+   * @param matcher matcher to use
+   * @return future which completes with the value which fulfills the given matcher; completes
+   * exceptionally with {@link WaitTimeoutException} if a value could not be retrieved in time
+   * @since 1.3.0
+   */
+  @Nonnull
+  CompletableFuture<T> awaitAsync(@Nonnull Matcher<? super T> matcher);
+
   /**
    * <p>
    * Assumes that the condition evaluates to the expected value within a given time.
@@ -120,7 +152,8 @@ public interface Condition<T> {
   /**
    * Sets a factor to speed up or slow down tests. If &lt; 1.0 the tests will speed up at least
    * for failures while a number &gt; 1.0 increases the time to wait for the condition by
-   * the given factor.
+   * the given factor. The factor applies in addition to the global factor of
+   * {@link net.joala.condition.timing.TimeoutFactors}.
    *
    * @param factor factor by which to increase the timeout for this condition
    * @return a self-reference.
@@ -136,4 +169,113 @@ public interface Condition<T> {
    */
   @Nonnull
   Condition<T> withMessage(@Nullable String message);
+
+  /**
+   * The policy to determine the delays between two evaluations of the condition.
+   *
+   * @param backoffPolicy policy to use; {@code null} to use the default policy
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withBackoffPolicy(@Nullable final BackoffPolicy backoffPolicy) {
+    return this;
+  }
+
+  /**
+   * Enables a low latency mode which detects state changes within microseconds at the cost of
+   * spinning the CPU for a short time. Only sensible for cheap expressions.
+   *
+   * @param lowLatency {@code true} to enable low latency mode
+   * @return self-reference
+   * @see net.joala.condition.timing.LowLatencyWait
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withLowLatency(final boolean lowLatency) {
+    return this;
+  }
+
+  /**
+   * Evaluates the expression under the control of the given watchdog, so that a hanging expression
+   * cannot make the condition overrun its timeout. Evaluations exceeding the remaining time are
+   * abandoned and treated like an {@link ExpressionEvaluationException}.
+   *
+   * @param watchdog watchdog to evaluate with; {@code null} to evaluate on the waiting thread
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    return this;
+  }
+
+  /**
+   * Hedges slow evaluations of the expression: if an evaluation takes longer than a percentile of the
+   * latencies observed so far, a second evaluation starts concurrently and the first result wins.
+   * Like a watchdog, hedging abandons evaluations exceeding the remaining time.
+   *
+   * @param hedging hedging to evaluate with; {@code null} to not hedge evaluations
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    return this;
+  }
+
+  /**
+   * Limits how often the expression is evaluated, together with all other conditions polling the
+   * same backend. Evaluations are delayed while the rate limit is exhausted, but not beyond the timeout.
+   *
+   * @param rateLimit bucket of the backend polled; {@code null} to poll without limit
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    return this;
+  }
+
+  /**
+   * Aborts waiting as soon as the given token gets cancelled. The condition then fails with a
+   * {@link net.joala.condition.timing.WaitCancelledException}, just as it does if the waiting thread
+   * gets interrupted.
+   *
+   * @param token token to cancel waiting with; {@code null} for waits which can only be interrupted
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withCancellationToken(@Nullable final CancellationToken token) {
+    return this;
+  }
+
+  /**
+   * Informs the given listener about the progress of waiting, for example to collect metrics.
+   *
+   * @param listener listener to inform; {@code null} to only inform global listeners
+   * @return self-reference
+   * @see net.joala.condition.timing.WaitListeners
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> withWaitListener(@Nullable final WaitListener listener) {
+    return this;
+  }
+
+  /**
+   * Fail at once if the expression reaches a terminal state, in which the expected value will never be
+   * reached; for example a job which failed instead of becoming done. Without, such a condition only fails
+   * after the timeout.
+   *
+   * @param matcher matcher for terminal states; {@code null} to wait until the timeout
+   * @return self-reference
+   * @see net.joala.condition.timing.WaitAbortedException
+   * @since 1.3.0
+   */
+  @Nonnull
+  default Condition<T> abortWhen(@Nullable final Matcher<? super T> matcher) {
+    return this;
+  }
 }
@@ -55,4 +55,57 @@ public interface ConditionFactory {
    */
   @Nonnull
   <T> Condition<T> condition(@Nonnull Expression<T> expression);
+
+  /**
+   * <p>
+   * Create a condition which cannot be changed: configuring it returns a configured copy. It can be kept
+   * in a static field and used by parallel tests.
+   * </p>
+   * <p>
+   * By default the condition created by {@link #condition(Expression)} is taken over, if it is a
+   * {@link DefaultCondition}.
+   * </p>
+   *
+   * @param expression the expression which will evaluate to value of type T
+   * @param <T>        the type the expression value will have
+   * @return immutable condition
+   * @throws NullPointerException          if expression is null
+   * @throws UnsupportedOperationException if the factory does not create default conditions
+   * @since 1.3.0
+   */
+  @Nonnull
+  default <T> ImmutableCondition<T> immutableCondition(@Nonnull final Expression<T> expression) {
+    final Condition<T> condition = condition(expression);
+    if (condition instanceof DefaultCondition) {
+      return new ImmutableCondition<>((DefaultCondition<T>) condition);
+    }
+    throw new UnsupportedOperationException(
+            String.format("Immutable conditions are not supported by %s.", getClass().getName()));
+  }
+
+  /**
+   * <p>
+   * Create a boolean condition which cannot be changed: configuring it returns a configured copy. It can
+   * be kept in a static field and used by parallel tests.
+   * </p>
+   * <p>
+   * By default the condition created by {@link #booleanCondition(Expression)} is taken over, if it is a
+   * {@link DefaultBooleanCondition}.
+   * </p>
+   *
+   * @param expression the expression which will evaluate to a boolean value
+   * @return immutable boolean condition
+   * @throws NullPointerException          if expression is null
+   * @throws UnsupportedOperationException if the factory does not create default conditions
+   * @since 1.3.0
+   */
+  @Nonnull
+  default ImmutableBooleanCondition immutableBooleanCondition(@Nonnull final Expression<Boolean> expression) {
+    final BooleanCondition condition = booleanCondition(expression);
+    if (condition instanceof DefaultBooleanCondition) {
+      return new ImmutableBooleanCondition((DefaultBooleanCondition) condition);
+    }
+    throw new UnsupportedOperationException(
+            String.format("Immutable conditions are not supported by %s.", getClass().getName()));
+  }
 }
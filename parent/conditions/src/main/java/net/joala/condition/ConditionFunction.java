@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition;
+
+import com.google.common.base.Function;
+import net.joala.condition.timing.IgnorableStateQueryException;
+import net.joala.expression.ExpressionEvaluationException;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A function to get the current value of a condition. It especially wraps exceptions of type
+ * {@link ExpressionEvaluationException} into {@link IgnorableStateQueryException}.
+ * </p>
+ *
+ * @param <T> the type of the value the condition returns
+ * @since 1.3.0
+ */
+final class ConditionFunction<T> implements Function<Condition<T>, T> {
+  /**
+   * <p>
+   * Gets the value of the condition and makes any {@link ExpressionEvaluationException} ignorable.
+   * </p>
+   *
+   * @param input the condition to get the value from
+   * @return the current value of the condition
+   */
+  @Override
+  @Nullable
+  public T apply(final Condition<T> input) {
+    checkNotNull(input, "Condition must not be null.");
+    try {
+      return input.get();
+    } catch (ExpressionEvaluationException e) {
+      throw new IgnorableStateQueryException(this, e);
+    }
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition;
+
+import net.joala.condition.timing.AsyncDeceleratingWait;
+import net.joala.condition.timing.WaitCancelledException;
+import net.joala.condition.timing.WaitFailStrategy;
+import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.condition.timing.WaitTimeoutFailStrategy;
+import net.joala.time.Timeout;
+import org.hamcrest.Matcher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Wait for several conditions at once. All conditions are evaluated concurrently against one
+ * common timeout, so that the time to wait does not add up as it does when awaiting one condition
+ * after another.
+ * </p>
+ * <p>
+ * The conditions are polled via {@link Condition#get()} only; their own timeouts, messages and
+ * runnables are not taken into account.
+ * </p>
+ * <p>
+ * Failures are reported by the given {@link WaitFailStrategy} for each failed condition. As soon as
+ * one condition failed waiting for all conditions ends and the remaining conditions are cancelled. The
+ * first failure is thrown, the failures of conditions which failed meanwhile are added as
+ * {@link Throwable#getSuppressed() suppressed} exceptions. If the waiting thread gets interrupted, all
+ * conditions are cancelled and a {@link WaitCancelledException} is thrown.
+ * </p>
+ * <p>
+ * By default the conditions are evaluated on the scheduler shared by all {@link AsyncDeceleratingWait}s.
+ * As {@link Condition#get()} blocks the evaluating thread, pass a dedicated scheduler for conditions
+ * which take long to evaluate, so that they do not delay other waits.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class Conditions {
+  private static final WaitFailStrategy TIMEOUT_FAIL_STRATEGY = new WaitTimeoutFailStrategy();
+
+  private Conditions() {
+  }
+
+  /**
+   * Expect the given condition to fulfill the given matcher.
+   *
+   * @param condition the condition to wait for
+   * @param matcher   the matcher the condition's value needs to fulfill
+   * @param <T>       the type of the value which will be verified
+   * @return expectation to pass to {@link #allOf(Timeout, Expectation[])} or {@link #anyOf(Timeout, Expectation[])}
+   */
+  @Nonnull
+  public static <T> Expectation<T> expect(@Nonnull final Condition<T> condition, @Nonnull final Matcher<? super T> matcher) {
+    return new Expectation<>(condition, matcher);
+  }
+
+  /**
+   * Wait until all expectations are met.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param expectations the expectations to wait for
+   * @return the values of the conditions in the order of the expectations
+   * @throws WaitTimeoutException if any of the expectations is not met in time
+   */
+  @Nonnull
+  public static List<Object> allOf(@Nonnull final Timeout timeout, @Nonnull final Expectation<?>... expectations) {
+    return allOf(timeout, TIMEOUT_FAIL_STRATEGY, expectations);
+  }
+
+  /**
+   * Wait until all expectations are met.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param failStrategy how to report expectations which are not met in time
+   * @param expectations the expectations to wait for
+   * @return the values of the conditions in the order of the expectations
+   */
+  @Nonnull
+  public static List<Object> allOf(@Nonnull final Timeout timeout,
+                                   @Nonnull final WaitFailStrategy failStrategy,
+                                   @Nonnull final Expectation<?>... expectations) {
+    return allOf(start(timeout, failStrategy, null, expectations));
+  }
+
+  /**
+   * Wait until all expectations are met, evaluating the conditions on the given scheduler.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param failStrategy how to report expectations which are not met in time
+   * @param scheduler    the scheduler to evaluate the conditions on
+   * @param expectations the expectations to wait for
+   * @return the values of the conditions in the order of the expectations
+   */
+  @Nonnull
+  public static List<Object> allOf(@Nonnull final Timeout timeout,
+                                   @Nonnull final WaitFailStrategy failStrategy,
+                                   @Nonnull final ScheduledExecutorService scheduler,
+                                   @Nonnull final Expectation<?>... expectations) {
+    checkNotNull(scheduler, "Scheduler must not be null.");
+    return allOf(start(timeout, failStrategy, scheduler, expectations));
+  }
+
+  @Nonnull
+  private static List<Object> allOf(@Nonnull final List<CompletableFuture<?>> futures) {
+    final CompletableFuture<?>[] all = futures.toArray(new CompletableFuture<?>[futures.size()]);
+    for (final CompletableFuture<?> future : all) {
+      // A failed expectation fails all of them, thus there is no need to wait for the others.
+      future.whenComplete((result, failure) -> {
+        if (failure != null) {
+          cancel(futures);
+        }
+      });
+    }
+    awaitCompletion(CompletableFuture.allOf(all), futures);
+    final List<Object> results = new ArrayList<>(futures.size());
+    final List<Throwable> failures = new ArrayList<>();
+    for (final CompletableFuture<?> future : futures) {
+      try {
+        results.add(future.join());
+      } catch (CompletionException e) {
+        failures.add(e.getCause());
+      } catch (CancellationException ignored) {
+        // cancelled due to the failure of another expectation
+      }
+    }
+    if (!failures.isEmpty()) {
+      throw combine(failures);
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  /**
+   * Wait until any of the expectations is met.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param expectations the expectations to wait for
+   * @return the index of the expectation which got met first
+   * @throws WaitTimeoutException if none of the expectations is met in time
+   */
+  public static int anyOf(@Nonnull final Timeout timeout, @Nonnull final Expectation<?>... expectations) {
+    return anyOf(timeout, TIMEOUT_FAIL_STRATEGY, expectations);
+  }
+
+  /**
+   * Wait until any of the expectations is met.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param failStrategy how to report if no expectation is met in time
+   * @param expectations the expectations to wait for
+   * @return the index of the expectation which got met first
+   */
+  public static int anyOf(@Nonnull final Timeout timeout,
+                          @Nonnull final WaitFailStrategy failStrategy,
+                          @Nonnull final Expectation<?>... expectations) {
+    return firstCompleted(start(timeout, failStrategy, null, expectations));
+  }
+
+  /**
+   * Wait until any of the expectations is met, evaluating the conditions on the given scheduler.
+   *
+   * @param timeout      the common timeout for all expectations
+   * @param failStrategy how to report if no expectation is met in time
+   * @param scheduler    the scheduler to evaluate the conditions on
+   * @param expectations the expectations to wait for
+   * @return the index of the expectation which got met first
+   */
+  public static int anyOf(@Nonnull final Timeout timeout,
+                          @Nonnull final WaitFailStrategy failStrategy,
+                          @Nonnull final ScheduledExecutorService scheduler,
+                          @Nonnull final Expectation<?>... expectations) {
+    checkNotNull(scheduler, "Scheduler must not be null.");
+    return firstCompleted(start(timeout, failStrategy, scheduler, expectations));
+  }
+
+  /**
+   * Wait until the first of the given conditions fulfills the given matcher.
+   *
+   * @param timeout    the common timeout for all conditions
+   * @param matcher    the matcher any condition's value needs to fulfill
+   * @param conditions the conditions to wait for
+   * @param <T>        the type of the value which will be verified
+   * @return the first value which fulfills the matcher
+   * @throws WaitTimeoutException if none of the conditions fulfills the matcher in time
+   */
+  @SafeVarargs
+  public static <T> T firstOf(@Nonnull final Timeout timeout,
+                              @Nonnull final Matcher<? super T> matcher,
+                              @Nonnull final Condition<? extends T>... conditions) {
+    return firstMatching(timeout, null, matcher, conditions);
+  }
+
+  /**
+   * Wait until the first of the given conditions fulfills the given matcher, evaluating the conditions
+   * on the given scheduler.
+   *
+   * @param timeout    the common timeout for all conditions
+   * @param scheduler  the scheduler to evaluate the conditions on
+   * @param matcher    the matcher any condition's value needs to fulfill
+   * @param conditions the conditions to wait for
+   * @param <T>        the type of the value which will be verified
+   * @return the first value which fulfills the matcher
+   * @throws WaitTimeoutException if none of the conditions fulfills the matcher in time
+   */
+  @SafeVarargs
+  public static <T> T firstOf(@Nonnull final Timeout timeout,
+                              @Nonnull final ScheduledExecutorService scheduler,
+                              @Nonnull final Matcher<? super T> matcher,
+                              @Nonnull final Condition<? extends T>... conditions) {
+    checkNotNull(scheduler, "Scheduler must not be null.");
+    return firstMatching(timeout, scheduler, matcher, conditions);
+  }
+
+  private static <T> T firstMatching(@Nonnull final Timeout timeout,
+                                     @Nullable final ScheduledExecutorService scheduler,
+                                     @Nonnull final Matcher<? super T> matcher,
+                                     @Nonnull final Condition<? extends T>[] conditions) {
+    final Expectation<?>[] expectations = new Expectation<?>[conditions.length];
+    for (int i = 0; i < conditions.length; i++) {
+      expectations[i] = expectationOf(conditions[i], matcher);
+    }
+    final List<CompletableFuture<?>> futures = start(timeout, TIMEOUT_FAIL_STRATEGY, scheduler, expectations);
+    @SuppressWarnings("unchecked")
+    final T result = (T) futures.get(firstCompleted(futures)).join();
+    return result;
+  }
+
+  private static <T> Expectation<T> expectationOf(@Nonnull final Condition<T> condition, @Nonnull final Matcher<? super T> matcher) {
+    return new Expectation<>(condition, matcher);
+  }
+
+  @Nonnull
+  private static List<CompletableFuture<?>> start(@Nonnull final Timeout timeout,
+                                                  @Nonnull final WaitFailStrategy failStrategy,
+                                                  @Nullable final ScheduledExecutorService scheduler,
+                                                  @Nonnull final Expectation<?>[] expectations) {
+    checkNotNull(timeout, "Timeout must not be null.");
+    checkNotNull(failStrategy, "Fail strategy must not be null.");
+    checkArgument(expectations.length > 0, "At least one expectation required.");
+    final AsyncDeceleratingWait wait = scheduler == null
+            ? new AsyncDeceleratingWait(timeout, failStrategy)
+            : new AsyncDeceleratingWait(timeout, 1d, failStrategy, scheduler);
+    final List<CompletableFuture<?>> futures = new ArrayList<>(expectations.length);
+    for (final Expectation<?> expectation : Arrays.asList(expectations)) {
+      futures.add(start(wait, expectation));
+    }
+    return futures;
+  }
+
+  @Nonnull
+  private static <T> CompletableFuture<T> start(@Nonnull final AsyncDeceleratingWait wait, @Nonnull final Expectation<T> expectation) {
+    return wait.untilAsync(expectation.getCondition(), new ConditionFunction<>(), expectation.getMatcher());
+  }
+
+  private static int firstCompleted(@Nonnull final List<CompletableFuture<?>> futures) {
+    final CompletableFuture<Integer> first = new CompletableFuture<>();
+    final CompletableFuture<?>[] all = futures.toArray(new CompletableFuture<?>[futures.size()]);
+    for (int i = 0; i < all.length; i++) {
+      final int index = i;
+      all[i].thenRun(() -> first.complete(index));
+    }
+    CompletableFuture.allOf(all).whenComplete((result, failure) -> first.complete(-1));
+    awaitCompletion(first, futures);
+    cancel(futures);
+    final int index = first.join();
+    if (index < 0) {
+      final List<Throwable> failures = new ArrayList<>(futures.size());
+      for (final CompletableFuture<?> future : futures) {
+        failures.add(causeOf(future));
+      }
+      throw combine(failures);
+    }
+    return index;
+  }
+
+  /**
+   * Wait until the given future completed, normally or exceptionally. If the current thread gets
+   * interrupted, the given futures are cancelled.
+   *
+   * @param completion the future to wait for
+   * @param futures    the futures of the expectations
+   * @throws WaitCancelledException if the current thread got interrupted
+   */
+  private static void awaitCompletion(@Nonnull final CompletableFuture<?> completion, @Nonnull final List<CompletableFuture<?>> futures) {
+    try {
+      completion.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel(futures);
+      throw new WaitCancelledException("Interrupted while waiting for expectations.", e);
+    } catch (ExecutionException ignored) {
+      // failures are taken from the futures of the expectations
+    }
+  }
+
+  private static void cancel(@Nonnull final List<CompletableFuture<?>> futures) {
+    for (final CompletableFuture<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  @Nonnull
+  private static Throwable causeOf(@Nonnull final CompletableFuture<?> future) {
+    try {
+      future.join();
+      throw new IllegalStateException("Future expected to be completed exceptionally: " + future);
+    } catch (CompletionException e) {
+      return e.getCause();
+    }
+  }
+
+  @Nonnull
+  private static RuntimeException combine(@Nonnull final List<Throwable> failures) {
+    final Throwable first = failures.get(0);
+    for (final Throwable failure : failures.subList(1, failures.size())) {
+      first.addSuppressed(failure);
+    }
+    if (first instanceof Error) {
+      throw (Error) first;
+    }
+    if (first instanceof RuntimeException) {
+      return (RuntimeException) first;
+    }
+    return new WaitTimeoutException(first.getMessage(), first);
+  }
+}
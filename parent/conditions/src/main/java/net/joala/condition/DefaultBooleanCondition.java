@@ -19,8 +19,15 @@
 
 package net.joala.condition;
 
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitListener;
 import net.joala.expression.Expression;
 import net.joala.time.Timeout;
+import org.hamcrest.Matcher;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -37,6 +44,18 @@ public class DefaultBooleanCondition extends DefaultCondition<Boolean> implement
     super(expression, timeout);
   }
 
+  @Override
+  @Nonnull
+  DefaultBooleanCondition copy() {
+    return (DefaultBooleanCondition) super.copy();
+  }
+
+  @Override
+  @Nonnull
+  protected DefaultBooleanCondition newInstance(@Nonnull final Expression<Boolean> newExpression, @Nonnull final Timeout newTimeout) {
+    return new DefaultBooleanCondition(newExpression, newTimeout);
+  }
+
   @Override
   public final void assumeTrue() {
     assumeEquals(TRUE);
@@ -94,4 +113,60 @@ public class DefaultBooleanCondition extends DefaultCondition<Boolean> implement
     super.withTimeoutFactor(newFactor);
     return this;
   }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withBackoffPolicy(@Nullable final BackoffPolicy newBackoffPolicy) {
+    super.withBackoffPolicy(newBackoffPolicy);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withLowLatency(final boolean newLowLatency) {
+    super.withLowLatency(newLowLatency);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withEvaluationWatchdog(@Nullable final EvaluationWatchdog newWatchdog) {
+    super.withEvaluationWatchdog(newWatchdog);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withEvaluationHedging(@Nullable final EvaluationHedging newHedging) {
+    super.withEvaluationHedging(newHedging);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withPollRateLimit(@Nullable final PollRateLimiter.Scope newRateLimit) {
+    super.withPollRateLimit(newRateLimit);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withCancellationToken(@Nullable final CancellationToken newToken) {
+    super.withCancellationToken(newToken);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition withWaitListener(@Nullable final WaitListener newListener) {
+    super.withWaitListener(newListener);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultBooleanCondition abortWhen(@Nullable final Matcher<? super Boolean> matcher) {
+    super.abortWhen(matcher);
+    return this;
+  }
 }
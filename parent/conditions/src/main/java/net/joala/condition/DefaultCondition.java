@@ -20,11 +20,23 @@
 package net.joala.condition;
 
 import com.google.common.base.MoreObjects;
+import net.joala.condition.timing.AsyncDeceleratingWait;
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
 import net.joala.condition.timing.DeceleratingWait;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.LowLatencyWait;
+import net.joala.condition.timing.StateChangeSignal;
 import net.joala.condition.timing.Wait;
 import net.joala.condition.timing.WaitFailStrategy;
+import net.joala.condition.timing.WaitListener;
 import net.joala.condition.timing.WaitTimeoutFailStrategy;
+import net.joala.expression.AsyncExpression;
 import net.joala.expression.Expression;
+import net.joala.expression.ExpressionChangeListener;
+import net.joala.expression.ObservableExpression;
 import net.joala.time.Timeout;
 import org.hamcrest.Matcher;
 import org.hamcrest.core.IsAnything;
@@ -32,6 +44,7 @@ import org.hamcrest.core.IsAnything;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -45,6 +58,10 @@ import static org.hamcrest.core.IsEqual.equalTo;
  * To override this class and provide the same syntax for configuration you should override any methods returning
  * a self reference, call the super method and just return {@code this}.
  * </p>
+ * <p>
+ * If the expression is an {@link ObservableExpression} the condition does not poll but re-evaluates
+ * the expression as soon as it signals a change.
+ * </p>
  *
  * @param <T> result type of {@link #get()}
  * @since 2/24/12
@@ -53,6 +70,7 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
   private static final WaitFailStrategy TIMEOUT_FAIL_STRATEGY = new WaitTimeoutFailStrategy();
   private static final WaitFailStrategy ASSUMPTION_FAIL_STRATEGY = new WaitAssumptionFailStrategy();
   private static final WaitFailStrategy ASSERTION_FAIL_STRATEGY = new WaitAssertionFailStrategy();
+  private static final Matcher<Object> ANYTHING = IsAnything.anything();
   /**
    * Message to print on failure. {@code null} for none.
    */
@@ -81,6 +99,48 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
   private final Expression<T> expression;
   @Nonnegative
   private double factor = 1.0;
+  /**
+   * Policy for the delays between two evaluations.
+   */
+  @Nonnull
+  private BackoffPolicy backoffPolicy = DeceleratingWait.DEFAULT_BACKOFF_POLICY;
+  /**
+   * Whether to spin and park before decelerating.
+   */
+  private boolean lowLatency;
+  /**
+   * Watchdog to evaluate the expression with; {@code null} to evaluate on the waiting thread.
+   */
+  @Nullable
+  private EvaluationWatchdog evaluationWatchdog;
+  /**
+   * Hedging to evaluate the expression with; {@code null} to not hedge evaluations.
+   */
+  @Nullable
+  private EvaluationHedging evaluationHedging;
+  /**
+   * Rate limit of the polled backend; {@code null} to poll without limit.
+   */
+  @Nullable
+  private PollRateLimiter.Scope pollRateLimit;
+  /**
+   * Token to cancel waiting with; {@code null} if waiting can only be interrupted.
+   */
+  @Nullable
+  private CancellationToken cancellationToken;
+  /**
+   * Listener to inform about the progress of waiting; {@code null} for none.
+   */
+  @Nullable
+  private WaitListener waitListener;
+  @Nullable
+  private Matcher<? super T> abortMatcher;
+  /**
+   * Wait for {@link #await(Matcher)} reused as long as the configuration does not change, so that
+   * awaiting does not allocate; {@code null} if not created yet.
+   */
+  @Nullable
+  private volatile DeceleratingWait awaitWait;
 
   public DefaultCondition(@Nonnull final Expression<T> expression, @Nonnull final Timeout timeout) {
     checkNotNull(expression, "Expression must not be null.");
@@ -89,6 +149,43 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
     this.timeout = timeout;
   }
 
+  /**
+   * Create a condition of the same type with the same expression and configuration.
+   *
+   * @return copy
+   */
+  @Nonnull
+  DefaultCondition<T> copy() {
+    final DefaultCondition<T> copy = newInstance(expression, timeout);
+    copy.message = message;
+    copy.runFinallyRunnable = runFinallyRunnable;
+    copy.runBeforeRunnable = runBeforeRunnable;
+    copy.factor = factor;
+    copy.backoffPolicy = backoffPolicy;
+    copy.lowLatency = lowLatency;
+    copy.evaluationWatchdog = evaluationWatchdog;
+    copy.evaluationHedging = evaluationHedging;
+    copy.pollRateLimit = pollRateLimit;
+    copy.cancellationToken = cancellationToken;
+    copy.waitListener = waitListener;
+    copy.abortMatcher = abortMatcher;
+    return copy;
+  }
+
+  /**
+   * Create an unconfigured condition of the type of this condition, used for copies. Subclasses override it
+   * so that copies keep their type.
+   *
+   * @param newExpression expression of the new condition
+   * @param newTimeout    timeout of the new condition
+   * @return new condition
+   * @since 1.3.0
+   */
+  @Nonnull
+  protected DefaultCondition<T> newInstance(@Nonnull final Expression<T> newExpression, @Nonnull final Timeout newTimeout) {
+    return new DefaultCondition<>(newExpression, newTimeout);
+  }
+
   @Override
   public final T get() {
     return expression.get();
@@ -96,7 +193,7 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
 
   @Override
   public final T await() {
-    return await(IsAnything.anything());
+    return await(ANYTHING);
   }
 
   @Override
@@ -104,6 +201,41 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
     return until(matcher, TIMEOUT_FAIL_STRATEGY);
   }
 
+  @Override
+  @Nonnull
+  public CompletableFuture<T> awaitAsync(@Nonnull final Matcher<? super T> matcher) {
+    if (runBeforeRunnable != null) {
+      runBeforeRunnable.run();
+    }
+    final Runnable finallyRunnable = runFinallyRunnable;
+    final AsyncDeceleratingWait wait = new AsyncDeceleratingWait(timeout, factor, TIMEOUT_FAIL_STRATEGY, backoffPolicy)
+            .withEvaluationWatchdog(evaluationWatchdog)
+            .withEvaluationHedging(evaluationHedging)
+            .withPollRateLimit(pollRateLimit)
+            .withCancellationToken(cancellationToken)
+            .withWaitListener(waitListener)
+            .abortWhen(abortMatcher);
+    final ExpressionChangeListener listener = observe(wait);
+    final Runnable onCompletion = () -> {
+      unobserve(listener);
+      if (finallyRunnable != null) {
+        finallyRunnable.run();
+      }
+    };
+    final CompletableFuture<T> future;
+    try {
+      if (expression instanceof AsyncExpression) {
+        future = wait.untilStage(message, (AsyncExpression<T>) expression, AsyncExpressionFunction.<T>instance(), matcher);
+      } else {
+        future = wait.untilAsync(message, expression, ExpressionFunction.<T>instance(), matcher);
+      }
+    } catch (RuntimeException | Error e) {
+      onCompletion.run();
+      throw e;
+    }
+    return future.whenComplete((result, failure) -> onCompletion.run());
+  }
+
   @Override
   public void waitUntil(@Nonnull final Matcher<? super T> matcher) {
     //noinspection ResultOfMethodCallIgnored
@@ -116,7 +248,58 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
   }
 
   private T until(final Matcher<? super T> matcher, final WaitFailStrategy failStrategy) {
-    return until(new DeceleratingWait(timeout, factor, failStrategy), matcher);
+    if (failStrategy == TIMEOUT_FAIL_STRATEGY && !(expression instanceof ObservableExpression)) {
+      DeceleratingWait wait = awaitWait;
+      if (wait == null) {
+        wait = createWait(failStrategy);
+        awaitWait = wait;
+      }
+      return until(wait, matcher);
+    }
+    final DeceleratingWait wait = createWait(failStrategy);
+    final ExpressionChangeListener listener = observe(wait);
+    try {
+      return until(wait, matcher);
+    } finally {
+      unobserve(listener);
+    }
+  }
+
+  @Nonnull
+  private DeceleratingWait createWait(@Nonnull final WaitFailStrategy failStrategy) {
+    final DeceleratingWait wait = lowLatency
+            ? new LowLatencyWait(timeout, factor, failStrategy, backoffPolicy)
+            : new DeceleratingWait(timeout, factor, failStrategy, backoffPolicy);
+    return wait.withEvaluationWatchdog(evaluationWatchdog)
+               .withEvaluationHedging(evaluationHedging)
+               .withPollRateLimit(pollRateLimit)
+               .withCancellationToken(cancellationToken)
+               .withWaitListener(waitListener)
+               .abortWhen(abortMatcher);
+  }
+
+  /**
+   * If the expression is observable, let the wait wake up on changes instead of polling.
+   *
+   * @param wait the wait to configure
+   * @return listener registered at the expression; {@code null} if the expression is not observable
+   */
+  @Nullable
+  private ExpressionChangeListener observe(@Nonnull final DeceleratingWait wait) {
+    if (!(expression instanceof ObservableExpression)) {
+      return null;
+    }
+    final StateChangeSignal signal = new StateChangeSignal();
+    final ExpressionChangeListener listener = signal::signal;
+    wait.withChangeSignal(signal);
+    ((ObservableExpression<T>) expression).addChangeListener(listener);
+    return listener;
+  }
+
+  private void unobserve(@Nullable final ExpressionChangeListener listener) {
+    if (listener != null) {
+      ((ObservableExpression<T>) expression).removeChangeListener(listener);
+    }
   }
 
   private T until(@Nonnull final Wait wait, @Nullable final Matcher<? super T> matcher) {
@@ -124,7 +307,7 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
       runBeforeRunnable.run();
     }
     try {
-      return wait.until(message, expression, new ExpressionFunction<>(), matcher);
+      return wait.until(message, expression, ExpressionFunction.<T>instance(), matcher);
     } finally {
       if (runFinallyRunnable != null) {
         runFinallyRunnable.run();
@@ -170,6 +353,7 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
   @Nonnull
   public DefaultCondition<T> withTimeoutFactor(@Nonnegative final double newFactor) {
     this.factor = newFactor;
+    awaitWait = null;
     return this;
   }
 
@@ -180,6 +364,70 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
     return this;
   }
 
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withBackoffPolicy(@Nullable final BackoffPolicy newBackoffPolicy) {
+    this.backoffPolicy = newBackoffPolicy == null ? DeceleratingWait.DEFAULT_BACKOFF_POLICY : newBackoffPolicy;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withLowLatency(final boolean newLowLatency) {
+    this.lowLatency = newLowLatency;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withEvaluationWatchdog(@Nullable final EvaluationWatchdog newWatchdog) {
+    this.evaluationWatchdog = newWatchdog;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withEvaluationHedging(@Nullable final EvaluationHedging newHedging) {
+    this.evaluationHedging = newHedging;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withPollRateLimit(@Nullable final PollRateLimiter.Scope newRateLimit) {
+    this.pollRateLimit = newRateLimit;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withCancellationToken(@Nullable final CancellationToken newToken) {
+    this.cancellationToken = newToken;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> withWaitListener(@Nullable final WaitListener newListener) {
+    this.waitListener = newListener;
+    awaitWait = null;
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public DefaultCondition<T> abortWhen(@Nullable final Matcher<? super T> matcher) {
+    this.abortMatcher = matcher;
+    awaitWait = null;
+    return this;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -189,6 +437,14 @@ public class DefaultCondition<T> implements Condition<T>, FailSafeCondition<T> {
                       .add("runFinally", runFinallyRunnable)
                       .add("timeout", timeout)
                       .add("factor", factor)
+                      .add("backoffPolicy", backoffPolicy)
+                      .add("lowLatency", lowLatency)
+                      .add("evaluationWatchdog", evaluationWatchdog)
+                      .add("evaluationHedging", evaluationHedging)
+                      .add("pollRateLimit", pollRateLimit)
+                      .add("cancellationToken", cancellationToken)
+                      .add("waitListener", waitListener)
+                      .add("abortMatcher", abortMatcher)
                       .toString();
   }
 
@@ -19,10 +19,14 @@
 
 package net.joala.condition;
 
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.DeceleratingWait;
+import net.joala.condition.timing.PollRateLimiter;
 import net.joala.expression.Expression;
 import net.joala.time.Timeout;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -36,6 +40,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class DefaultConditionFactory implements ConditionFactory {
   @Nonnull
   private final Timeout timeout;
+  @Nonnull
+  private final BackoffPolicy backoffPolicy;
+  @Nullable
+  private final PollRateLimiter.Scope pollRateLimit;
 
   /**
    * <p>
@@ -45,20 +53,71 @@ public class DefaultConditionFactory implements ConditionFactory {
    * @param timeout the timeout behavior (i. e. the default time to time out)
    */
   public DefaultConditionFactory(@Nonnull final Timeout timeout) {
+    this(timeout, DeceleratingWait.DEFAULT_BACKOFF_POLICY);
+  }
+
+  /**
+   * <p>
+   * Create factory for conditions with the given timeout behavior and backoff policy.
+   * </p>
+   *
+   * @param timeout       the timeout behavior (i. e. the default time to time out)
+   * @param backoffPolicy the default policy for delays between two evaluations of created conditions
+   * @since 1.3.0
+   */
+  public DefaultConditionFactory(@Nonnull final Timeout timeout, @Nonnull final BackoffPolicy backoffPolicy) {
+    this(timeout, backoffPolicy, null);
+  }
+
+  /**
+   * <p>
+   * Create factory for conditions which share a poll rate limit, for example all conditions polling
+   * the same backend from parallel tests.
+   * </p>
+   *
+   * @param timeout       the timeout behavior (i. e. the default time to time out)
+   * @param backoffPolicy the default policy for delays between two evaluations of created conditions
+   * @param pollRateLimit the rate limit of the polled backend; {@code null} to poll without limit
+   * @since 1.3.0
+   */
+  public DefaultConditionFactory(@Nonnull final Timeout timeout,
+                                 @Nonnull final BackoffPolicy backoffPolicy,
+                                 @Nullable final PollRateLimiter.Scope pollRateLimit) {
+    checkNotNull(backoffPolicy, "Backoff policy must not be null");
     this.timeout = timeout;
+    this.backoffPolicy = backoffPolicy;
+    this.pollRateLimit = pollRateLimit;
   }
 
   @Nonnull
   @Override
   public BooleanCondition booleanCondition(@Nonnull final Expression<Boolean> expression) {
     checkNotNull(expression, "Expression must not be null");
-    return new DefaultBooleanCondition(expression, timeout);
+    return new DefaultBooleanCondition(expression, timeout).withBackoffPolicy(backoffPolicy).withPollRateLimit(pollRateLimit);
   }
 
   @Nonnull
   @Override
   public <T> Condition<T> condition(@Nonnull final Expression<T> expression) {
     checkNotNull(expression, "Expression must not be null");
-    return new DefaultCondition<>(expression, timeout);
+    return new DefaultCondition<>(expression, timeout).withBackoffPolicy(backoffPolicy).withPollRateLimit(pollRateLimit);
+  }
+
+  @Nonnull
+  @Override
+  public <T> ImmutableCondition<T> immutableCondition(@Nonnull final Expression<T> expression) {
+    checkNotNull(expression, "Expression must not be null");
+    return new ImmutableCondition<>(new DefaultCondition<>(expression, timeout)
+            .withBackoffPolicy(backoffPolicy)
+            .withPollRateLimit(pollRateLimit));
+  }
+
+  @Nonnull
+  @Override
+  public ImmutableBooleanCondition immutableBooleanCondition(@Nonnull final Expression<Boolean> expression) {
+    checkNotNull(expression, "Expression must not be null");
+    return new ImmutableBooleanCondition(new DefaultBooleanCondition(expression, timeout)
+            .withBackoffPolicy(backoffPolicy)
+            .withPollRateLimit(pollRateLimit));
   }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition;
+
+import com.google.common.base.MoreObjects;
+import org.hamcrest.Matcher;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A condition together with the matcher its value is expected to fulfill. Used to wait for several
+ * conditions at once.
+ * </p>
+ *
+ * @param <T> the type of the value which will be verified
+ * @see Conditions
+ * @since 1.3.0
+ */
+public final class Expectation<T> {
+  @Nonnull
+  private final Condition<T> condition;
+  @Nonnull
+  private final Matcher<? super T> matcher;
+
+  Expectation(@Nonnull final Condition<T> condition, @Nonnull final Matcher<? super T> matcher) {
+    checkNotNull(condition, "Condition must not be null.");
+    checkNotNull(matcher, "Matcher must not be null.");
+    this.condition = condition;
+    this.matcher = matcher;
+  }
+
+  @Nonnull
+  public Condition<T> getCondition() {
+    return condition;
+  }
+
+  @Nonnull
+  public Matcher<? super T> getMatcher() {
+    return matcher;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("condition", condition)
+                      .add("matcher", matcher)
+                      .toString();
+  }
+}
@@ -38,6 +38,19 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @since 9/18/12
  */
 final class ExpressionFunction<T> implements Function<Expression<T>, T> {
+  private static final ExpressionFunction<?> INSTANCE = new ExpressionFunction<>();
+
+  /**
+   * The function is stateless, thus one instance serves all expressions.
+   *
+   * @param <T> the type of the value the expression returns
+   * @return function
+   */
+  @SuppressWarnings("unchecked")
+  static <T> ExpressionFunction<T> instance() {
+    return (ExpressionFunction<T>) INSTANCE;
+  }
+
   /**
    * <p>
    * Evaluates expression and makes any {@link ExpressionEvaluationException} ignorable.
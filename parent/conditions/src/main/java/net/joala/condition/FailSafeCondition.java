@@ -19,6 +19,14 @@
 
 package net.joala.condition;
 
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitListener;
+import org.hamcrest.Matcher;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -56,4 +64,60 @@ public interface FailSafeCondition<T> extends Condition<T> {
   @Override
   @Nonnull
   FailSafeCondition<T> withTimeoutFactor(@Nonnegative double factor);
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withBackoffPolicy(@Nullable final BackoffPolicy backoffPolicy) {
+    Condition.super.withBackoffPolicy(backoffPolicy);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withLowLatency(final boolean lowLatency) {
+    Condition.super.withLowLatency(lowLatency);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    Condition.super.withEvaluationWatchdog(watchdog);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    Condition.super.withEvaluationHedging(hedging);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    Condition.super.withPollRateLimit(rateLimit);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withCancellationToken(@Nullable final CancellationToken token) {
+    Condition.super.withCancellationToken(token);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> withWaitListener(@Nullable final WaitListener listener) {
+    Condition.super.withWaitListener(listener);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  default FailSafeCondition<T> abortWhen(@Nullable final Matcher<? super T> matcher) {
+    Condition.super.abortWhen(matcher);
+    return this;
+  }
 }
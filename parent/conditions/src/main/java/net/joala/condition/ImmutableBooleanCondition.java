@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import com.google.common.base.MoreObjects;
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitListener;
+import org.hamcrest.Matcher;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+
+/**
+ * <p>
+ * A boolean condition which cannot be changed once created. Like {@link ImmutableCondition} configuring
+ * it returns a configured copy, which keeps the convenience methods of {@link BooleanCondition}.
+ * </p>
+ *
+ * @see ConditionFactory#immutableBooleanCondition(net.joala.expression.Expression)
+ * @since 1.3.0
+ */
+public final class ImmutableBooleanCondition implements BooleanCondition, FailSafeCondition<Boolean> {
+  @Nonnull
+  private final ImmutableCondition<Boolean> condition;
+
+  /**
+   * @param condition the configuration to take over; further changes to it do not affect this condition
+   */
+  public ImmutableBooleanCondition(@Nonnull final DefaultBooleanCondition condition) {
+    this(new ImmutableCondition<>(checkNotNull(condition, "Condition must not be null.")));
+  }
+
+  private ImmutableBooleanCondition(@Nonnull final ImmutableCondition<Boolean> condition) {
+    this.condition = condition;
+  }
+
+  @Override
+  public void assumeTrue() {
+    condition.assumeEquals(TRUE);
+  }
+
+  @Override
+  public void assumeFalse() {
+    condition.assumeEquals(FALSE);
+  }
+
+  @Override
+  public void assertTrue() {
+    condition.assertEquals(TRUE);
+  }
+
+  @Override
+  public void assertFalse() {
+    condition.assertEquals(FALSE);
+  }
+
+  @Override
+  public void waitUntilTrue() {
+    condition.waitUntilEquals(TRUE);
+  }
+
+  @Override
+  public void waitUntilFalse() {
+    condition.waitUntilEquals(FALSE);
+  }
+
+  @Override
+  public Boolean get() {
+    return condition.get();
+  }
+
+  @Override
+  public Boolean await() {
+    return condition.await();
+  }
+
+  @Override
+  public Boolean await(@Nonnull final Matcher<? super Boolean> matcher) {
+    return condition.await(matcher);
+  }
+
+  @Override
+  @Nonnull
+  public CompletableFuture<Boolean> awaitAsync(@Nonnull final Matcher<? super Boolean> matcher) {
+    return condition.awaitAsync(matcher);
+  }
+
+  @Override
+  public void assumeEquals(@Nullable final Boolean expected) {
+    condition.assumeEquals(expected);
+  }
+
+  @Override
+  public void assumeThat(@Nonnull final Matcher<? super Boolean> matcher) {
+    condition.assumeThat(matcher);
+  }
+
+  @Override
+  public void assertEquals(@Nullable final Boolean expected) {
+    condition.assertEquals(expected);
+  }
+
+  @Override
+  public void assertThat(@Nonnull final Matcher<? super Boolean> matcher) {
+    condition.assertThat(matcher);
+  }
+
+  @Override
+  public void waitUntilEquals(@Nullable final Boolean expected) {
+    condition.waitUntilEquals(expected);
+  }
+
+  @Override
+  public void waitUntil(@Nonnull final Matcher<? super Boolean> matcher) {
+    condition.waitUntil(matcher);
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition runFinally(@Nullable final Runnable runnable) {
+    return new ImmutableBooleanCondition(condition.runFinally(runnable));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition runBefore(@Nullable final Runnable runnable) {
+    return new ImmutableBooleanCondition(condition.runBefore(runnable));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withTimeoutFactor(@Nonnegative final double factor) {
+    return new ImmutableBooleanCondition(condition.withTimeoutFactor(factor));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withMessage(@Nullable final String message) {
+    return new ImmutableBooleanCondition(condition.withMessage(message));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withBackoffPolicy(@Nullable final BackoffPolicy backoffPolicy) {
+    return new ImmutableBooleanCondition(condition.withBackoffPolicy(backoffPolicy));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withLowLatency(final boolean lowLatency) {
+    return new ImmutableBooleanCondition(condition.withLowLatency(lowLatency));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    return new ImmutableBooleanCondition(condition.withEvaluationWatchdog(watchdog));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    return new ImmutableBooleanCondition(condition.withEvaluationHedging(hedging));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    return new ImmutableBooleanCondition(condition.withPollRateLimit(rateLimit));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withCancellationToken(@Nullable final CancellationToken token) {
+    return new ImmutableBooleanCondition(condition.withCancellationToken(token));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition withWaitListener(@Nullable final WaitListener listener) {
+    return new ImmutableBooleanCondition(condition.withWaitListener(listener));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableBooleanCondition abortWhen(@Nullable final Matcher<? super Boolean> matcher) {
+    return new ImmutableBooleanCondition(condition.abortWhen(matcher));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("condition", condition)
+                      .toString();
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import com.google.common.base.MoreObjects;
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.condition.timing.CancellationToken;
+import net.joala.condition.timing.EvaluationHedging;
+import net.joala.condition.timing.EvaluationWatchdog;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitListener;
+import org.hamcrest.Matcher;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A condition which cannot be changed once created. Configuring it does not modify the condition but
+ * returns a configured copy:
+ * </p>
+ * <pre>{@code
+ * private static final Condition<String> JOB_STATE = conditionFactory.immutableCondition(jobState);
+ * ...
+ * JOB_STATE.withMessage("Job should be done.").waitUntilEquals("DONE");
+ * }</pre>
+ * <p>
+ * Thus the same condition can be kept in a static field and used by parallel tests without locking and
+ * without copying on each wait. The expression, runnables, listeners and other objects it is configured
+ * with must be thread-safe themselves.
+ * </p>
+ *
+ * @param <T> result type of {@link #get()}
+ * @see ConditionFactory#immutableCondition(net.joala.expression.Expression)
+ * @since 1.3.0
+ */
+public final class ImmutableCondition<T> implements FailSafeCondition<T> {
+  /**
+   * The configured condition, which is never modified after construction; safely published by being final.
+   */
+  @Nonnull
+  private final DefaultCondition<T> condition;
+
+  /**
+   * @param condition the configuration to take over; further changes to it do not affect this condition
+   */
+  public ImmutableCondition(@Nonnull final DefaultCondition<T> condition) {
+    checkNotNull(condition, "Condition must not be null.");
+    this.condition = condition.copy();
+  }
+
+  private ImmutableCondition(@Nonnull final DefaultCondition<T> condition, @Nonnull final Consumer<DefaultCondition<T>> configuration) {
+    final DefaultCondition<T> copy = condition.copy();
+    configuration.accept(copy);
+    this.condition = copy;
+  }
+
+  @Override
+  public T get() {
+    return condition.get();
+  }
+
+  @Override
+  public T await() {
+    return condition.await();
+  }
+
+  @Override
+  public T await(@Nonnull final Matcher<? super T> matcher) {
+    return condition.await(matcher);
+  }
+
+  @Override
+  @Nonnull
+  public CompletableFuture<T> awaitAsync(@Nonnull final Matcher<? super T> matcher) {
+    return condition.awaitAsync(matcher);
+  }
+
+  @Override
+  public void assumeEquals(@Nullable final T expected) {
+    condition.assumeEquals(expected);
+  }
+
+  @Override
+  public void assumeThat(@Nonnull final Matcher<? super T> matcher) {
+    condition.assumeThat(matcher);
+  }
+
+  @Override
+  public void assertEquals(@Nullable final T expected) {
+    condition.assertEquals(expected);
+  }
+
+  @Override
+  public void assertThat(@Nonnull final Matcher<? super T> matcher) {
+    condition.assertThat(matcher);
+  }
+
+  @Override
+  public void waitUntilEquals(@Nullable final T expected) {
+    condition.waitUntilEquals(expected);
+  }
+
+  @Override
+  public void waitUntil(@Nonnull final Matcher<? super T> matcher) {
+    condition.waitUntil(matcher);
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> runFinally(@Nullable final Runnable runnable) {
+    return new ImmutableCondition<>(condition, c -> c.runFinally(runnable));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> runBefore(@Nullable final Runnable runnable) {
+    return new ImmutableCondition<>(condition, c -> c.runBefore(runnable));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withTimeoutFactor(@Nonnegative final double factor) {
+    return new ImmutableCondition<>(condition, c -> c.withTimeoutFactor(factor));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withMessage(@Nullable final String message) {
+    return new ImmutableCondition<>(condition, c -> c.withMessage(message));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withBackoffPolicy(@Nullable final BackoffPolicy backoffPolicy) {
+    return new ImmutableCondition<>(condition, c -> c.withBackoffPolicy(backoffPolicy));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withLowLatency(final boolean lowLatency) {
+    return new ImmutableCondition<>(condition, c -> c.withLowLatency(lowLatency));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    return new ImmutableCondition<>(condition, c -> c.withEvaluationWatchdog(watchdog));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    return new ImmutableCondition<>(condition, c -> c.withEvaluationHedging(hedging));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    return new ImmutableCondition<>(condition, c -> c.withPollRateLimit(rateLimit));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withCancellationToken(@Nullable final CancellationToken token) {
+    return new ImmutableCondition<>(condition, c -> c.withCancellationToken(token));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> withWaitListener(@Nullable final WaitListener listener) {
+    return new ImmutableCondition<>(condition, c -> c.withWaitListener(listener));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableCondition<T> abortWhen(@Nullable final Matcher<? super T> matcher) {
+    return new ImmutableCondition<>(condition, c -> c.abortWhen(matcher));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("condition", condition)
+                      .toString();
+  }
+}
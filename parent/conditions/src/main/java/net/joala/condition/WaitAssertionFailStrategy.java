@@ -57,4 +57,14 @@ public class WaitAssertionFailStrategy extends AbstractWaitFailStrategy {
                        @Nonnegative final long consumedMillis) {
     assertThat(addTimeoutDescription(reason, function, input, consumedMillis), lastValue, matcher);
   }
+
+  @Override
+  public void abort(@Nullable final String reason,
+                    @Nonnull final Object function,
+                    @Nonnull final Object input,
+                    @Nullable final Object terminalState,
+                    @Nonnull final Matcher<?> abortMatcher,
+                    @Nonnegative final long consumedMillis) {
+    throw new AssertionError(addAbortDescription(reason, function, input, terminalState, abortMatcher, consumedMillis));
+  }
 }
@@ -22,6 +22,7 @@ package net.joala.condition;
 import net.joala.condition.timing.AbstractWaitFailStrategy;
 import net.joala.matcher.decorator.EnhanceDescriptionBy;
 import org.hamcrest.Matcher;
+import org.junit.AssumptionViolatedException;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -63,4 +64,14 @@ public class WaitAssumptionFailStrategy extends AbstractWaitFailStrategy {
             lastValue,
             EnhanceDescriptionBy.enhanceDescriptionBy(addTimeoutDescription(reason, function, input, consumedMillis), matcher));
   }
+
+  @Override
+  public void abort(@Nullable final String reason,
+                    @Nonnull final Object function,
+                    @Nonnull final Object input,
+                    @Nullable final Object terminalState,
+                    @Nonnull final Matcher<?> abortMatcher,
+                    @Nonnegative final long consumedMillis) {
+    throw new AssumptionViolatedException(addAbortDescription(reason, function, input, terminalState, abortMatcher, consumedMillis));
+  }
 }
@@ -21,6 +21,7 @@ package net.joala.condition.timing;
 
 import net.joala.time.TimeFormat;
 import org.hamcrest.Description;
+import org.hamcrest.Matcher;
 import org.hamcrest.StringDescription;
 
 import javax.annotation.Nonnegative;
@@ -68,4 +69,28 @@ public abstract class AbstractWaitFailStrategy implements WaitFailStrategy {
     return description.toString();
   }
 
+  /**
+   * <p>
+   * Describes a wait which got aborted because of a terminal state.
+   * </p>
+   *
+   * @param reason         original (plain) message
+   * @param function       function evaluated
+   * @param input          the input to the function
+   * @param terminalState  the value which matched the abort matcher
+   * @param abortMatcher   the matcher which matched
+   * @param consumedMillis how long it took until the wait got aborted
+   * @return description of the abort
+   * @since 1.3.0
+   */
+  @Nonnull
+  protected String addAbortDescription(@Nullable final String reason,
+                                       @Nonnull final Object function,
+                                       @Nonnull final Object input,
+                                       @Nullable final Object terminalState,
+                                       @Nonnull final Matcher<?> abortMatcher,
+                                       @Nonnegative final long consumedMillis) {
+    return WaitAbortedException.describe(reason, function, input, terminalState, abortMatcher, consumedMillis);
+  }
+
 }
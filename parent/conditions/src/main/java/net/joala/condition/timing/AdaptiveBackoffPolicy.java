@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import net.joala.time.Clocks;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Backoff policy which learns from previous waits when a state query usually succeeds and how long
+ * it takes to evaluate. Once it has seen a few successful waits, it skips the early polls and polls
+ * densely around the expected time to success instead. This saves evaluations for slow state changes
+ * and reduces the detection lag compared to a schedule which has already decelerated.
+ * </p>
+ * <p>
+ * Time to success is estimated like a round trip time in TCP: a smoothed mean and a smoothed mean
+ * deviation. Polls cluster within two deviations around the mean; beyond that window and before
+ * enough waits have been observed the fallback policy takes over.
+ * </p>
+ * <p>
+ * The statistics are only meaningful for waits on the same state change, so use one instance per
+ * expression, for example by {@link #forKey(String)}. They live as long as the JVM run.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class AdaptiveBackoffPolicy implements BackoffPolicy {
+  /**
+   * Number of successful waits to observe before adapting the schedule.
+   */
+  @VisibleForTesting
+  static final int MIN_SAMPLES = 3;
+  /**
+   * Number of polls within the window around the expected time to success.
+   */
+  private static final int POLLS_PER_WINDOW = 8;
+  private static final double MEAN_GAIN = 1d / 8d;
+  private static final double DEVIATION_GAIN = 1d / 4d;
+  private static final ConcurrentMap<String, AdaptiveBackoffPolicy> POLICIES = new ConcurrentHashMap<>();
+
+  @Nonnull
+  private final BackoffPolicy fallback;
+  /**
+   * Statistics; guarded by {@code this}.
+   */
+  private int samples;
+  private double meanMillis;
+  private double deviationMillis;
+  private double evaluationMillis;
+
+  /**
+   * Adaptive policy falling back to the {@link DeceleratingWait#DEFAULT_BACKOFF_POLICY default policy}.
+   */
+  public AdaptiveBackoffPolicy() {
+    this(DeceleratingWait.DEFAULT_BACKOFF_POLICY);
+  }
+
+  /**
+   * @param fallback policy to use until enough waits have been observed and after the expected time to success passed
+   */
+  public AdaptiveBackoffPolicy(@Nonnull final BackoffPolicy fallback) {
+    checkNotNull(fallback, "Fallback policy must not be null.");
+    this.fallback = fallback;
+  }
+
+  /**
+   * The policy shared by all waits for the given key, created on first access. Policies are never
+   * evicted, thus keys are strings which are stable within the JVM run, like the description of an
+   * expression or a constant, rather than objects which would be kept alive by the registry.
+   *
+   * @param key key identifying the state query
+   * @return policy of the key
+   */
+  @Nonnull
+  public static AdaptiveBackoffPolicy forKey(@Nonnull final String key) {
+    checkNotNull(key, "Key must not be null.");
+    return POLICIES.computeIfAbsent(key, k -> new AdaptiveBackoffPolicy());
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    final long windowStartMillis;
+    final long windowEndMillis;
+    final long stepMillis;
+    synchronized (this) {
+      if (samples < MIN_SAMPLES) {
+        // Without a window the fallback schedules all polls, while the statistics are still recorded.
+        return new AdaptiveBackoff(0L, 0L, 1L);
+      }
+      windowStartMillis = Math.max(0L, Math.round(meanMillis - 2d * deviationMillis));
+      windowEndMillis = Math.round(meanMillis + 2d * deviationMillis);
+      // Do not poll more often than evaluations allow.
+      stepMillis = Math.max(1L, Math.max(Math.round(2d * evaluationMillis), (windowEndMillis - windowStartMillis) / POLLS_PER_WINDOW));
+    }
+    return new AdaptiveBackoff(windowStartMillis, windowEndMillis, stepMillis);
+  }
+
+  @Override
+  public synchronized void succeeded(@Nonnegative final long elapsedMillis) {
+    if (samples == 0) {
+      meanMillis = elapsedMillis;
+      deviationMillis = elapsedMillis / 2d;
+    } else {
+      deviationMillis += DEVIATION_GAIN * (Math.abs(elapsedMillis - meanMillis) - deviationMillis);
+      meanMillis += MEAN_GAIN * (elapsedMillis - meanMillis);
+    }
+    samples++;
+  }
+
+  private synchronized void recordEvaluation(@Nonnegative final long lastEvaluationMillis) {
+    evaluationMillis += MEAN_GAIN * (lastEvaluationMillis - evaluationMillis);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("fallback", fallback)
+                      .add("samples", samples)
+                      .add("meanMillis", meanMillis)
+                      .add("deviationMillis", deviationMillis)
+                      .add("evaluationMillis", evaluationMillis)
+                      .toString();
+  }
+
+  /**
+   * Schedule skipping to the window around the expected time to success, polling densely within it
+   * and falling back afterwards.
+   */
+  private final class AdaptiveBackoff implements Backoff {
+    private final long startMillis = Clocks.getClock().nowMillis();
+    private final long windowStartMillis;
+    private final long windowEndMillis;
+    private final long stepMillis;
+    private Backoff fallbackBackoff;
+
+    private AdaptiveBackoff(final long windowStartMillis, final long windowEndMillis, final long stepMillis) {
+      this.windowStartMillis = windowStartMillis;
+      this.windowEndMillis = windowEndMillis;
+      this.stepMillis = stepMillis;
+    }
+
+    @Override
+    public long nextDelayMillis(@Nonnegative final long lastEvaluationMillis) {
+      recordEvaluation(lastEvaluationMillis);
+      final long elapsedMillis = Clocks.getClock().nowMillis() - startMillis;
+      if (elapsedMillis < windowStartMillis) {
+        return windowStartMillis - elapsedMillis;
+      }
+      if (elapsedMillis < windowEndMillis) {
+        return stepMillis;
+      }
+      if (fallbackBackoff == null) {
+        fallbackBackoff = fallback.start();
+      }
+      return fallbackBackoff.nextDelayMillis(lastEvaluationMillis);
+    }
+  }
+}
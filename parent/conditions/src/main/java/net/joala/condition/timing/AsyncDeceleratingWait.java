@@ -0,0 +1,455 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.joala.time.Clocks;
+import net.joala.time.Timeout;
+import net.joala.time.VirtualClock;
+import org.hamcrest.Matcher;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A {@link DeceleratingWait} which does not block the caller while waiting. Each evaluation is
+ * scheduled on a {@link ScheduledExecutorService} using the same decelerating intervals, deadline
+ * and {@link WaitFailStrategy} as the blocking wait. Thus many waits can be run on only a few
+ * threads.
+ * </p>
+ * <p>
+ * If configured with a {@link StateChangeSignal} a raised signal triggers the next evaluation
+ * immediately, otherwise the next evaluation happens at the deadline.
+ * </p>
+ * <p>
+ * State queries which return a {@link CompletionStage} are {@link #untilStage(Object, Function) polled}
+ * without holding a thread while the stage is pending. The next evaluation is scheduled when the stage
+ * completed.
+ * </p>
+ * <p>
+ * By default all instances share one scheduler with a small pool of daemon threads. As the state
+ * queries are evaluated on the scheduler threads, long running state queries should rather be
+ * run on a dedicated scheduler.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class AsyncDeceleratingWait extends DeceleratingWait implements AsyncWait {
+  @Nonnull
+  private final ScheduledExecutorService scheduler;
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout) {
+    this(timeout, new WaitTimeoutFailStrategy());
+  }
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout, @Nonnull final WaitFailStrategy failStrategy) {
+    this(timeout, 1d, failStrategy);
+  }
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout, @Nonnegative final double timeoutFactor, @Nonnull final WaitFailStrategy failStrategy) {
+    this(timeout, timeoutFactor, failStrategy, SharedScheduler.INSTANCE);
+  }
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout,
+                               @Nonnegative final double timeoutFactor,
+                               @Nonnull final WaitFailStrategy failStrategy,
+                               @Nonnull final BackoffPolicy backoffPolicy) {
+    this(timeout, timeoutFactor, failStrategy, backoffPolicy, SharedScheduler.INSTANCE);
+  }
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout,
+                               @Nonnegative final double timeoutFactor,
+                               @Nonnull final WaitFailStrategy failStrategy,
+                               @Nonnull final ScheduledExecutorService scheduler) {
+    this(timeout, timeoutFactor, failStrategy, DEFAULT_BACKOFF_POLICY, scheduler);
+  }
+
+  public AsyncDeceleratingWait(@Nonnull final Timeout timeout,
+                               @Nonnegative final double timeoutFactor,
+                               @Nonnull final WaitFailStrategy failStrategy,
+                               @Nonnull final BackoffPolicy backoffPolicy,
+                               @Nonnull final ScheduledExecutorService scheduler) {
+    super(timeout, timeoutFactor, failStrategy, backoffPolicy);
+    checkNotNull(scheduler, "Scheduler must not be null.");
+    this.scheduler = scheduler;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withChangeSignal(@Nullable final StateChangeSignal signal) {
+    super.withChangeSignal(signal);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    super.withEvaluationWatchdog(watchdog);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    super.withEvaluationHedging(hedging);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    super.withPollRateLimit(rateLimit);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withCancellationToken(@Nullable final CancellationToken token) {
+    super.withCancellationToken(token);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait withWaitListener(@Nullable final WaitListener listener) {
+    super.withWaitListener(listener);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public AsyncDeceleratingWait abortWhen(@Nullable final Matcher<?> matcher) {
+    super.abortWhen(matcher);
+    return this;
+  }
+
+  @Nonnull
+  @Override
+  public final <F, T> CompletableFuture<T> untilAsync(@Nonnull final F input, @Nonnull final Function<? super F, T> stateQuery) {
+    return untilAsync(null, input, stateQuery, null);
+  }
+
+  @Nonnull
+  @Override
+  public <F, T> CompletableFuture<T> untilAsync(@Nonnull final F input, @Nonnull final Function<? super F, T> stateQuery, @Nullable final Matcher<? super T> matcher) {
+    return untilAsync(null, input, stateQuery, matcher);
+  }
+
+  @Nonnull
+  @Override
+  public <F, T> CompletableFuture<T> untilAsync(@Nullable final String message,
+                                                @Nonnull final F input,
+                                                @Nonnull final Function<? super F, T> stateQuery,
+                                                @Nullable final Matcher<? super T> matcher) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      final Poll<F, T> poll = new Poll<>(startSession(message, input, stateQuery, matcher, false), null, future, getChangeSignal(), getCancellationToken());
+      poll.start();
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @Nonnull
+  @Override
+  public final <F, T> CompletableFuture<T> untilStage(@Nonnull final F input,
+                                                      @Nonnull final Function<? super F, ? extends CompletionStage<T>> stageQuery) {
+    return untilStage(null, input, stageQuery, null);
+  }
+
+  @Nonnull
+  @Override
+  public <F, T> CompletableFuture<T> untilStage(@Nonnull final F input,
+                                                @Nonnull final Function<? super F, ? extends CompletionStage<T>> stageQuery,
+                                                @Nullable final Matcher<? super T> matcher) {
+    return untilStage(null, input, stageQuery, matcher);
+  }
+
+  /**
+   * <p>
+   * Wait asynchronously until the stage returned by the given state query meets an expectation.
+   * {@link EvaluationWatchdog Watchdog} and {@link EvaluationHedging hedging} do not apply to stages;
+   * a stage which is still pending at the deadline fails the wait.
+   * </p>
+   */
+  @Nonnull
+  @Override
+  public <F, T> CompletableFuture<T> untilStage(@Nullable final String message,
+                                                @Nonnull final F input,
+                                                @Nonnull final Function<? super F, ? extends CompletionStage<T>> stageQuery,
+                                                @Nullable final Matcher<? super T> matcher) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      final StageQuery<F, T> query = new StageQuery<>(stageQuery);
+      final Poll<F, T> poll = new Poll<>(startSession(message, input, query, matcher, false), query, future, getChangeSignal(), getCancellationToken());
+      poll.start();
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("super", super.toString())
+                      .add("scheduler", scheduler)
+                      .toString();
+  }
+
+  /**
+   * One evaluation of the state query which either completes the future or reschedules itself.
+   * If a change signal is given, a raised signal triggers the next evaluation immediately.
+   * A stage query is rescheduled only when its stage completed.
+   */
+  private final class Poll<F, T> implements Runnable {
+    @Nonnull
+    private final PollingSession<F, T> session;
+    @Nullable
+    private final StageQuery<F, T> stageQuery;
+    @Nonnull
+    private final CompletableFuture<T> future;
+    @Nullable
+    private final StateChangeSignal signal;
+    @Nullable
+    private final CancellationToken token;
+    /**
+     * The next scheduled evaluation; guarded by {@code this}.
+     */
+    @Nullable
+    private ScheduledFuture<?> pending;
+    /**
+     * Whether the pending evaluation already holds a permit of the poll rate limit; guarded by {@code this}.
+     */
+    private boolean throttled;
+    /**
+     * Whether the stage of the current evaluation is still pending; guarded by {@code this}.
+     */
+    private boolean stagePending;
+    /**
+     * Start of the pending stage in nanoseconds; guarded by {@code this}.
+     */
+    private long stageStartNanos;
+    /**
+     * Fails the wait if the pending stage does not complete until the deadline; guarded by {@code this}.
+     */
+    @Nullable
+    private ScheduledFuture<?> stageTimeout;
+
+    private Poll(@Nonnull final PollingSession<F, T> session,
+                 @Nullable final StageQuery<F, T> stageQuery,
+                 @Nonnull final CompletableFuture<T> future,
+                 @Nullable final StateChangeSignal signal,
+                 @Nullable final CancellationToken token) {
+      this.session = session;
+      this.stageQuery = stageQuery;
+      this.future = future;
+      this.signal = signal;
+      this.token = token;
+    }
+
+    private void start() {
+      if (signal != null) {
+        final Runnable wakeUp = this::wakeUp;
+        signal.addListener(wakeUp);
+        future.whenComplete((result, failure) -> signal.removeListener(wakeUp));
+      }
+      if (token != null) {
+        final Runnable cancel = () -> future.completeExceptionally(new WaitCancelledException("Wait has been cancelled."));
+        token.addListener(cancel);
+        future.whenComplete((result, failure) -> token.removeListener(cancel));
+      }
+      future.whenComplete((result, failure) -> {
+        cancelPending();
+        if (failure == null) {
+          session.succeeded();
+        } else {
+          session.failed(failure);
+        }
+      });
+      synchronized (this) {
+        schedule(0L);
+      }
+    }
+
+    @Override
+    public synchronized void run() {
+      pending = null;
+      if (future.isDone()) {
+        // cancelled by the caller
+        return;
+      }
+      try {
+        session.checkCancelled();
+        if (!throttled) {
+          final long throttleMillis = session.throttleMillis();
+          if (throttleMillis > 0L) {
+            throttled = true;
+            schedule(throttleMillis);
+            return;
+          }
+        }
+        throttled = false;
+        final long version = signal == null ? 0L : signal.version();
+        if (stageQuery != null) {
+          startStage(stageQuery, version);
+        } else if (session.evaluate()) {
+          future.complete(session.getResult());
+        } else {
+          scheduleNext(version);
+        }
+      } catch (RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void startStage(@Nonnull final StageQuery<F, T> query, final long version) {
+      final long beforeEvaluationNanos = session.startEvaluation();
+      final CompletionStage<T> stage;
+      try {
+        stage = session.startStage(query);
+      } catch (IgnorableStateQueryException e) {
+        session.ignored(beforeEvaluationNanos, e);
+        scheduleNext(version);
+        return;
+      }
+      stagePending = true;
+      stageStartNanos = beforeEvaluationNanos;
+      stageTimeout = scheduler.schedule(this::stageTimedOut, session.remainingNanos(), TimeUnit.NANOSECONDS);
+      stage.whenComplete((state, failure) -> stageCompleted(version, state, failure));
+    }
+
+    private synchronized void stageCompleted(final long version, @Nullable final T state, @Nullable final Throwable failure) {
+      stagePending = false;
+      cancelStageTimeout();
+      if (future.isDone()) {
+        return;
+      }
+      final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+      try {
+        final boolean matched;
+        if (cause == null) {
+          matched = session.evaluated(stageStartNanos, state);
+        } else if (cause instanceof IgnorableStateQueryException) {
+          matched = session.ignored(stageStartNanos, (IgnorableStateQueryException) cause);
+        } else {
+          future.completeExceptionally(cause);
+          return;
+        }
+        if (matched) {
+          future.complete(session.getResult());
+        } else {
+          scheduleNext(version);
+        }
+      } catch (RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private synchronized void stageTimedOut() {
+      stageTimeout = null;
+      if (!stagePending || future.isDone()) {
+        return;
+      }
+      try {
+        // Report the pending stage as reason of the failure.
+        session.ignored(stageStartNanos, new IgnorableStateQueryException(stageQuery, "Stage did not complete until the deadline."));
+        session.failAtDeadline();
+        // The fail strategy is required to throw; ensure that the wait ends in any case.
+        future.completeExceptionally(new WaitTimeoutException("Stage did not complete until the deadline."));
+      } catch (RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void scheduleNext(final long version) {
+      final long sleepMillis = session.nextSleepMillis();
+      if (signal == null) {
+        schedule(sleepMillis);
+      } else if (signal.version() == version) {
+        schedule(session.millisUntilDeadline());
+      } else {
+        schedule(0L);
+      }
+    }
+
+    private synchronized void wakeUp() {
+      // A throttled evaluation must not be brought forward.
+      if (!throttled && pending != null && pending.cancel(false)) {
+        schedule(0L);
+      }
+    }
+
+    private synchronized void cancelPending() {
+      if (pending != null) {
+        pending.cancel(false);
+        pending = null;
+      }
+      cancelStageTimeout();
+    }
+
+    private void cancelStageTimeout() {
+      if (stageTimeout != null) {
+        stageTimeout.cancel(false);
+        stageTimeout = null;
+      }
+    }
+
+    private void schedule(@Nonnegative final long delayMillis) {
+      // If time is simulated, advance it instead of delaying the evaluation.
+      final VirtualClock virtualClock = Clocks.getVirtualClock();
+      if (virtualClock != null) {
+        virtualClock.advance(delayMillis, TimeUnit.MILLISECONDS);
+      }
+      try {
+        pending = scheduler.schedule(this, virtualClock == null ? delayMillis : 0L, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * Lazily created scheduler shared by all waits which do not provide their own.
+   */
+  private static final class SharedScheduler {
+    private static final ScheduledExecutorService INSTANCE = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+            new ThreadFactoryBuilder().setNameFormat("joala-wait-%d").setDaemon(true).build());
+
+    private SharedScheduler() {
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>
+ * A {@link Wait} which is able to wait without blocking the calling thread. Instead of sleeping
+ * between two evaluations the next evaluation is scheduled and the result is signalled through
+ * a {@link CompletableFuture}.
+ * </p>
+ * <p>
+ * If the wait fails, the future completes exceptionally with the exception raised by the
+ * configured {@link WaitFailStrategy}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public interface AsyncWait extends Wait {
+  /**
+   * <p>
+   * Wait asynchronously until the given input passes its state query without ignorable exception.
+   * </p>
+   *
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stateQuery the function to query the state of input; if implementing {@link SelfDescribing} the
+   *                   description of stateQuery will be queried on failure
+   * @param <F>        the input type
+   * @param <T>        the return type of the state query
+   * @return future which completes with the result of the successful state query
+   * @see IgnorableStateQueryException
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilAsync(@Nonnull F input,
+                                         @Nonnull Function<? super F, T> stateQuery);
+
+  /**
+   * <p>
+   * Wait asynchronously until an expectation is met.
+   * </p>
+   *
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stateQuery the function to query the state of input; if implementing {@link SelfDescribing} the
+   *                   description of stateQuery will be queried on failure
+   * @param matcher    the matcher to validate the result of the query; {@code null} to match any returned value
+   * @param <F>        the input type
+   * @param <T>        the return type of the state query
+   * @return future which completes with the result of the successful state query
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilAsync(@Nonnull F input,
+                                         @Nonnull Function<? super F, T> stateQuery,
+                                         @Nullable Matcher<? super T> matcher);
+
+  /**
+   * <p>
+   * Wait asynchronously until an expectation is met.
+   * </p>
+   *
+   * @param message    the message to print on failure; {@code null} for no additional message
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stateQuery the function to query the state of input; if implementing {@link SelfDescribing} the
+   *                   description of stateQuery will be queried on failure
+   * @param matcher    the matcher to validate the result of the query; {@code null} to match any returned value
+   * @param <F>        the input type
+   * @param <T>        the return type of the state query
+   * @return future which completes with the result of the successful state query
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilAsync(@Nullable String message,
+                                         @Nonnull F input,
+                                         @Nonnull Function<? super F, T> stateQuery,
+                                         @Nullable Matcher<? super T> matcher);
+
+  /**
+   * <p>
+   * Wait asynchronously until the stage returned by the given state query completes without ignorable
+   * exception. The next evaluation is started only after the stage of the previous evaluation completed,
+   * and no thread is held while a stage is pending.
+   * </p>
+   *
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stageQuery the function to start querying the state of input; the stage may complete
+   *                   exceptionally with {@link IgnorableStateQueryException} to request another evaluation
+   * @param <F>        the input type
+   * @param <T>        the state type
+   * @return future which completes with the state of the successful stage
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilStage(@Nonnull F input,
+                                         @Nonnull Function<? super F, ? extends CompletionStage<T>> stageQuery);
+
+  /**
+   * <p>
+   * Wait asynchronously until the stage returned by the given state query meets an expectation.
+   * </p>
+   *
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stageQuery the function to start querying the state of input; if implementing {@link SelfDescribing}
+   *                   the description of stageQuery will be queried on failure
+   * @param matcher    the matcher to validate the state; {@code null} to match any state
+   * @param <F>        the input type
+   * @param <T>        the state type
+   * @return future which completes with the state of the successful stage
+   * @see #untilStage(Object, Function)
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilStage(@Nonnull F input,
+                                         @Nonnull Function<? super F, ? extends CompletionStage<T>> stageQuery,
+                                         @Nullable Matcher<? super T> matcher);
+
+  /**
+   * <p>
+   * Wait asynchronously until the stage returned by the given state query meets an expectation.
+   * </p>
+   *
+   * @param message    the message to print on failure; {@code null} for no additional message
+   * @param input      the input to pass to the query function; if implementing {@link SelfDescribing} the
+   *                   description of input will be queried on failure
+   * @param stageQuery the function to start querying the state of input; if implementing {@link SelfDescribing}
+   *                   the description of stageQuery will be queried on failure
+   * @param matcher    the matcher to validate the state; {@code null} to match any state
+   * @param <F>        the input type
+   * @param <T>        the state type
+   * @return future which completes with the state of the successful stage
+   * @see #untilStage(Object, Function)
+   */
+  @Nonnull
+  <F, T> CompletableFuture<T> untilStage(@Nullable String message,
+                                         @Nonnull F input,
+                                         @Nonnull Function<? super F, ? extends CompletionStage<T>> stageQuery,
+                                         @Nullable Matcher<? super T> matcher);
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * <p>
+ * Policy which decides how long a {@link Wait} sleeps between two evaluations of a state query.
+ * As a policy may be shared among many waits it does not carry any state itself. Instead each
+ * wait run starts its own {@link Backoff}.
+ * </p>
+ * <p>
+ * The wait will never sleep much longer than its deadline, regardless of the delay the policy
+ * suggests. Also it will sleep at least as long as the last evaluation took.
+ * </p>
+ *
+ * @see DeceleratingBackoffPolicy
+ * @see ExponentialJitterBackoffPolicy
+ * @see CappedExponentialBackoffPolicy
+ * @see FixedIntervalBackoffPolicy
+ * @see FibonacciBackoffPolicy
+ * @see AdaptiveBackoffPolicy
+ * @since 1.3.0
+ */
+public interface BackoffPolicy {
+  /**
+   * Start a new schedule for one wait run.
+   *
+   * @return backoff schedule; not shared with any other wait run
+   */
+  @Nonnull
+  Backoff start();
+
+  /**
+   * Called when a wait run succeeded, so that policies may learn from it. Wait runs which succeed on
+   * the first evaluation do not start a backoff, thus this is a callback of the policy.
+   *
+   * @param elapsedMillis time from the start of the wait run until success
+   */
+  default void succeeded(@Nonnegative final long elapsedMillis) {
+    // nothing to learn by default
+  }
+
+  /**
+   * <p>
+   * The schedule of one single wait run.
+   * </p>
+   */
+  interface Backoff {
+    /**
+     * Calculate the delay before the next evaluation.
+     *
+     * @param lastEvaluationMillis how long the last evaluation took
+     * @return the delay in milliseconds before the next evaluation
+     */
+    @Nonnegative
+    long nextDelayMillis(@Nonnegative long lastEvaluationMillis);
+  }
+}
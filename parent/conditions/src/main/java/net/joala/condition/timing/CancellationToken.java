@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Token to cancel waits from outside, for example by executors or test frameworks aborting a test.
+ * Cancelling is cheap and wakes up all waits using this token, which then fail with a
+ * {@link WaitCancelledException}. A token cannot be reset; once cancelled it stays cancelled.
+ * </p>
+ *
+ * @see DeceleratingWait#withCancellationToken(CancellationToken)
+ * @since 1.3.0
+ */
+public final class CancellationToken {
+  private final Object lock = new Object();
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean cancelled;
+
+  /**
+   * Cancel all waits using this token. Subsequent calls have no effect.
+   */
+  public void cancel() {
+    synchronized (lock) {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      lock.notifyAll();
+    }
+    for (final Runnable listener : listeners) {
+      if (listeners.remove(listener)) {
+        listener.run();
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} if this token has been cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Fail if this token has been cancelled.
+   *
+   * @throws WaitCancelledException if this token has been cancelled
+   */
+  public void throwIfCancelled() {
+    if (cancelled) {
+      throw new WaitCancelledException("Wait has been cancelled.");
+    }
+  }
+
+  /**
+   * Wait until this token gets cancelled or the given time passed.
+   *
+   * @param timeoutMillis how long to wait at most
+   * @return {@code true} if the token got cancelled; {@code false} on timeout
+   * @throws InterruptedException if the current thread got interrupted while waiting
+   */
+  public boolean awaitCancellation(@Nonnegative final long timeoutMillis) throws InterruptedException {
+    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    synchronized (lock) {
+      long remainingNanos = deadlineNanos - System.nanoTime();
+      while (!cancelled && remainingNanos > 0L) {
+        TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+        remainingNanos = deadlineNanos - System.nanoTime();
+      }
+      return cancelled;
+    }
+  }
+
+  /**
+   * Add a listener to run once when this token gets cancelled. If the token is already cancelled the
+   * listener is run immediately.
+   *
+   * @param listener listener to add
+   */
+  public void addListener(@Nonnull final Runnable listener) {
+    checkNotNull(listener, "Listener must not be null.");
+    listeners.add(listener);
+    if (cancelled && listeners.remove(listener)) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Remove a listener which has not been run yet.
+   *
+   * @param listener listener to remove
+   */
+  public void removeListener(@Nonnull final Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("cancelled", cancelled)
+                      .toString();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Backoff policy which multiplies the delay by a constant factor after each evaluation until
+ * it reaches a maximum delay. From then on it polls at the maximum delay.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class CappedExponentialBackoffPolicy implements BackoffPolicy {
+  @Nonnegative
+  private final long initialDelayMillis;
+  private final double factor;
+  @Nonnegative
+  private final long maxDelayMillis;
+
+  /**
+   * @param initialDelayMillis the delay after the first evaluation
+   * @param factor             factor to multiply the delay with; must be at least 1
+   * @param maxDelayMillis     the maximum delay; must not be less than the initial delay
+   */
+  public CappedExponentialBackoffPolicy(@Nonnegative final long initialDelayMillis,
+                                        final double factor,
+                                        @Nonnegative final long maxDelayMillis) {
+    checkArgument(initialDelayMillis >= 0L, "Initial delay must not be negative: %s", initialDelayMillis);
+    checkArgument(factor >= 1d, "Factor must be at least 1: %s", factor);
+    checkArgument(maxDelayMillis >= initialDelayMillis, "Maximum delay %s must not be less than initial delay %s", maxDelayMillis, initialDelayMillis);
+    this.initialDelayMillis = initialDelayMillis;
+    this.factor = factor;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    return new CappedExponentialBackoff();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("initialDelayMillis", initialDelayMillis)
+                      .add("factor", factor)
+                      .add("maxDelayMillis", maxDelayMillis)
+                      .toString();
+  }
+
+  private final class CappedExponentialBackoff implements Backoff {
+    private long delay = initialDelayMillis;
+
+    @Override
+    public long nextDelayMillis(@Nonnegative final long lastEvaluationMillis) {
+      final long result = delay;
+      delay = Math.min(maxDelayMillis, Math.max(delay + 1, (long) (delay * factor)));
+      return result;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * The default backoff policy of {@link DeceleratingWait}. Starting with an initial delay each
+ * subsequent delay is increased by a small factor, but at least by one millisecond. If an
+ * evaluation took longer than the current delay, the evaluation duration becomes the new
+ * base for deceleration.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class DeceleratingBackoffPolicy implements BackoffPolicy {
+  @Nonnegative
+  private final long initialDelayMillis;
+  private final double decelerationFactor;
+
+  /**
+   * @param initialDelayMillis the delay after the first evaluation
+   * @param decelerationFactor factor to increase the delay by on each evaluation; must be at least 1
+   */
+  public DeceleratingBackoffPolicy(@Nonnegative final long initialDelayMillis, final double decelerationFactor) {
+    checkArgument(initialDelayMillis >= 0L, "Initial delay must not be negative: %s", initialDelayMillis);
+    checkArgument(decelerationFactor >= 1d, "Deceleration factor must be at least 1: %s", decelerationFactor);
+    this.initialDelayMillis = initialDelayMillis;
+    this.decelerationFactor = decelerationFactor;
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    return new DeceleratingBackoff();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("initialDelayMillis", initialDelayMillis)
+                      .add("decelerationFactor", decelerationFactor)
+                      .toString();
+  }
+
+  private final class DeceleratingBackoff implements Backoff {
+    private long delay = initialDelayMillis;
+
+    @Override
+    public long nextDelayMillis(@Nonnegative final long lastEvaluationMillis) {
+      // Leave at least as much time between two checks as the check itself took.
+      if (lastEvaluationMillis > delay) {
+        delay = lastEvaluationMillis;
+      }
+      final long result = delay;
+      // Make checks less and less frequently.
+      // Increase the wait period using the deceleration factor, but
+      // wait at least one millisecond longer next time.
+      delay = Math.max(delay + 1, (long) (delay * decelerationFactor));
+      return result;
+    }
+  }
+}
@@ -22,6 +22,8 @@ package net.joala.condition.timing;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
+import net.joala.time.Clocks;
+import net.joala.time.Deadline;
 import net.joala.time.Timeout;
 import net.joala.time.TimeoutImpl;
 import org.hamcrest.Matcher;
@@ -33,6 +35,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Thread.currentThread;
 
 /**
@@ -46,6 +49,11 @@ import static java.lang.Thread.currentThread;
  * The expected number of checks grows logarithmically with
  * the wait duration, while the wait duration remains within a constant factor of the
  * actual time until the condition holds true.
+ * </p><p>
+ * The delays between two checks can be adjusted by a {@link BackoffPolicy}.
+ * </p><p>
+ * Waiting stops with a {@link WaitCancelledException} as soon as the waiting thread gets interrupted
+ * or a configured {@link CancellationToken} gets cancelled.
  * </p>
  */
 // This class was in part derived from org.openqa.selenium.support.ui.FluentWait,
@@ -59,13 +67,33 @@ public class DeceleratingWait implements Wait {
   static final long INITIAL_DELAY = 10L;
   @VisibleForTesting
   static final double DECELERATION_FACTOR = 1.1;
-  private static final long SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS = 100L;
+  static final long SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS = 100L;
+  /**
+   * The backoff policy used if none is given explicitly.
+   */
+  public static final BackoffPolicy DEFAULT_BACKOFF_POLICY = new DeceleratingBackoffPolicy(INITIAL_DELAY, DECELERATION_FACTOR);
   @Nonnull
   private final Timeout timeout;
   @Nonnegative
   private final double timeoutFactor;
   @Nonnull
   private final WaitFailStrategy failStrategy;
+  @Nonnull
+  private final BackoffPolicy backoffPolicy;
+  @Nullable
+  private StateChangeSignal changeSignal;
+  @Nullable
+  private EvaluationWatchdog evaluationWatchdog;
+  @Nullable
+  private EvaluationHedging evaluationHedging;
+  @Nullable
+  private PollRateLimiter.Scope pollRateLimit;
+  @Nullable
+  private CancellationToken cancellationToken;
+  @Nullable
+  private WaitListener waitListener;
+  @Nullable
+  private Matcher<?> abortMatcher;
 
   public DeceleratingWait() {
     this(new TimeoutImpl(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
@@ -84,30 +112,167 @@ public class DeceleratingWait implements Wait {
   }
 
   public DeceleratingWait(@Nonnull final Timeout timeout, @Nonnegative final double timeoutFactor, @Nonnull final WaitFailStrategy failStrategy) {
+    this(timeout, timeoutFactor, failStrategy, DEFAULT_BACKOFF_POLICY);
+  }
+
+  /**
+   * @param timeout       the timeout to wait for
+   * @param timeoutFactor factor to adjust the timeout by
+   * @param failStrategy  strategy to fail with if the deadline passed
+   * @param backoffPolicy policy to determine the delays between two evaluations
+   * @since 1.3.0
+   */
+  public DeceleratingWait(@Nonnull final Timeout timeout,
+                          @Nonnegative final double timeoutFactor,
+                          @Nonnull final WaitFailStrategy failStrategy,
+                          @Nonnull final BackoffPolicy backoffPolicy) {
+    checkNotNull(backoffPolicy, "Backoff policy must not be null.");
     this.timeout = timeout;
     this.timeoutFactor = timeoutFactor;
     this.failStrategy = failStrategy;
+    this.backoffPolicy = backoffPolicy;
   }
 
   /**
-   * Return the current time in milliseconds. Overwrite for tests.
+   * Return the current time in milliseconds according to the {@link Clocks#getClock() clock in use}.
+   * Overwrite for tests.
    *
    * @return the current time
    */
   @VisibleForTesting
   protected long nowMillis() {
-    return System.currentTimeMillis();
+    return Clocks.getClock().nowMillis();
   }
 
   /**
-   * Sleep the given number of milliseconds.
+   * Sleep the given number of milliseconds using the {@link Clocks#getSleeper() sleeper in use}.
    *
    * @param millis how long to sleep
    * @throws InterruptedException if the current thread has been interrupted
    */
   @VisibleForTesting
   protected void sleep(final long millis) throws InterruptedException {
-    Thread.sleep(millis);
+    Clocks.getSleeper().sleep(millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Wake up on the given signal instead of polling. The state is evaluated again as soon as the signal
+   * is raised, otherwise the wait sleeps until the deadline.
+   *
+   * @param signal signal to wait for; {@code null} to poll with decelerating intervals
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withChangeSignal(@Nullable final StateChangeSignal signal) {
+    changeSignal = signal;
+    return this;
+  }
+
+  /**
+   * Run each evaluation under the control of the given watchdog. The budget of each evaluation is the
+   * time remaining until the deadline, so that a hanging state query cannot make the wait overrun its
+   * timeout.
+   *
+   * @param watchdog watchdog to evaluate with; {@code null} to evaluate on the waiting thread
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withEvaluationWatchdog(@Nullable final EvaluationWatchdog watchdog) {
+    evaluationWatchdog = watchdog;
+    return this;
+  }
+
+  /**
+   * Hedge slow evaluations: if an evaluation takes longer than usual, a second one starts concurrently
+   * and the first result wins. Hedging also enforces the budget of each evaluation and thus takes
+   * precedence over an {@link #withEvaluationWatchdog(EvaluationWatchdog) evaluation watchdog}.
+   *
+   * @param hedging hedging to evaluate with; {@code null} to not hedge evaluations
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withEvaluationHedging(@Nullable final EvaluationHedging hedging) {
+    evaluationHedging = hedging;
+    return this;
+  }
+
+  /**
+   * Take a permit from the given rate limit before each evaluation, delaying the evaluation if
+   * too many waits poll the same backend. Evaluations are never delayed beyond the deadline.
+   *
+   * @param rateLimit bucket of the backend polled; {@code null} to poll without limit
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withPollRateLimit(@Nullable final PollRateLimiter.Scope rateLimit) {
+    pollRateLimit = rateLimit;
+    return this;
+  }
+
+  /**
+   * Stop waiting as soon as the given token gets cancelled. The wait then fails with a
+   * {@link WaitCancelledException}, just as it does if the waiting thread gets interrupted.
+   *
+   * @param token token to cancel the wait with; {@code null} for a wait which can only be interrupted
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withCancellationToken(@Nullable final CancellationToken token) {
+    cancellationToken = token;
+    return this;
+  }
+
+  /**
+   * Inform the given listener about the progress of each wait. Listeners registered via
+   * {@link WaitListeners#addGlobalListener(WaitListener)} are informed in addition.
+   *
+   * @param listener listener to inform; {@code null} for none
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait withWaitListener(@Nullable final WaitListener listener) {
+    waitListener = listener;
+    return this;
+  }
+
+  /**
+   * Abort the wait at once if the state query returns a terminal state, in which the expected state
+   * will never be reached; for example a job which failed instead of becoming done. The wait then
+   * fails via {@link WaitFailStrategy#abort(String, Object, Object, Object, Matcher, long)}, by default
+   * with a {@link WaitAbortedException}.
+   *
+   * @param matcher matcher for terminal states; {@code null} to wait until the timeout
+   * @return self-reference
+   * @since 1.3.0
+   */
+  @Nonnull
+  public DeceleratingWait abortWhen(@Nullable final Matcher<?> matcher) {
+    abortMatcher = matcher;
+    return this;
+  }
+
+  /**
+   * Wait until the given signal changes its version or the given time passed. If time is simulated, the
+   * wait sleeps unless the signal changed already. Overwrite for tests.
+   *
+   * @param signal       the signal to wait for
+   * @param sinceVersion the version of the signal before the last evaluation
+   * @param millis       how long to wait at most
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  @VisibleForTesting
+  protected void awaitChange(@Nonnull final StateChangeSignal signal, final long sinceVersion, final long millis) throws InterruptedException {
+    if (Clocks.getVirtualClock() == null) {
+      signal.awaitChange(sinceVersion, millis);
+    } else if (signal.version() == sinceVersion) {
+      sleep(millis);
+    }
   }
 
   @Override
@@ -125,81 +290,156 @@ public class DeceleratingWait implements Wait {
                         @Nonnull final F input,
                         @Nonnull final Function<? super F, T> stateQuery,
                         @Nullable final Matcher<? super T> matcher) {
-    // Compute the deadlineTimeMillis until which we want to wait.
-    final long startTimeMillis = nowMillis();
-    final long timeoutMillis = timeout.in(TimeUnit.MILLISECONDS, timeoutFactor);
-    final long deadlineTimeMillis = startTimeMillis + timeoutMillis;
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Start waiting for:");
-      LOG.debug("  state query: .... {}", stateQuery);
-      LOG.debug("  matcher: ........ {}", matcher);
-      LOG.debug("  timeout (ms): ... {}", timeoutMillis);
-    }
-    // At first, wait 10ms between checks.
-    long delay = INITIAL_DELAY;
-    // We keep track of the last exception to be able to rethrow it.
-    IgnorableStateQueryException lastException = null;
-    T lastState = null;
-    while (true) {
-      // Measure the time that the evaluation takes.
-      final long beforeEvaluationTimeMillis = nowMillis();
+    final PollingSession<F, T> session = startSession(message, input, stateQuery, matcher, true);
+    try {
+      final T result;
       try {
-        // Evaluate and report the result unless it is null, false, or an exception.
-        final T result = stateQuery.apply(input);
-        if (matcher == null || matcher.matches(result)) {
-          return result;
-        }
-        lastState = result;
-      } catch (IgnorableStateQueryException e) {
-        // Remember the exception for rethrowing.
-        LOG.trace("Ignoring exception for now. Might rethrow later if failed with error.", e);
-        lastException = e;
+        result = poll(session);
+      } catch (RuntimeException | Error e) {
+        session.failed(e);
+        throw e;
       }
-      final long afterEvaluationTimeMillis = nowMillis();
-      // Are we past the deadlineTimeMillis?
-      if (afterEvaluationTimeMillis > deadlineTimeMillis) {
-        failAtDeadline(message, stateQuery, input, lastException, lastState, matcher, startTimeMillis);
-      }
-      delay = sleepAndRecalculateDelay(delay, deadlineTimeMillis, beforeEvaluationTimeMillis, afterEvaluationTimeMillis);
+      session.succeeded();
+      return result;
+    } finally {
+      session.release();
     }
   }
 
-  private long sleepAndRecalculateDelay(final long previousDelay, final long deadlineTimeMillis, final long beforeEvaluationTimeMillis, final long afterEvaluationTimeMillis) {
-    long newDelay = previousDelay;
-    // Leave at least as much time between two checks as the check itself took.
-    final long lastDuration = afterEvaluationTimeMillis - beforeEvaluationTimeMillis;
-    if (lastDuration > newDelay) {
-      newDelay = lastDuration;
+  /**
+   * Poll with decelerating intervals until the session's state query succeeds.
+   *
+   * @param session the session to poll
+   * @param <F>     the input type
+   * @param <T>     the return type of the state query
+   * @return the result of the successful state query
+   */
+  <F, T> T poll(@Nonnull final PollingSession<F, T> session) {
+    final StateChangeSignal signal = changeSignal;
+    final CancellationToken token = cancellationToken;
+    // A cancellation token needs a signal to wake us up, even if the state itself is not observed.
+    final StateChangeSignal wakeUpSignal = signal == null && token != null ? new StateChangeSignal() : signal;
+    final Runnable wakeUp = wakeUpSignal == null ? null : wakeUpSignal::signal;
+    if (token != null) {
+      token.addListener(wakeUp);
     }
-
-    // Wait, but not much longer than until the deadlineTimeMillis and at least a millisecond.
     try {
-      sleep(Math.max(1, Math.min(newDelay, deadlineTimeMillis + SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS - afterEvaluationTimeMillis)));
+      while (true) {
+        session.checkCancelled();
+        final long version = wakeUpSignal == null ? 0L : wakeUpSignal.version();
+        final long throttleMillis = session.throttleMillis();
+        if (throttleMillis > 0L) {
+          sleep(throttleMillis);
+        }
+        if (session.evaluate()) {
+          break;
+        }
+        final long sleepMillis = session.nextSleepMillis();
+        if (wakeUpSignal == null) {
+          sleep(sleepMillis);
+        } else {
+          awaitChange(wakeUpSignal, version, signal == null ? sleepMillis : session.millisUntilDeadline());
+        }
+      }
     } catch (InterruptedException e) {
-      LOG.error("Unexpected interruption.", e);
+      LOG.debug("Wait has been interrupted.", e);
       currentThread().interrupt();
+      throw new WaitCancelledException("Wait has been interrupted.", e);
+    } finally {
+      if (token != null) {
+        token.removeListener(wakeUp);
+      }
     }
+    return session.getResult();
+  }
 
-    // Make checks less and less frequently.
-    // Increase the wait period using the deceleration factor, but
-    // wait at least one millisecond longer next time.
-    newDelay = Math.max(newDelay + 1, (long) (newDelay * DECELERATION_FACTOR));
-    return newDelay;
-  }
-
-  private <F, T> void failAtDeadline(@Nullable final String message,
-                                     @Nonnull final Function<? super F, T> stateQuery,
-                                     @Nonnull final F input,
-                                     @Nullable final IgnorableStateQueryException lastException,
-                                     @Nullable final T lastState,
-                                     @Nonnull final Matcher<? super T> matcher,
-                                     @Nonnegative final long startTimeMillis) {
-    final long consumedMillis = nowMillis() - startTimeMillis;
-    if (lastException == null) {
-      failStrategy.fail(message, stateQuery, input, lastState, matcher, consumedMillis);
-    } else {
-      failStrategy.fail(message, stateQuery, input, lastException, consumedMillis);
+  /**
+   * Start a new wait run which computes its deadline from now on.
+   *
+   * @param message    the message to print on failure; {@code null} for no additional message
+   * @param input      the input to pass to the query function
+   * @param stateQuery the function to query the state of input
+   * @param matcher    the matcher to validate the result of the query; {@code null} to match any returned value
+   * @param reuse      whether to reuse a session of this thread which has to be released by this thread
+   * @param <F>        the input type
+   * @param <T>        the return type of the state query
+   * @return session to poll the state with
+   */
+  @Nonnull
+  <F, T> PollingSession<F, T> startSession(@Nullable final String message,
+                                           @Nonnull final F input,
+                                           @Nonnull final Function<? super F, T> stateQuery,
+                                           @Nullable final Matcher<? super T> matcher,
+                                           final boolean reuse) {
+    final long configuredMillis = timeout.in(TimeUnit.MILLISECONDS, timeoutFactor * TimeoutFactors.timeoutFactor());
+    // Do not wait longer than an outer deadline allows.
+    final long timeoutMillis = Deadline.clamp(configuredMillis, TimeUnit.MILLISECONDS);
+    final PollingSession<F, T> session = PollingSession.start(this, message, input, stateQuery, matcher, timeoutMillis, reuse);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Start waiting for:");
+      LOG.debug("  state query: .... {}", stateQuery);
+      LOG.debug("  matcher: ........ {}", matcher);
+      LOG.debug("  timeout (ms): ... {}", timeoutMillis);
+      if (timeoutMillis < configuredMillis) {
+        LOG.debug("  clamped from: ... {} (outer deadline)", configuredMillis);
+      }
     }
+    return session;
+  }
+
+  @Nonnull
+  Timeout getTimeout() {
+    return timeout;
+  }
+
+  @Nonnegative
+  double getTimeoutFactor() {
+    return timeoutFactor;
+  }
+
+  @Nonnull
+  WaitFailStrategy getFailStrategy() {
+    return failStrategy;
+  }
+
+  @Nonnull
+  BackoffPolicy getBackoffPolicy() {
+    return backoffPolicy;
+  }
+
+  @Nullable
+  StateChangeSignal getChangeSignal() {
+    return changeSignal;
+  }
+
+  @Nullable
+  EvaluationWatchdog getEvaluationWatchdog() {
+    return evaluationWatchdog;
+  }
+
+  @Nullable
+  EvaluationHedging getEvaluationHedging() {
+    return evaluationHedging;
+  }
+
+  @Nullable
+  PollRateLimiter.Scope getPollRateLimit() {
+    return pollRateLimit;
+  }
+
+  @Nullable
+  CancellationToken getCancellationToken() {
+    return cancellationToken;
+  }
+
+  @Nullable
+  WaitListener getWaitListener() {
+    return waitListener;
+  }
+
+  @Nullable
+  Matcher<?> getAbortMatcher() {
+    return abortMatcher;
   }
 
   @Override
@@ -208,6 +448,14 @@ public class DeceleratingWait implements Wait {
                       .add("timeout", timeout)
                       .add("timeoutFactor", timeoutFactor)
                       .add("failStrategy", failStrategy)
+                      .add("backoffPolicy", backoffPolicy)
+                      .add("changeSignal", changeSignal)
+                      .add("evaluationWatchdog", evaluationWatchdog)
+                      .add("evaluationHedging", evaluationHedging)
+                      .add("pollRateLimit", pollRateLimit)
+                      .add("cancellationToken", cancellationToken)
+                      .add("waitListener", waitListener)
+                      .add("abortMatcher", abortMatcher)
                       .toString();
   }
 }
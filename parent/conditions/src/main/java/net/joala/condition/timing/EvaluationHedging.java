@@ -0,0 +1,302 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.joala.time.Deadline;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * <p>
+ * Runs state queries on an executor and starts a second, concurrent evaluation if the first one
+ * has not returned after a percentile of the latencies observed so far. The first successful result
+ * wins and the other evaluation is cancelled. This cuts the tail latency of state queries which
+ * are usually fast but sometimes stall, for example a status endpoint with a slow p99.
+ * </p>
+ * <p>
+ * Hedging starts once {@value #MIN_SAMPLES} evaluations have been observed. The extra load is capped:
+ * hedged evaluations never exceed the given ratio of all evaluations. Percentiles are tracked with
+ * a histogram of powers of two, so the hedge delay is at most twice the exact percentile.
+ * </p>
+ * <p>
+ * Like {@link EvaluationWatchdog} the state query must return within its budget, otherwise it is
+ * reported as {@link IgnorableStateQueryException}. Observed latencies are shared by all waits using
+ * the same instance, so use one instance per kind of state query.
+ * </p>
+ *
+ * @see DeceleratingWait#withEvaluationHedging(EvaluationHedging)
+ * @since 1.3.0
+ */
+public final class EvaluationHedging {
+  /**
+   * Number of evaluations to observe before hedging.
+   */
+  static final int MIN_SAMPLES = 10;
+  private static final double DEFAULT_PERCENTILE = 95d;
+  private static final double DEFAULT_MAX_EXTRA_LOAD = 0.1d;
+
+  private final double percentile;
+  private final double maxExtraLoad;
+  @Nonnull
+  private final ExecutorService executor;
+  private final boolean interruptLosers;
+  private final LatencyHistogram latencyNanos = new LatencyHistogram();
+  private final AtomicLong samples = new AtomicLong();
+  private final AtomicLong evaluations = new AtomicLong();
+  private final AtomicLong hedgedEvaluations = new AtomicLong();
+
+  /**
+   * Hedging evaluations exceeding the 95th percentile, with at most 10% extra evaluations.
+   */
+  public EvaluationHedging() {
+    this(DEFAULT_PERCENTILE, DEFAULT_MAX_EXTRA_LOAD);
+  }
+
+  /**
+   * Hedging on a shared pool of daemon threads, interrupting evaluations which lost the race.
+   *
+   * @param percentile   percentile of observed latencies after which to start a second evaluation; between 0 and 100
+   * @param maxExtraLoad maximum ratio of hedged evaluations to all evaluations; 0 disables hedging
+   */
+  public EvaluationHedging(final double percentile, @Nonnegative final double maxExtraLoad) {
+    this(percentile, maxExtraLoad, SharedExecutor.INSTANCE, true);
+  }
+
+  /**
+   * @param percentile      percentile of observed latencies after which to start a second evaluation; between 0 and 100
+   * @param maxExtraLoad    maximum ratio of hedged evaluations to all evaluations; 0 disables hedging
+   * @param executor        executor to run the state queries on
+   * @param interruptLosers whether to interrupt evaluations which lost the race or exceeded their budget
+   */
+  public EvaluationHedging(final double percentile,
+                           @Nonnegative final double maxExtraLoad,
+                           @Nonnull final ExecutorService executor,
+                           final boolean interruptLosers) {
+    checkArgument(percentile > 0d && percentile <= 100d, "Percentile must be within (0, 100] but was %s.", percentile);
+    checkArgument(maxExtraLoad >= 0d && maxExtraLoad <= 1d, "Maximum extra load must be within [0, 1] but was %s.", maxExtraLoad);
+    checkNotNull(executor, "Executor must not be null.");
+    this.percentile = percentile;
+    this.maxExtraLoad = maxExtraLoad;
+    this.executor = executor;
+    this.interruptLosers = interruptLosers;
+  }
+
+  /**
+   * Evaluate the state query within the given budget, hedging it if it is slow.
+   *
+   * @param input        the input to pass to the query function
+   * @param stateQuery   the function to query the state of input
+   * @param budgetMillis how long the state query may take at most
+   * @param <F>          the input type
+   * @param <T>          the return type of the state query
+   * @return the first successful result of the state query
+   * @throws IgnorableStateQueryException if no evaluation returned in time or the state query threw this exception itself
+   * @throws WaitCancelledException       if the waiting thread got interrupted
+   */
+  @Nullable
+  public <F, T> T evaluate(@Nonnull final F input,
+                           @Nonnull final Function<? super F, T> stateQuery,
+                           @Nonnegative final long budgetMillis) {
+    final long startNanos = System.nanoTime();
+    final long budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    final Race<F, T> race = new Race<>(input, stateQuery, Deadline.current());
+    evaluations.incrementAndGet();
+    final Future<?> primary = race.start(executor);
+    Future<?> hedge = null;
+    try {
+      final long hedgeDelayNanos = hedgeDelayNanos();
+      if (hedgeDelayNanos >= 0L && hedgeDelayNanos < budgetNanos) {
+        try {
+          return race.winner.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ignored) {
+          if (tryAcquireHedge()) {
+            hedge = race.start(executor);
+          }
+        }
+      }
+      return race.winner.get(Math.max(0L, budgetNanos - (System.nanoTime() - startNanos)), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new IgnorableStateQueryException(stateQuery, format("Evaluation did not complete within %d ms.", budgetMillis), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WaitCancelledException("Wait has been interrupted.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unexpected checked exception from state query.", cause);
+    } finally {
+      primary.cancel(interruptLosers);
+      if (hedge != null) {
+        hedge.cancel(interruptLosers);
+      }
+    }
+  }
+
+  /**
+   * Number of evaluations requested so far, not counting hedged ones.
+   *
+   * @return number of evaluations
+   */
+  @Nonnegative
+  public long getEvaluations() {
+    return evaluations.get();
+  }
+
+  /**
+   * Number of additional evaluations started because the first one was slow.
+   *
+   * @return number of hedged evaluations
+   */
+  @Nonnegative
+  public long getHedgedEvaluations() {
+    return hedgedEvaluations.get();
+  }
+
+  /**
+   * How long to wait for the first evaluation before starting a second one.
+   *
+   * @return nanoseconds; negative if not enough latencies have been observed yet
+   */
+  private long hedgeDelayNanos() {
+    if (maxExtraLoad <= 0d || samples.get() < MIN_SAMPLES) {
+      return -1L;
+    }
+    return latencyNanos.percentile(percentile);
+  }
+
+  private boolean tryAcquireHedge() {
+    long hedged;
+    do {
+      hedged = hedgedEvaluations.get();
+      if (hedged + 1L > maxExtraLoad * evaluations.get()) {
+        return false;
+      }
+    } while (!hedgedEvaluations.compareAndSet(hedged, hedged + 1L));
+    return true;
+  }
+
+  private void recordLatency(final long nanos) {
+    latencyNanos.record(nanos);
+    samples.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("percentile", percentile)
+                      .add("maxExtraLoad", maxExtraLoad)
+                      .add("executor", executor)
+                      .add("interruptLosers", interruptLosers)
+                      .add("latencyNanos", latencyNanos)
+                      .add("samples", samples)
+                      .add("evaluations", evaluations)
+                      .add("hedgedEvaluations", hedgedEvaluations)
+                      .toString();
+  }
+
+  /**
+   * Concurrent evaluations of one state query. The first successful evaluation completes the race;
+   * if all evaluations fail, the race fails with the first failure.
+   */
+  private final class Race<F, T> {
+    private final CompletableFuture<T> winner = new CompletableFuture<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final F input;
+    private final Function<? super F, T> stateQuery;
+    @Nullable
+    private final Deadline deadline;
+
+    private Race(final F input, final Function<? super F, T> stateQuery, @Nullable final Deadline deadline) {
+      this.input = input;
+      this.stateQuery = stateQuery;
+      this.deadline = deadline;
+    }
+
+    private Future<?> start(final ExecutorService executorService) {
+      running.incrementAndGet();
+      return executorService.submit(this::evaluate);
+    }
+
+    private void evaluate() {
+      final long startNanos = System.nanoTime();
+      final Deadline outerDeadline = Deadline.swapCurrent(deadline);
+      try {
+        final T result = stateQuery.apply(input);
+        recordLatency(startNanos);
+        winner.complete(result);
+      } catch (RuntimeException | Error e) {
+        recordLatency(startNanos);
+        firstFailure.compareAndSet(null, e);
+        if (running.decrementAndGet() == 0) {
+          winner.completeExceptionally(firstFailure.get());
+        }
+      } finally {
+        Deadline.restoreCurrent(outerDeadline);
+      }
+    }
+
+    /**
+     * Losers got cancelled or are slower than the winner anyway; their latency would only skew
+     * the observed distribution.
+     */
+    private void recordLatency(final long startNanos) {
+      if (!winner.isDone()) {
+        EvaluationHedging.this.recordLatency(System.nanoTime() - startNanos);
+      }
+    }
+  }
+
+  /**
+   * Lazily created pool of daemon threads for state queries. It grows with the number of slow
+   * evaluations, as those must not block other waits.
+   */
+  private static final class SharedExecutor {
+    private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("joala-hedging-%d").build());
+
+    private SharedExecutor() {
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.joala.time.Deadline;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * <p>
+ * Runs state queries on an executor and gives up on them if they do not return within their
+ * budget. Without a watchdog a wait cannot enforce its deadline while a state query hangs,
+ * for example on a socket read or a lock.
+ * </p>
+ * <p>
+ * A state query which exceeds its budget is cancelled and reported as
+ * {@link IgnorableStateQueryException}. By default the evaluating thread gets interrupted;
+ * state queries which ignore interrupts will keep their thread busy until they return.
+ * </p>
+ *
+ * @see DeceleratingWait#withEvaluationWatchdog(EvaluationWatchdog)
+ * @since 1.3.0
+ */
+public final class EvaluationWatchdog {
+  @Nonnull
+  private final ExecutorService executor;
+  private final boolean interruptOnTimeout;
+
+  /**
+   * Watchdog running state queries on a shared pool of daemon threads and interrupting them on timeout.
+   */
+  public EvaluationWatchdog() {
+    this(SharedExecutor.INSTANCE, true);
+  }
+
+  /**
+   * @param executor           executor to run the state queries on
+   * @param interruptOnTimeout whether to interrupt state queries which exceed their budget
+   */
+  public EvaluationWatchdog(@Nonnull final ExecutorService executor, final boolean interruptOnTimeout) {
+    checkNotNull(executor, "Executor must not be null.");
+    this.executor = executor;
+    this.interruptOnTimeout = interruptOnTimeout;
+  }
+
+  /**
+   * Evaluate the state query within the given budget.
+   *
+   * @param input        the input to pass to the query function
+   * @param stateQuery   the function to query the state of input
+   * @param budgetMillis how long the state query may take at most
+   * @param <F>          the input type
+   * @param <T>          the return type of the state query
+   * @return the result of the state query
+   * @throws IgnorableStateQueryException if the state query did not return in time or threw this exception itself
+   * @throws WaitCancelledException       if the waiting thread got interrupted
+   */
+  @Nullable
+  public <F, T> T evaluate(@Nonnull final F input,
+                           @Nonnull final Function<? super F, T> stateQuery,
+                           @Nonnegative final long budgetMillis) {
+    final Deadline deadline = Deadline.current();
+    final Future<T> future = executor.submit(() -> {
+      final Deadline outerDeadline = Deadline.swapCurrent(deadline);
+      try {
+        return stateQuery.apply(input);
+      } finally {
+        Deadline.restoreCurrent(outerDeadline);
+      }
+    });
+    try {
+      return future.get(budgetMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(interruptOnTimeout);
+      throw new IgnorableStateQueryException(stateQuery, format("Evaluation did not complete within %d ms.", budgetMillis), e);
+    } catch (InterruptedException e) {
+      future.cancel(interruptOnTimeout);
+      Thread.currentThread().interrupt();
+      throw new WaitCancelledException("Wait has been interrupted.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unexpected checked exception from state query.", cause);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("executor", executor)
+                      .add("interruptOnTimeout", interruptOnTimeout)
+                      .toString();
+  }
+
+  /**
+   * Lazily created pool of daemon threads for state queries. It grows with the number of hung
+   * evaluations, as those must not block other waits.
+   */
+  private static final class SharedExecutor {
+    private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("joala-evaluation-%d").build());
+
+    private SharedExecutor() {
+    }
+  }
+}
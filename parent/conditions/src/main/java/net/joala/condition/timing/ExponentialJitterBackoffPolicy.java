@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Backoff policy which grows the delay exponentially and randomly varies each delay by a given
+ * fraction. The randomization prevents many waits started at the same time from polling in
+ * lockstep.
+ * </p>
+ * <p>
+ * A jitter of {@code 0.5} for example will choose each delay randomly between 50% and 150% of
+ * the exponentially growing base delay.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class ExponentialJitterBackoffPolicy implements BackoffPolicy {
+  @Nonnegative
+  private final long initialDelayMillis;
+  private final double factor;
+  private final double jitter;
+
+  /**
+   * @param initialDelayMillis the base delay after the first evaluation
+   * @param factor             factor to multiply the base delay with; must be at least 1
+   * @param jitter             fraction of the base delay to vary each delay by; between 0 and 1
+   */
+  public ExponentialJitterBackoffPolicy(@Nonnegative final long initialDelayMillis,
+                                        final double factor,
+                                        final double jitter) {
+    checkArgument(initialDelayMillis >= 0L, "Initial delay must not be negative: %s", initialDelayMillis);
+    checkArgument(factor >= 1d, "Factor must be at least 1: %s", factor);
+    checkArgument(jitter >= 0d && jitter <= 1d, "Jitter must be between 0 and 1: %s", jitter);
+    this.initialDelayMillis = initialDelayMillis;
+    this.factor = factor;
+    this.jitter = jitter;
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    return new ExponentialJitterBackoff();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("initialDelayMillis", initialDelayMillis)
+                      .add("factor", factor)
+                      .add("jitter", jitter)
+                      .toString();
+  }
+
+  private final class ExponentialJitterBackoff implements Backoff {
+    private double delay = initialDelayMillis;
+
+    @Override
+    public long nextDelayMillis(@Nonnegative final long lastEvaluationMillis) {
+      final double variation = 1d + jitter * (2d * ThreadLocalRandom.current().nextDouble() - 1d);
+      final long result = Math.round(delay * variation);
+      delay = Math.max(delay + 1d, delay * factor);
+      return result;
+    }
+  }
+}
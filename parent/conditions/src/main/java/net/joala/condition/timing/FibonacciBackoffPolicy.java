@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Backoff policy which grows the delays along the Fibonacci sequence, i.&nbsp;e. 1, 1, 2, 3, 5, 8, ...
+ * times the initial delay, up to a maximum delay. It decelerates slower than doubling while
+ * still reaching long delays quickly.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class FibonacciBackoffPolicy implements BackoffPolicy {
+  @Nonnegative
+  private final long initialDelayMillis;
+  @Nonnegative
+  private final long maxDelayMillis;
+
+  /**
+   * @param initialDelayMillis the delay after the first evaluation; must be positive
+   * @param maxDelayMillis     the maximum delay; must not be less than the initial delay
+   */
+  public FibonacciBackoffPolicy(@Nonnegative final long initialDelayMillis, @Nonnegative final long maxDelayMillis) {
+    checkArgument(initialDelayMillis > 0L, "Initial delay must be positive: %s", initialDelayMillis);
+    checkArgument(maxDelayMillis >= initialDelayMillis, "Maximum delay %s must not be less than initial delay %s", maxDelayMillis, initialDelayMillis);
+    this.initialDelayMillis = initialDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    return new FibonacciBackoff();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("initialDelayMillis", initialDelayMillis)
+                      .add("maxDelayMillis", maxDelayMillis)
+                      .toString();
+  }
+
+  private final class FibonacciBackoff implements Backoff {
+    private long previous;
+    private long current = initialDelayMillis;
+
+    @Override
+    public long nextDelayMillis(@Nonnegative final long lastEvaluationMillis) {
+      final long result = current;
+      final long next = Math.min(maxDelayMillis, previous + current);
+      previous = current;
+      current = next;
+      return result;
+    }
+  }
+}
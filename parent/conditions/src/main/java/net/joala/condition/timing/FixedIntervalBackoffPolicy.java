@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Backoff policy which always waits the same interval between two evaluations.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class FixedIntervalBackoffPolicy implements BackoffPolicy {
+  @Nonnegative
+  private final long intervalMillis;
+
+  /**
+   * @param intervalMillis the delay between two evaluations
+   */
+  public FixedIntervalBackoffPolicy(@Nonnegative final long intervalMillis) {
+    checkArgument(intervalMillis >= 0L, "Interval must not be negative: %s", intervalMillis);
+    this.intervalMillis = intervalMillis;
+  }
+
+  @Nonnull
+  @Override
+  public Backoff start() {
+    return lastEvaluationMillis -> intervalMillis;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("intervalMillis", intervalMillis)
+                      .toString();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Low-overhead histogram of durations. Values are counted in buckets of powers of two, so that
+ * percentiles are exact up to a factor of two.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+final class LatencyHistogram {
+  private static final int BUCKETS = Long.SIZE + 1;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  void record(final long value) {
+    counts.incrementAndGet(bucketOf(Math.max(0L, value)));
+  }
+
+  /**
+   * Upper bound of the given percentile.
+   *
+   * @param percentile percentile between 0 and 100
+   * @return upper bound of the values within the percentile; 0 if nothing has been recorded
+   */
+  @Nonnegative
+  long percentile(final double percentile) {
+    long total = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    final long rank = (long) Math.ceil(total * percentile / 100d);
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank && seen > 0L) {
+        return upperBoundOf(i);
+      }
+    }
+    return 0L;
+  }
+
+  private static int bucketOf(@Nonnegative final long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  private static long upperBoundOf(final int bucket) {
+    return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1L;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("counts", counts)
+                      .toString();
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import net.joala.time.Clocks;
+import net.joala.time.Timeout;
+import org.hamcrest.Matcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * A wait for latency sensitive tests which detects state changes within microseconds rather than
+ * milliseconds. The wait passes three phases:
+ * </p>
+ * <ol>
+ * <li><strong>spin:</strong> re-evaluate the state query in a busy loop, hinting the processor
+ * that it is spinning,</li>
+ * <li><strong>park:</strong> re-evaluate after parking the thread for some microseconds, doubling
+ * the park time after each evaluation,</li>
+ * <li><strong>decelerate:</strong> fall back to the {@link BackoffPolicy} just as
+ * {@link DeceleratingWait} does.</li>
+ * </ol>
+ * <p>
+ * All times are measured with the monotonic {@link net.joala.time.Clock#nowNanos()}, so that wall-clock
+ * adjustments do not affect the deadline. If time is simulated, the spin phase is skipped.
+ * </p>
+ * <p>
+ * As spinning burns CPU the spin phase should be kept short. Spinning is only sensible if the
+ * state query is cheap.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class LowLatencyWait extends DeceleratingWait {
+  private static final Logger LOG = LoggerFactory.getLogger(LowLatencyWait.class);
+
+  /**
+   * Default duration of the spin phase.
+   */
+  public static final long DEFAULT_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+  /**
+   * Default time after start of the wait when to leave the park phase.
+   */
+  public static final long DEFAULT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+  private static final long INITIAL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10L);
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+  /**
+   * {@code Thread.onSpinWait()} which is only available since Java 9; {@code null} if not available.
+   */
+  @Nullable
+  private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+  @Nonnegative
+  private final long spinNanos;
+  @Nonnegative
+  private final long parkNanos;
+
+  public LowLatencyWait(@Nonnull final Timeout timeout) {
+    this(timeout, 1d, new WaitTimeoutFailStrategy());
+  }
+
+  public LowLatencyWait(@Nonnull final Timeout timeout, @Nonnegative final double timeoutFactor, @Nonnull final WaitFailStrategy failStrategy) {
+    this(timeout, timeoutFactor, failStrategy, DEFAULT_BACKOFF_POLICY);
+  }
+
+  public LowLatencyWait(@Nonnull final Timeout timeout,
+                        @Nonnegative final double timeoutFactor,
+                        @Nonnull final WaitFailStrategy failStrategy,
+                        @Nonnull final BackoffPolicy backoffPolicy) {
+    this(timeout, timeoutFactor, failStrategy, backoffPolicy, DEFAULT_SPIN_NANOS, DEFAULT_PARK_NANOS);
+  }
+
+  /**
+   * @param timeout       the timeout to wait for
+   * @param timeoutFactor factor to adjust the timeout by
+   * @param failStrategy  strategy to fail with if the deadline passed
+   * @param backoffPolicy policy to determine the delays in the decelerating phase
+   * @param spinNanos     how long to spin after the start of the wait
+   * @param parkNanos     time after start of the wait until when to park between evaluations; should be greater
+   *                      than {@code spinNanos}
+   */
+  public LowLatencyWait(@Nonnull final Timeout timeout,
+                        @Nonnegative final double timeoutFactor,
+                        @Nonnull final WaitFailStrategy failStrategy,
+                        @Nonnull final BackoffPolicy backoffPolicy,
+                        @Nonnegative final long spinNanos,
+                        @Nonnegative final long parkNanos) {
+    super(timeout, timeoutFactor, failStrategy, backoffPolicy);
+    checkArgument(spinNanos >= 0L, "Spin duration must not be negative: %s", spinNanos);
+    checkArgument(parkNanos >= 0L, "Park duration must not be negative: %s", parkNanos);
+    this.spinNanos = spinNanos;
+    this.parkNanos = parkNanos;
+  }
+
+  /**
+   * Monotonic time in milliseconds, which is not affected by changes of the system clock.
+   *
+   * @return monotonic time
+   */
+  @Override
+  protected long nowMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(nowNanos());
+  }
+
+  /**
+   * Monotonic time in nanoseconds. Overwrite for tests.
+   *
+   * @return monotonic time
+   */
+  protected long nowNanos() {
+    return Clocks.getClock().nowNanos();
+  }
+
+  /**
+   * Park the current thread for the given number of nanoseconds using the
+   * {@link Clocks#getSleeper() sleeper in use}. An interrupt is kept for the next check for cancellation.
+   *
+   * @param nanos how long to park
+   */
+  protected void park(@Nonnegative final long nanos) {
+    try {
+      Clocks.getSleeper().sleep(nanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      LOG.trace("Interrupted while parking.", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public <F, T> T until(@Nullable final String message,
+                        @Nonnull final F input,
+                        @Nonnull final Function<? super F, T> stateQuery,
+                        @Nullable final Matcher<? super T> matcher) {
+    final long startNanos = nowNanos();
+    final PollingSession<F, T> session = startSession(message, input, stateQuery, matcher, true);
+    try {
+      // Spinning and parking would defeat a poll rate limit, thus only poll then.
+      final long budgetNanos = getPollRateLimit() == null ? session.remainingNanos() : 0L;
+      final T result;
+      try {
+        result = spinAndPark(session, startNanos, Math.min(budgetNanos, parkNanos)) ? session.getResult() : poll(session);
+      } catch (RuntimeException | Error e) {
+        session.failed(e);
+        throw e;
+      }
+      session.succeeded();
+      return result;
+    } finally {
+      session.release();
+    }
+  }
+
+  private boolean spinAndPark(@Nonnull final PollingSession<?, ?> session,
+                              @Nonnegative final long startNanos,
+                              @Nonnegative final long phaseNanos) {
+    // Spinning does not advance simulated time, thus only park then.
+    final long spinEndNanos = Clocks.getVirtualClock() == null ? startNanos + Math.min(spinNanos, phaseNanos) : startNanos;
+    final long parkEndNanos = startNanos + phaseNanos;
+    while (nowNanos() - spinEndNanos < 0L) {
+      session.checkCancelled();
+      if (session.evaluate()) {
+        return true;
+      }
+      onSpinWait();
+    }
+    long park = INITIAL_PARK_NANOS;
+    while (nowNanos() - parkEndNanos < 0L) {
+      session.checkCancelled();
+      if (session.evaluate()) {
+        return true;
+      }
+      park(park);
+      park = Math.min(MAX_PARK_NANOS, park * 2L);
+    }
+    return false;
+  }
+
+  private static void onSpinWait() {
+    if (ON_SPIN_WAIT != null) {
+      try {
+        ON_SPIN_WAIT.invokeExact();
+      } catch (Throwable e) { // NOSONAR: invokeExact declares Throwable
+        throw new IllegalStateException("Failed to signal spin wait.", e);
+      }
+    }
+  }
+
+  @Nullable
+  private static MethodHandle findOnSpinWait() {
+    try {
+      return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      LOG.debug("Thread.onSpinWait() not available. Will spin without hint.", e);
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("super", super.toString())
+                      .add("spinNanos", spinNanos)
+                      .add("parkNanos", parkNanos)
+                      .toString();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Derives the timeout factor from the machine the tests run on, so that overloaded build agents get
+ * longer timeouts while fast developer machines keep failing fast. The factor is the largest of:
+ * </p>
+ * <ul>
+ * <li>the shortage of available processors compared to {@value #REFERENCE_PROCESSORS} processors,</li>
+ * <li>the system load average per available processor and</li>
+ * <li>the slowdown of a short calibration run compared to a reference duration.</li>
+ * </ul>
+ * <p>
+ * The factor is never less than {@code 1} and never more than {@value #MAX_FACTOR}. It is determined
+ * once, on first use.
+ * </p>
+ *
+ * @see TimeoutFactors
+ * @since 1.3.0
+ */
+public final class MachineLoadTimeoutFactorProvider implements TimeoutFactorProvider {
+  /**
+   * Number of processors a machine is expected to have at least.
+   */
+  public static final int REFERENCE_PROCESSORS = 2;
+  /**
+   * The upper limit of the factor.
+   */
+  public static final double MAX_FACTOR = 5d;
+
+  private static final Logger LOG = LoggerFactory.getLogger(MachineLoadTimeoutFactorProvider.class);
+  private static final int CALIBRATION_ITERATIONS = 250_000;
+  private static final int CALIBRATION_RUNS = 10;
+  /**
+   * Duration of one calibration run on an idle, not too recent developer machine.
+   */
+  private static final long REFERENCE_CALIBRATION_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  private final Supplier<Double> factor = Suppliers.memoize(MachineLoadTimeoutFactorProvider::measureFactor);
+
+  @Override
+  public double timeoutFactor() {
+    return factor.get();
+  }
+
+  private static double measureFactor() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    final double loadAverage = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    final long calibrationNanos = calibrate();
+    final double result = factorFor(processors, loadAverage, calibrationNanos);
+    LOG.info("Timeout factor {} derived from {} processors, load average {} and calibration run of {} µs.",
+            result, processors, loadAverage, TimeUnit.NANOSECONDS.toMicros(calibrationNanos));
+    return result;
+  }
+
+  /**
+   * Calculate the factor from the given measurements.
+   *
+   * @param processors       available processors
+   * @param loadAverage      system load average; negative if not available
+   * @param calibrationNanos duration of the calibration run
+   * @return factor
+   */
+  @VisibleForTesting
+  @Nonnegative
+  static double factorFor(@Nonnegative final int processors, final double loadAverage, @Nonnegative final long calibrationNanos) {
+    final int availableProcessors = Math.max(1, processors);
+    final double processorFactor = (double) REFERENCE_PROCESSORS / availableProcessors;
+    final double loadFactor = loadAverage < 0d ? 1d : loadAverage / availableProcessors;
+    final double calibrationFactor = (double) calibrationNanos / REFERENCE_CALIBRATION_NANOS;
+    final double result = Math.max(1d, Math.max(processorFactor, Math.max(loadFactor, calibrationFactor)));
+    return Math.min(MAX_FACTOR, result);
+  }
+
+  /**
+   * Run a short CPU bound task several times.
+   *
+   * @return the duration of the fastest run
+   */
+  private static long calibrate() {
+    long fastestNanos = Long.MAX_VALUE;
+    long sink = 0L;
+    for (int run = 0; run < CALIBRATION_RUNS; run++) {
+      final long startNanos = System.nanoTime();
+      sink += xorShift(CALIBRATION_ITERATIONS);
+      fastestNanos = Math.min(fastestNanos, System.nanoTime() - startNanos);
+    }
+    // Use the result, so that the calibration cannot be optimized away.
+    LOG.trace("Calibration result: {}", sink);
+    return fastestNanos;
+  }
+
+  private static long xorShift(final int iterations) {
+    long x = 0x9E3779B97F4A7C15L;
+    for (int i = 0; i < iterations; i++) {
+      x ^= x << 13;
+      x ^= x >>> 7;
+      x ^= x << 17;
+    }
+    return x;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("factor", factor)
+                      .toString();
+  }
+}
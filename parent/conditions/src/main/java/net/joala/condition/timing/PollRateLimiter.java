@@ -0,0 +1,205 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+import net.joala.time.Clocks;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Token bucket limiting how often waits poll the system under test. With many parallel tests,
+ * hundreds of waits polling at their initial delay can overwhelm a shared backend; a limiter
+ * spreads their evaluations so that the backend sees at most the configured rate.
+ * </p>
+ * <p>
+ * Each backend key gets its own bucket, so that waits for different backends do not throttle
+ * each other. Waits take a permit before each evaluation and delay the evaluation if the bucket is
+ * empty. A wait whose deadline passes before the next permit does not take it and fails instead of
+ * exceeding the rate. Each {@link Scope} counts how often and how long waits have been throttled.
+ * </p>
+ *
+ * @see DeceleratingWait#withPollRateLimit(PollRateLimiter.Scope)
+ * @since 1.3.0
+ */
+public final class PollRateLimiter {
+  /**
+   * Returned by {@link Scope#reserve(long)} if no permit is available within the allowed delay.
+   */
+  static final long NO_PERMIT = -1L;
+
+  private final double permitsPerNano;
+  private final double burst;
+  private final ConcurrentMap<String, Scope> scopes = new ConcurrentHashMap<>();
+
+  /**
+   * @param pollsPerSecond sustained number of evaluations per second and backend key
+   * @param burst          number of evaluations which may be done at once after a quiet period; at least one
+   */
+  public PollRateLimiter(final double pollsPerSecond, @Nonnegative final int burst) {
+    checkArgument(pollsPerSecond > 0d && !Double.isInfinite(pollsPerSecond), "Polls per second must be positive but was %s.", pollsPerSecond);
+    checkArgument(burst >= 1, "Burst must be at least one but was %s.", burst);
+    permitsPerNano = pollsPerSecond / 1_000_000_000d;
+    this.burst = burst;
+  }
+
+  /**
+   * The bucket of the given backend key, created on first access.
+   *
+   * @param key the key of the backend to limit polls to
+   * @return bucket of the key
+   */
+  @Nonnull
+  public Scope scope(@Nonnull final String key) {
+    checkNotNull(key, "Key must not be null.");
+    return scopes.computeIfAbsent(key, Scope::new);
+  }
+
+  /**
+   * Number of evaluations delayed for all backend keys.
+   *
+   * @return number of throttled evaluations
+   */
+  @Nonnegative
+  public long getThrottledPolls() {
+    long polls = 0L;
+    for (final Scope scope : scopes.values()) {
+      polls += scope.getThrottledPolls();
+    }
+    return polls;
+  }
+
+  /**
+   * Total time evaluations have been delayed for all backend keys.
+   *
+   * @return throttled nanoseconds
+   */
+  @Nonnegative
+  public long getThrottledNanos() {
+    long nanos = 0L;
+    for (final Scope scope : scopes.values()) {
+      nanos += scope.getThrottledNanos();
+    }
+    return nanos;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("permitsPerNano", permitsPerNano)
+                      .add("burst", burst)
+                      .add("scopes", scopes)
+                      .toString();
+  }
+
+  /**
+   * <p>
+   * The token bucket of one backend key.
+   * </p>
+   *
+   * @since 1.3.0
+   */
+  public final class Scope {
+    @Nonnull
+    private final String key;
+    private final AtomicLong throttledPolls = new AtomicLong();
+    private final AtomicLong throttledNanos = new AtomicLong();
+    /**
+     * Available permits; negative if permits have been reserved in advance. Guarded by {@code this}.
+     */
+    private double permits;
+    private long refilledNanos;
+
+    private Scope(@Nonnull final String key) {
+      this.key = key;
+      permits = burst;
+      refilledNanos = Clocks.getClock().nowNanos();
+    }
+
+    /**
+     * Take a permit for one evaluation. If the permit is not available within the given delay, it is
+     * not taken, so that later evaluations are not punished for it.
+     *
+     * @param maxDelayNanos how long the evaluation may be delayed at most
+     * @return nanoseconds to delay the evaluation; 0 if a permit is available right now;
+     * {@link #NO_PERMIT} if no permit is available within the given delay
+     */
+    long reserve(@Nonnegative final long maxDelayNanos) {
+      final long delayNanos;
+      synchronized (this) {
+        final long nowNanos = Clocks.getClock().nowNanos();
+        permits = Math.min(burst, permits + (nowNanos - refilledNanos) * permitsPerNano);
+        refilledNanos = nowNanos;
+        delayNanos = permits >= 1d ? 0L : (long) Math.ceil((1d - permits) / permitsPerNano);
+        if (delayNanos > maxDelayNanos) {
+          return NO_PERMIT;
+        }
+        permits -= 1d;
+      }
+      if (delayNanos > 0L) {
+        throttledPolls.incrementAndGet();
+        throttledNanos.addAndGet(delayNanos);
+      }
+      return delayNanos;
+    }
+
+    @Nonnull
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * Number of evaluations delayed for this backend key.
+     *
+     * @return number of throttled evaluations
+     */
+    @Nonnegative
+    public long getThrottledPolls() {
+      return throttledPolls.get();
+    }
+
+    /**
+     * Total time evaluations have been delayed for this backend key.
+     *
+     * @return throttled nanoseconds
+     */
+    @Nonnegative
+    public long getThrottledNanos() {
+      return throttledNanos.get();
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+                        .add("key", key)
+                        .add("throttledPolls", throttledPolls)
+                        .add("throttledNanos", throttledNanos)
+                        .toString();
+    }
+  }
+}
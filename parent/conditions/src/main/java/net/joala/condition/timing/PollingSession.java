@@ -0,0 +1,511 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import net.joala.time.Clocks;
+import net.joala.time.Deadline;
+import net.joala.time.LearningTimeout;
+import net.joala.time.Timeout;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+import org.hamcrest.StringDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The state of one single wait run of a {@link DeceleratingWait}: the deadline, the current delay between
+ * two evaluations and the last state or exception seen. It is shared between blocking and asynchronous
+ * waits so that both poll with the same schedule and fail in the same way.
+ * </p>
+ * <p>
+ * During each evaluation the deadline of the session is the {@link Deadline#current() current deadline},
+ * so that waits nested within the state query do not outlast this wait.
+ * </p>
+ * <p>
+ * Blocking waits reuse one session per thread and start the backoff only when the first evaluation
+ * did not succeed, so that a wait succeeding at once does not allocate anything.
+ * </p>
+ *
+ * @param <F> the input type
+ * @param <T> the return type of the state query
+ * @since 1.3.0
+ */
+final class PollingSession<F, T> {
+  private static final Logger LOG = LoggerFactory.getLogger(PollingSession.class);
+  /**
+   * Session to reuse by the next blocking wait of a thread; {@code null} while in use.
+   */
+  private static final ThreadLocal<PollingSession<?, ?>> SPARE = new ThreadLocal<>();
+
+  private DeceleratingWait wait;
+  @Nullable
+  private String message;
+  private F input;
+  private Function<? super F, T> stateQuery;
+  @Nullable
+  private Matcher<? super T> matcher;
+  @Nullable
+  private Matcher<?> abortMatcher;
+  private long startTimeMillis;
+  private long startNanos;
+  private long deadlineTimeMillis;
+  private long deadlineNanos;
+
+  /**
+   * Started on the first delay.
+   */
+  @Nullable
+  private BackoffPolicy.Backoff backoff;
+  @Nullable
+  private EvaluationWatchdog watchdog;
+  @Nullable
+  private EvaluationHedging hedging;
+  @Nullable
+  private PollRateLimiter.Scope pollRateLimit;
+  @Nullable
+  private CancellationToken cancellationToken;
+  @Nullable
+  private WaitListener listener;
+  @Nullable
+  private String description;
+  private int evaluations;
+  private long beforeEvaluationTimeMillis;
+  private long afterEvaluationTimeMillis;
+  /**
+   * Records the polls of all waits of this session.
+   */
+  private final WaitTimelineRecorder timeline = new WaitTimelineRecorder();
+  /**
+   * We keep track of the last exception to be able to rethrow it.
+   */
+  @Nullable
+  private IgnorableStateQueryException lastException;
+  @Nullable
+  private T lastState;
+  @Nullable
+  private T result;
+
+  private PollingSession() {
+  }
+
+  /**
+   * Start a new session.
+   *
+   * @param wait          the wait to take the configuration from
+   * @param message       the message to print on failure; {@code null} for no additional message
+   * @param input         the input to pass to the query function
+   * @param stateQuery    the function to query the state of input
+   * @param matcher       the matcher to validate the result of the query; {@code null} to match any returned value
+   * @param timeoutMillis how long to wait at most
+   * @param reuse         whether to reuse a session of this thread; the session then has to be
+   *                      {@link #release() released} by this thread when the wait ended
+   * @param <F>           the input type
+   * @param <T>           the return type of the state query
+   * @return started session
+   */
+  @Nonnull
+  static <F, T> PollingSession<F, T> start(@Nonnull final DeceleratingWait wait,
+                                           @Nullable final String message,
+                                           @Nonnull final F input,
+                                           @Nonnull final Function<? super F, T> stateQuery,
+                                           @Nullable final Matcher<? super T> matcher,
+                                           @Nonnegative final long timeoutMillis,
+                                           final boolean reuse) {
+    final PollingSession<F, T> session = reuse ? takeSpare() : new PollingSession<>();
+    session.init(wait, message, input, stateQuery, matcher, timeoutMillis);
+    return session;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  private static <F, T> PollingSession<F, T> takeSpare() {
+    final PollingSession<?, ?> spare = SPARE.get();
+    if (spare == null) {
+      return new PollingSession<>();
+    }
+    SPARE.set(null);
+    return (PollingSession<F, T>) spare;
+  }
+
+  private void init(@Nonnull final DeceleratingWait newWait,
+                    @Nullable final String newMessage,
+                    @Nonnull final F newInput,
+                    @Nonnull final Function<? super F, T> newStateQuery,
+                    @Nullable final Matcher<? super T> newMatcher,
+                    @Nonnegative final long timeoutMillis) {
+    wait = newWait;
+    message = newMessage;
+    input = newInput;
+    stateQuery = newStateQuery;
+    matcher = newMatcher;
+    watchdog = wait.getEvaluationWatchdog();
+    hedging = wait.getEvaluationHedging();
+    pollRateLimit = wait.getPollRateLimit();
+    abortMatcher = wait.getAbortMatcher();
+    cancellationToken = wait.getCancellationToken();
+    listener = WaitListeners.listenerFor(wait.getWaitListener());
+    description = listener == null ? null : describe(input);
+    // Compute the deadlineTimeMillis until which we want to wait.
+    startTimeMillis = wait.nowMillis();
+    startNanos = Clocks.getClock().nowNanos();
+    deadlineTimeMillis = startTimeMillis + timeoutMillis;
+    deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    if (listener != null) {
+      listener.waitStarted(description, timeoutMillis);
+    }
+  }
+
+  /**
+   * Describe the input for listeners like fail strategies do, so that waits on the same expression share
+   * their statistics, whatever its {@code toString()} returns.
+   *
+   * @param input the input of the wait
+   * @return description of the input
+   */
+  @Nonnull
+  private static String describe(@Nonnull final Object input) {
+    if (input instanceof SelfDescribing) {
+      return StringDescription.toString((SelfDescribing) input);
+    }
+    return String.valueOf(input);
+  }
+
+  /**
+   * Fail if the wait got cancelled or the current thread got interrupted. The interrupt flag is not cleared.
+   *
+   * @throws WaitCancelledException if the wait has been cancelled
+   */
+  void checkCancelled() {
+    if (cancellationToken != null) {
+      cancellationToken.throwIfCancelled();
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      throw new WaitCancelledException("Wait has been interrupted.");
+    }
+  }
+
+  /**
+   * Evaluate the state query once.
+   *
+   * @return {@code true} if the state query returned a matching result; {@code false} if
+   * polling has to continue
+   */
+  boolean evaluate() {
+    final long beforeEvaluationNanos = startEvaluation();
+    final Deadline outerDeadline = Deadline.swapCurrentNanos(deadlineNanos);
+    try {
+      final T state;
+      if (hedging != null) {
+        state = hedging.evaluate(input, stateQuery, evaluationBudgetMillis());
+      } else if (watchdog != null) {
+        state = watchdog.evaluate(input, stateQuery, evaluationBudgetMillis());
+      } else {
+        state = stateQuery.apply(input);
+      }
+      return evaluated(beforeEvaluationNanos, state);
+    } catch (IgnorableStateQueryException e) {
+      return ignored(beforeEvaluationNanos, e);
+    } finally {
+      Deadline.restoreCurrent(outerDeadline);
+    }
+  }
+
+  /**
+   * Start an evaluation which is completed later by {@link #evaluated(long, Object)} or
+   * {@link #ignored(long, IgnorableStateQueryException)}.
+   *
+   * @return start of the evaluation in nanoseconds of the clock in use
+   */
+  long startEvaluation() {
+    // Measure the time that the evaluation takes.
+    beforeEvaluationTimeMillis = wait.nowMillis();
+    return Clocks.getClock().nowNanos();
+  }
+
+  /**
+   * Start the stage of a state query which does not block. The evaluation has to be
+   * {@link #startEvaluation() started} before.
+   *
+   * @param stageQuery the query to start the stage with
+   * @return stage which completes with the state
+   * @throws IgnorableStateQueryException if the stage could not be started yet
+   */
+  @Nonnull
+  CompletionStage<T> startStage(@Nonnull final StageQuery<? super F, T> stageQuery) {
+    final Deadline outerDeadline = Deadline.swapCurrentNanos(deadlineNanos);
+    try {
+      return stageQuery.stage(input);
+    } finally {
+      Deadline.restoreCurrent(outerDeadline);
+    }
+  }
+
+  /**
+   * Complete an evaluation which returned a state.
+   *
+   * @param beforeEvaluationNanos start of the evaluation as returned by {@link #startEvaluation()}
+   * @param state                 the state returned by the state query
+   * @return {@code true} if the state matched; {@code false} if polling has to continue
+   */
+  boolean evaluated(final long beforeEvaluationNanos, @Nullable final T state) {
+    if (matcher == null || matcher.matches(state)) {
+      result = state;
+      return recorded(beforeEvaluationNanos, true, state);
+    }
+    lastState = state;
+    if (abortMatcher != null && abortMatcher.matches(state)) {
+      abort(state);
+    }
+    return recorded(beforeEvaluationNanos, false, state);
+  }
+
+  /**
+   * Complete an evaluation which failed with an ignorable exception.
+   *
+   * @param beforeEvaluationNanos start of the evaluation as returned by {@link #startEvaluation()}
+   * @param exception             the exception raised by the state query
+   * @return always {@code false} as polling has to continue
+   */
+  boolean ignored(final long beforeEvaluationNanos, @Nonnull final IgnorableStateQueryException exception) {
+    // Remember the exception for rethrowing.
+    LOG.trace("Ignoring exception for now. Might rethrow later if failed with error.", exception);
+    lastException = exception;
+    return recorded(beforeEvaluationNanos, false, exception);
+  }
+
+  private boolean recorded(final long beforeEvaluationNanos, final boolean matched, @Nullable final Object outcome) {
+    evaluations++;
+    final long evaluationNanos = Clocks.getClock().nowNanos() - beforeEvaluationNanos;
+    if (listener != null) {
+      listener.evaluated(description, evaluationNanos, matched);
+    }
+    timeline.record(beforeEvaluationNanos - startNanos, evaluationNanos, outcome, outcome instanceof IgnorableStateQueryException);
+    if (matched) {
+      return true;
+    }
+    afterEvaluationTimeMillis = wait.nowMillis();
+    return false;
+  }
+
+  /**
+   * Take a permit for the next evaluation from the poll rate limit.
+   *
+   * If the poll rate limit allows no further evaluation before the deadline, the wait fails right away.
+   *
+   * @return milliseconds to delay the next evaluation, never beyond the deadline; 0 if not throttled
+   */
+  @Nonnegative
+  long throttleMillis() {
+    if (pollRateLimit == null) {
+      return 0L;
+    }
+    final long delayNanos = pollRateLimit.reserve(remainingNanos());
+    if (delayNanos == PollRateLimiter.NO_PERMIT) {
+      failThrottled();
+    }
+    return delayNanos == 0L ? 0L : Math.max(1L, TimeUnit.NANOSECONDS.toMillis(delayNanos + 999_999L));
+  }
+
+  private void failThrottled() {
+    if (evaluations == 0) {
+      // Without any evaluation, the fail strategy needs a reason to report.
+      lastException = new IgnorableStateQueryException(stateQuery, "Poll rate limit allows no evaluation before the deadline.");
+    }
+    failAtDeadline();
+    // The fail strategy is required to throw; ensure that the wait ends in any case.
+    throw new WaitTimeoutException("Poll rate limit allows no evaluation before the deadline.");
+  }
+
+  /**
+   * The budget left for this wait.
+   *
+   * @return nanoseconds until the deadline; 0 if it passed
+   */
+  @Nonnegative
+  long remainingNanos() {
+    return Math.max(0L, deadlineNanos - Clocks.getClock().nowNanos());
+  }
+
+  /**
+   * Report the successful end of the wait to the listener, the backoff and a learning timeout.
+   */
+  void succeeded() {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Wait succeeded with {} ms of budget left.", TimeUnit.NANOSECONDS.toMillis(remainingNanos()));
+    }
+    wait.getBackoffPolicy().succeeded(TimeUnit.NANOSECONDS.toMillis(Clocks.getClock().nowNanos() - startNanos));
+    final Timeout timeout = wait.getTimeout();
+    if (listener == null && !(timeout instanceof LearningTimeout)) {
+      return;
+    }
+    final long consumedMillis = wait.nowMillis() - startTimeMillis;
+    if (listener != null) {
+      listener.waitSucceeded(description, consumedMillis, evaluations);
+    }
+    if (timeout instanceof LearningTimeout) {
+      ((LearningTimeout) timeout).record(consumedMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Report the failure of the wait to the listener and a timeout of the wait to a learning timeout.
+   *
+   * @param failure the reason of the failure
+   */
+  void failed(@Nonnull final Throwable failure) {
+    final Timeout timeout = wait.getTimeout();
+    final boolean learning = failure instanceof WaitTimeoutException && timeout instanceof LearningTimeout;
+    if (listener == null && !learning) {
+      return;
+    }
+    final long consumedMillis = wait.nowMillis() - startTimeMillis;
+    if (listener != null) {
+      listener.waitFailed(description, consumedMillis, evaluations, failure);
+    }
+    if (learning) {
+      ((LearningTimeout) timeout).recordTimeout(consumedMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * The time an evaluation may take at most: until the deadline, plus the offset we also allow for sleeping.
+   *
+   * @return milliseconds, at least one
+   */
+  @Nonnegative
+  private long evaluationBudgetMillis() {
+    return Math.max(1, deadlineTimeMillis + DeceleratingWait.SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS - beforeEvaluationTimeMillis);
+  }
+
+  /**
+   * The result of the last successful evaluation.
+   *
+   * @return result
+   */
+  @Nullable
+  T getResult() {
+    return result;
+  }
+
+  /**
+   * Fail if the deadline passed, otherwise calculate how long to sleep until the next evaluation
+   * according to the backoff policy.
+   *
+   * @return milliseconds to sleep before the next evaluation
+   */
+  @Nonnegative
+  long nextSleepMillis() {
+    // Are we past the deadlineTimeMillis?
+    if (afterEvaluationTimeMillis > deadlineTimeMillis) {
+      failAtDeadline();
+    }
+    // Leave at least as much time between two checks as the check itself took.
+    final long lastDuration = afterEvaluationTimeMillis - beforeEvaluationTimeMillis;
+    if (backoff == null) {
+      backoff = wait.getBackoffPolicy().start();
+    }
+    final long delay = Math.max(lastDuration, backoff.nextDelayMillis(lastDuration));
+    // Wait, but not much longer than until the deadlineTimeMillis and at least a millisecond.
+    final long sleepMillis = Math.max(1, Math.min(delay, deadlineTimeMillis + DeceleratingWait.SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS - afterEvaluationTimeMillis));
+    return sleepMillis;
+  }
+
+  /**
+   * How long to sleep at most after the last evaluation to pass the deadline.
+   *
+   * @return milliseconds, at least one
+   */
+  @Nonnegative
+  long millisUntilDeadline() {
+    return Math.max(1, deadlineTimeMillis + DeceleratingWait.SLEEP_NOT_MUCH_LONGER_OFFSET_MILLIS - afterEvaluationTimeMillis);
+  }
+
+  /**
+   * Drop all references of the ended wait, including those of the timeline, and keep this session for the next blocking wait of this thread.
+   */
+  void release() {
+    wait = null;
+    message = null;
+    input = null;
+    stateQuery = null;
+    matcher = null;
+    abortMatcher = null;
+    backoff = null;
+    watchdog = null;
+    hedging = null;
+    pollRateLimit = null;
+    cancellationToken = null;
+    listener = null;
+    description = null;
+    evaluations = 0;
+    beforeEvaluationTimeMillis = 0L;
+    afterEvaluationTimeMillis = 0L;
+    timeline.clear();
+    lastException = null;
+    lastState = null;
+    result = null;
+    if (SPARE.get() == null) {
+      SPARE.set(this);
+    }
+  }
+
+  private void abort(@Nullable final T terminalState) {
+    final long consumedMillis = wait.nowMillis() - startTimeMillis;
+    wait.getFailStrategy().abort(message, stateQuery, input, terminalState, abortMatcher, consumedMillis);
+    // The fail strategy is required to throw; ensure that the wait ends in any case.
+    throw new WaitAbortedException(
+            WaitAbortedException.describe(message, stateQuery, input, terminalState, abortMatcher, consumedMillis),
+            terminalState);
+  }
+
+  /**
+   * Fail with the {@link WaitFailStrategy} of the wait as the deadline passed. The timeline of the last
+   * polls is attached to whatever the fail strategy throws.
+   */
+  void failAtDeadline() {
+    final long consumedMillis = wait.nowMillis() - startTimeMillis;
+    final WaitFailStrategy failStrategy = wait.getFailStrategy();
+    try {
+      if (lastException == null) {
+        failStrategy.fail(message, stateQuery, input, lastState, matcher, consumedMillis);
+      } else {
+        failStrategy.fail(message, stateQuery, input, lastException, consumedMillis);
+      }
+    } catch (WaitTimeoutException e) {
+      if (timeline.getRecordedPolls() > 0) {
+        e.attachTimeline(timeline.toTimeline());
+      }
+      throw e;
+    } catch (RuntimeException | Error e) {
+      if (timeline.getRecordedPolls() > 0) {
+        e.addSuppressed(new WaitTimelineException(timeline.toTimeline()));
+      }
+      throw e;
+    }
+  }
+}
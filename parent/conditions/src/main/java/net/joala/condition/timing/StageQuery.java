@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import net.joala.matcher.DescriptionUtil;
+import org.hamcrest.Description;
+import org.hamcrest.SelfDescribing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A state query which returns its state as {@link CompletionStage}. Asynchronous waits evaluate
+ * the stage without blocking; as plain state query it waits for the stage.
+ * </p>
+ *
+ * @param <F> the input type
+ * @param <T> the state type
+ * @since 1.3.0
+ */
+final class StageQuery<F, T> implements Function<F, T>, SelfDescribing {
+  @Nonnull
+  private final Function<? super F, ? extends CompletionStage<T>> stageQuery;
+
+  StageQuery(@Nonnull final Function<? super F, ? extends CompletionStage<T>> stageQuery) {
+    this.stageQuery = checkNotNull(stageQuery, "State query must not be null.");
+  }
+
+  /**
+   * Start the stage for the given input.
+   *
+   * @param input the input to query the state of
+   * @return stage which completes with the state
+   */
+  @Nonnull
+  CompletionStage<T> stage(final F input) {
+    return checkNotNull(stageQuery.apply(input), "State query must not return null.");
+  }
+
+  @Override
+  @Nullable
+  public T apply(@Nullable final F input) {
+    try {
+      return stage(input).toCompletableFuture().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WaitCancelledException("Wait has been interrupted.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new UncheckedExecutionException(cause);
+    }
+  }
+
+  @Override
+  public void describeTo(@Nonnull final Description description) {
+    DescriptionUtil.describeTo(description, stageQuery);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("stageQuery", stageQuery)
+            .toString();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Signal to wake up a waiting {@link DeceleratingWait} when the queried state might have changed.
+ * A wait configured with a signal does not poll with decelerating intervals but sleeps until
+ * either the signal is raised or the deadline is reached.
+ * </p>
+ * <p>
+ * To prevent lost wake-ups each signal carries a version which is incremented on each change.
+ * A waiter remembers the version before evaluating the state and then waits for the version
+ * to change.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class StateChangeSignal {
+  private final Object lock = new Object();
+  @Nonnull
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  /**
+   * Guarded by {@link #lock}.
+   */
+  private long version;
+
+  /**
+   * Signal that the state might have changed.
+   */
+  public void signal() {
+    synchronized (lock) {
+      version++;
+      lock.notifyAll();
+    }
+    for (final Runnable listener : listeners) {
+      listener.run();
+    }
+  }
+
+  /**
+   * The current version of the signal.
+   *
+   * @return version
+   */
+  public long version() {
+    synchronized (lock) {
+      return version;
+    }
+  }
+
+  /**
+   * Wait until the version differs from the given version.
+   *
+   * @param sinceVersion  version seen before
+   * @param timeoutMillis maximum time to wait
+   * @return {@code true} if the signal got raised, {@code false} on timeout
+   * @throws InterruptedException if the current thread got interrupted while waiting
+   */
+  public boolean awaitChange(final long sinceVersion, @Nonnegative final long timeoutMillis) throws InterruptedException {
+    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    synchronized (lock) {
+      while (version == sinceVersion) {
+        final long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0L) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Register a listener which is called on each signal, for example to trigger an asynchronous
+   * evaluation.
+   *
+   * @param listener listener to add
+   */
+  public void addListener(@Nonnull final Runnable listener) {
+    checkNotNull(listener, "Listener must not be null.");
+    listeners.add(listener);
+  }
+
+  /**
+   * Remove a previously registered listener.
+   *
+   * @param listener listener to remove
+   */
+  public void removeListener(@Nonnull final Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("version", version())
+                      .toString();
+  }
+}
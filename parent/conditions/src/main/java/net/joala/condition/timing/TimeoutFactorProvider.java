@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * <p>
+ * Provides a global factor which all waits multiply their timeout with, in addition to the factor
+ * configured for a single wait. Use it to adapt the timeouts of a whole test suite to the machine it
+ * runs on.
+ * </p>
+ *
+ * @see TimeoutFactors#setProvider(TimeoutFactorProvider)
+ * @see MachineLoadTimeoutFactorProvider
+ * @since 1.3.0
+ */
+public interface TimeoutFactorProvider {
+  /**
+   * Get the factor to adjust timeouts by. Called for each wait, thus it should return quickly.
+   *
+   * @return factor
+   */
+  @Nonnegative
+  double timeoutFactor();
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Registry of the global {@link TimeoutFactorProvider}. By default the provider is chosen by the system
+ * property {@value #FACTOR_PROPERTY}:
+ * </p>
+ * <ul>
+ * <li>a number is used as fixed factor, for example {@code -Djoala.timeout.factor=3},</li>
+ * <li>{@code auto} derives the factor from the machine, see {@link MachineLoadTimeoutFactorProvider},</li>
+ * <li>if the property is not set, the factor is {@code 1}.</li>
+ * </ul>
+ *
+ * @since 1.3.0
+ */
+public final class TimeoutFactors {
+  /**
+   * System property to configure the global timeout factor with.
+   */
+  public static final String FACTOR_PROPERTY = "joala.timeout.factor";
+  /**
+   * Value of {@link #FACTOR_PROPERTY} to derive the factor from the machine.
+   */
+  public static final String AUTO = "auto";
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeoutFactors.class);
+  private static final TimeoutFactorProvider DEFAULT_PROVIDER = providerFor(System.getProperty(FACTOR_PROPERTY));
+
+  @Nullable
+  private static volatile TimeoutFactorProvider provider;
+
+  private TimeoutFactors() {
+  }
+
+  /**
+   * Set the global provider.
+   *
+   * @param newProvider provider to use; {@code null} to reset to the provider configured by system property
+   */
+  public static void setProvider(@Nullable final TimeoutFactorProvider newProvider) {
+    provider = newProvider;
+  }
+
+  /**
+   * Get the global provider.
+   *
+   * @return provider in use
+   */
+  @Nonnull
+  public static TimeoutFactorProvider getProvider() {
+    final TimeoutFactorProvider current = provider;
+    return current == null ? DEFAULT_PROVIDER : current;
+  }
+
+  /**
+   * Get the global timeout factor.
+   *
+   * @return factor of the global provider
+   */
+  @Nonnegative
+  public static double timeoutFactor() {
+    return getProvider().timeoutFactor();
+  }
+
+  /**
+   * Create the provider configured by the given value of the system property.
+   *
+   * @param value value of {@link #FACTOR_PROPERTY}; {@code null} if not set
+   * @return provider
+   */
+  @VisibleForTesting
+  @Nonnull
+  static TimeoutFactorProvider providerFor(@Nullable final String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return new FixedTimeoutFactorProvider(1d);
+    }
+    if (AUTO.equalsIgnoreCase(value.trim())) {
+      return new MachineLoadTimeoutFactorProvider();
+    }
+    try {
+      return new FixedTimeoutFactorProvider(Double.parseDouble(value.trim()));
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Ignoring invalid value of system property {}: {}", FACTOR_PROPERTY, value, e);
+      return new FixedTimeoutFactorProvider(1d);
+    }
+  }
+
+  /**
+   * Provider of a fixed factor.
+   */
+  private static final class FixedTimeoutFactorProvider implements TimeoutFactorProvider {
+    private final double factor;
+
+    private FixedTimeoutFactorProvider(@Nonnegative final double factor) {
+      checkArgument(factor >= 0d && !Double.isInfinite(factor), "factor must be a positive number: %s", factor);
+      this.factor = factor;
+    }
+
+    @Override
+    public double timeoutFactor() {
+      return factor;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+                        .add("factor", factor)
+                        .toString();
+    }
+  }
+}
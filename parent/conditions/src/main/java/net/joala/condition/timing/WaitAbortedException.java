@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import net.joala.time.TimeFormat;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.matcher.DescriptionUtil.describeTo;
+
+/**
+ * <p>
+ * Exception which signals that a wait got aborted before its timeout, because the state reached a
+ * terminal state in which the expected state will never be reached.
+ * </p>
+ *
+ * @see DeceleratingWait#abortWhen(Matcher)
+ * @since 1.3.0
+ */
+public final class WaitAbortedException extends RuntimeException {
+  @Nullable
+  private final transient Object terminalState;
+
+  public WaitAbortedException(@Nullable final String message, @Nullable final Object terminalState) {
+    super(message);
+    this.terminalState = terminalState;
+  }
+
+  /**
+   * The state which matched the abort matcher.
+   *
+   * @return terminal state
+   */
+  @Nullable
+  public Object getTerminalState() {
+    return terminalState;
+  }
+
+  /**
+   * Describe why a wait got aborted.
+   *
+   * @param reason         reason of the failure
+   * @param function       function evaluated
+   * @param input          original input to the function
+   * @param terminalState  the state which matched the abort matcher
+   * @param abortMatcher   the matcher which matched
+   * @param consumedMillis consumed milliseconds
+   * @return description
+   */
+  @Nonnull
+  static String describe(@Nullable final String reason,
+                         @Nonnull final Object function,
+                         @Nonnull final Object input,
+                         @Nullable final Object terminalState,
+                         @Nonnull final Matcher<?> abortMatcher,
+                         @Nonnegative final long consumedMillis) {
+    final Description description = new StringDescription();
+    description.appendText(reason == null ? "Wait aborted." : reason);
+    description.appendText(" - after ");
+    description.appendText(TimeFormat.format(consumedMillis, TimeUnit.MILLISECONDS));
+    description.appendText(" evaluating ");
+    describeTo(description, function);
+    description.appendText(" on ");
+    describeTo(description, input);
+    description.appendText("\nTerminal state: ");
+    description.appendValue(terminalState);
+    description.appendText("\n  matched: ");
+    description.appendDescriptionOf(abortMatcher);
+    return description.toString();
+  }
+}
@@ -67,4 +67,28 @@ public interface WaitFailStrategy {
             @Nonnull Object input,
             @Nonnull Throwable throwable,
             @Nonnegative long consumedMillis);
+
+  /**
+   * Makes a condition fail at once because the function returned a terminal state, in which the
+   * expected value will never be returned. Implementations must throw; by default a
+   * {@link WaitAbortedException} is thrown.
+   *
+   * @param reason         reason of the failure
+   * @param function       function evaluated
+   * @param input          original input to the function
+   * @param terminalState  the value retrieved via function which matched the abort matcher
+   * @param abortMatcher   the matcher which matched
+   * @param consumedMillis consumed milliseconds
+   * @since 1.3.0
+   */
+  default void abort(@Nullable final String reason,
+                     @Nonnull final Object function,
+                     @Nonnull final Object input,
+                     @Nullable final Object terminalState,
+                     @Nonnull final Matcher<?> abortMatcher,
+                     @Nonnegative final long consumedMillis) {
+    throw new WaitAbortedException(
+            WaitAbortedException.describe(reason, function, input, terminalState, abortMatcher, consumedMillis),
+            terminalState);
+  }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * <p>
+ * Listener to instrument waits. It gets informed about the start of each wait, about each evaluation of
+ * the state query and about the outcome of the wait. Listeners are called on the thread which evaluates
+ * the state, thus they should return quickly and must be thread-safe.
+ * </p>
+ * <p>
+ * Waits are identified by a description of the input the state is queried from, for conditions this is
+ * the description of the expression.
+ * </p>
+ *
+ * @see DeceleratingWait#withWaitListener(WaitListener)
+ * @see WaitListeners#addGlobalListener(WaitListener)
+ * @see WaitMetrics
+ * @since 1.3.0
+ */
+public interface WaitListener {
+  /**
+   * A wait started.
+   *
+   * @param description   description of the wait
+   * @param timeoutMillis the timeout of the wait
+   */
+  default void waitStarted(@Nonnull final String description, @Nonnegative final long timeoutMillis) {
+  }
+
+  /**
+   * The state query got evaluated once.
+   *
+   * @param description   description of the wait
+   * @param durationNanos how long the evaluation took
+   * @param matched       whether the evaluation ended the wait successfully
+   */
+  default void evaluated(@Nonnull final String description, @Nonnegative final long durationNanos, final boolean matched) {
+  }
+
+  /**
+   * A wait ended successfully.
+   *
+   * @param description    description of the wait
+   * @param consumedMillis how long the wait took
+   * @param evaluations    number of evaluations of the state query
+   */
+  default void waitSucceeded(@Nonnull final String description, @Nonnegative final long consumedMillis, @Nonnegative final int evaluations) {
+  }
+
+  /**
+   * A wait failed, because it timed out, got cancelled or the state query failed.
+   *
+   * @param description    description of the wait
+   * @param consumedMillis how long the wait took
+   * @param evaluations    number of evaluations of the state query
+   * @param failure        the reason of the failure
+   */
+  default void waitFailed(@Nonnull final String description,
+                          @Nonnegative final long consumedMillis,
+                          @Nonnegative final int evaluations,
+                          @Nonnull final Throwable failure) {
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Registry of wait listeners which get informed about all waits, no matter whether a wait has a
+ * listener of its own. Used for instance to collect wait statistics for a whole test suite.
+ * </p>
+ *
+ * @see WaitReportRunListener
+ * @since 1.3.0
+ */
+public final class WaitListeners {
+  private static final Logger LOG = LoggerFactory.getLogger(WaitListeners.class);
+  private static final List<WaitListener> GLOBAL_LISTENERS = new CopyOnWriteArrayList<>();
+
+  private WaitListeners() {
+  }
+
+  /**
+   * Register a listener for all waits.
+   *
+   * @param listener listener to add
+   */
+  public static void addGlobalListener(@Nonnull final WaitListener listener) {
+    checkNotNull(listener, "Listener must not be null.");
+    GLOBAL_LISTENERS.add(listener);
+  }
+
+  /**
+   * Unregister a listener for all waits.
+   *
+   * @param listener listener to remove
+   */
+  public static void removeGlobalListener(@Nonnull final WaitListener listener) {
+    GLOBAL_LISTENERS.remove(listener);
+  }
+
+  /**
+   * The listener to inform about a wait. Failures of the listeners are logged, but do not affect the wait.
+   *
+   * @param listener the listener configured for the wait; {@code null} if none
+   * @return the listener combined with all global listeners; {@code null} if there is none at all
+   */
+  @Nullable
+  static WaitListener listenerFor(@Nullable final WaitListener listener) {
+    if (GLOBAL_LISTENERS.isEmpty()) {
+      return listener == null ? null : new CompositeWaitListener(Collections.singletonList(listener));
+    }
+    final List<WaitListener> listeners = new ArrayList<>(GLOBAL_LISTENERS);
+    if (listener != null) {
+      listeners.add(0, listener);
+    }
+    return new CompositeWaitListener(listeners);
+  }
+
+  /**
+   * Informs several listeners. A failing listener does not prevent the others from being called.
+   */
+  private static final class CompositeWaitListener implements WaitListener {
+    @Nonnull
+    private final List<WaitListener> listeners;
+
+    private CompositeWaitListener(@Nonnull final List<WaitListener> listeners) {
+      this.listeners = listeners;
+    }
+
+    @Override
+    public void waitStarted(@Nonnull final String description, final long timeoutMillis) {
+      for (final WaitListener listener : listeners) {
+        try {
+          listener.waitStarted(description, timeoutMillis);
+        } catch (RuntimeException e) {
+          LOG.warn("Wait listener {} failed.", listener, e);
+        }
+      }
+    }
+
+    @Override
+    public void evaluated(@Nonnull final String description, final long durationNanos, final boolean matched) {
+      for (final WaitListener listener : listeners) {
+        try {
+          listener.evaluated(description, durationNanos, matched);
+        } catch (RuntimeException e) {
+          LOG.warn("Wait listener {} failed.", listener, e);
+        }
+      }
+    }
+
+    @Override
+    public void waitSucceeded(@Nonnull final String description, final long consumedMillis, final int evaluations) {
+      for (final WaitListener listener : listeners) {
+        try {
+          listener.waitSucceeded(description, consumedMillis, evaluations);
+        } catch (RuntimeException e) {
+          LOG.warn("Wait listener {} failed.", listener, e);
+        }
+      }
+    }
+
+    @Override
+    public void waitFailed(@Nonnull final String description, final long consumedMillis, final int evaluations, @Nonnull final Throwable failure) {
+      for (final WaitListener listener : listeners) {
+        try {
+          listener.waitFailed(description, consumedMillis, evaluations, failure);
+        } catch (RuntimeException e) {
+          LOG.warn("Wait listener {} failed.", listener, e);
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+                        .add("listeners", listeners)
+                        .toString();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * <p>
+ * Wait listener which collects statistics per wait description: number of waits, failures and
+ * evaluations, total time waited and a histogram of evaluation durations. Collecting is cheap and
+ * thread-safe, so one instance may be registered for a whole test suite.
+ * </p>
+ *
+ * @see WaitListeners#addGlobalListener(WaitListener)
+ * @see WaitReportRunListener
+ * @since 1.3.0
+ */
+public final class WaitMetrics implements WaitListener {
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  @Override
+  public void waitStarted(@Nonnull final String description, final long timeoutMillis) {
+    entryFor(description).waits.increment();
+  }
+
+  @Override
+  public void evaluated(@Nonnull final String description, final long durationNanos, final boolean matched) {
+    final Entry entry = entryFor(description);
+    entry.evaluations.increment();
+    entry.evaluationNanos.record(durationNanos);
+  }
+
+  @Override
+  public void waitSucceeded(@Nonnull final String description, final long consumedMillis, final int evaluations) {
+    entryFor(description).consumedMillis.add(consumedMillis);
+  }
+
+  @Override
+  public void waitFailed(@Nonnull final String description, final long consumedMillis, final int evaluations, @Nonnull final Throwable failure) {
+    final Entry entry = entryFor(description);
+    entry.failures.increment();
+    entry.consumedMillis.add(consumedMillis);
+  }
+
+  /**
+   * Statistics per wait description, the most time consuming first.
+   *
+   * @return statistics collected so far
+   */
+  @Nonnull
+  public List<WaitStatistics> getStatistics() {
+    final List<WaitStatistics> statistics = new ArrayList<>(entries.size());
+    for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+      statistics.add(entry.getValue().toStatistics(entry.getKey()));
+    }
+    statistics.sort(Comparator.comparingLong(WaitStatistics::getConsumedMillis).reversed());
+    return statistics;
+  }
+
+  /**
+   * Forget all statistics collected so far.
+   */
+  public void reset() {
+    entries.clear();
+  }
+
+  /**
+   * Write a human readable report of where the time got spent waiting.
+   *
+   * @param out where to write the report to
+   * @throws IOException if writing fails
+   */
+  public void writeReport(@Nonnull final Appendable out) throws IOException {
+    final List<WaitStatistics> statistics = getStatistics();
+    long totalMillis = 0L;
+    long totalWaits = 0L;
+    for (final WaitStatistics statistic : statistics) {
+      totalMillis += statistic.getConsumedMillis();
+      totalWaits += statistic.getWaits();
+    }
+    out.append(format("Waited %d ms in %d waits.%n", totalMillis, totalWaits));
+    out.append(format("%12s %8s %8s %12s %28s  %s%n", "waited (ms)", "waits", "failed", "evaluations", "evaluation p50/p90/p99 (us)", "description"));
+    for (final WaitStatistics statistic : statistics) {
+      out.append(format("%12d %8d %8d %12d %28s  %s%n",
+              statistic.getConsumedMillis(),
+              statistic.getWaits(),
+              statistic.getFailures(),
+              statistic.getEvaluations(),
+              format("%d/%d/%d",
+                      TimeUnit.NANOSECONDS.toMicros(statistic.getEvaluationNanosP50()),
+                      TimeUnit.NANOSECONDS.toMicros(statistic.getEvaluationNanosP90()),
+                      TimeUnit.NANOSECONDS.toMicros(statistic.getEvaluationNanosP99())),
+              statistic.getDescription()));
+    }
+  }
+
+  @Nonnull
+  private Entry entryFor(@Nonnull final String description) {
+    final Entry entry = entries.get(description);
+    return entry == null ? entries.computeIfAbsent(description, key -> new Entry()) : entry;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("entries", entries)
+                      .toString();
+  }
+
+  private static final class Entry {
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder consumedMillis = new LongAdder();
+    private final LatencyHistogram evaluationNanos = new LatencyHistogram();
+
+    @Nonnull
+    private WaitStatistics toStatistics(@Nonnull final String description) {
+      return new WaitStatistics(description,
+              waits.sum(),
+              failures.sum(),
+              evaluations.sum(),
+              consumedMillis.sum(),
+              evaluationNanos.percentile(50d),
+              evaluationNanos.percentile(90d),
+              evaluationNanos.percentile(99d));
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+                        .add("waits", waits)
+                        .add("failures", failures)
+                        .add("evaluations", evaluations)
+                        .add("consumedMillis", consumedMillis)
+                        .add("evaluationNanos", evaluationNanos)
+                        .toString();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * <p>
+ * JUnit run listener which reports where a test run spent its time waiting. It collects
+ * {@link WaitMetrics} of all waits during the run and writes the report when the run finished:
+ * to the file given by system property {@value #REPORT_FILE_PROPERTY} or, if not set, to the log.
+ * </p>
+ * <p>
+ * With Maven Surefire the listener is registered by the configuration property {@code listener}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public class WaitReportRunListener extends RunListener {
+  private static final Logger LOG = LoggerFactory.getLogger(WaitReportRunListener.class);
+  /**
+   * System property to specify the file to write the report to.
+   */
+  public static final String REPORT_FILE_PROPERTY = "joala.wait.report";
+
+  @Nonnull
+  private final WaitMetrics metrics = new WaitMetrics();
+  @Nullable
+  private final File reportFile;
+
+  public WaitReportRunListener() {
+    this(reportFileFromSystemProperty());
+  }
+
+  /**
+   * @param reportFile file to write the report to; {@code null} to write it to the log
+   */
+  public WaitReportRunListener(@Nullable final File reportFile) {
+    this.reportFile = reportFile;
+  }
+
+  @Override
+  public void testRunStarted(final Description description) throws Exception {
+    metrics.reset();
+    WaitListeners.addGlobalListener(metrics);
+  }
+
+  @Override
+  public void testRunFinished(final Result result) throws Exception {
+    WaitListeners.removeGlobalListener(metrics);
+    if (reportFile == null) {
+      final StringBuilder report = new StringBuilder();
+      metrics.writeReport(report);
+      LOG.info("Wait report:{}{}", System.lineSeparator(), report);
+    } else {
+      writeReport(reportFile);
+    }
+  }
+
+  private void writeReport(@Nonnull final File file) throws IOException {
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+      metrics.writeReport(writer);
+    }
+  }
+
+  /**
+   * The metrics collected during the test run.
+   *
+   * @return metrics
+   */
+  @Nonnull
+  public WaitMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Nullable
+  private static File reportFileFromSystemProperty() {
+    final String fileName = System.getProperty(REPORT_FILE_PROPERTY);
+    return fileName == null ? null : new File(fileName);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("metrics", metrics)
+                      .add("reportFile", reportFile)
+                      .toString();
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Statistics about all waits with the same description collected by {@link WaitMetrics}.
+ * Percentiles of evaluation durations are upper bounds exact up to a factor of two.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class WaitStatistics {
+  @Nonnull
+  private final String description;
+  private final long waits;
+  private final long failures;
+  private final long evaluations;
+  private final long consumedMillis;
+  private final long evaluationNanosP50;
+  private final long evaluationNanosP90;
+  private final long evaluationNanosP99;
+
+  @SuppressWarnings("ConstructorWithTooManyParameters")
+  WaitStatistics(@Nonnull final String description,
+                 @Nonnegative final long waits,
+                 @Nonnegative final long failures,
+                 @Nonnegative final long evaluations,
+                 @Nonnegative final long consumedMillis,
+                 @Nonnegative final long evaluationNanosP50,
+                 @Nonnegative final long evaluationNanosP90,
+                 @Nonnegative final long evaluationNanosP99) {
+    checkNotNull(description, "Description must not be null.");
+    this.description = description;
+    this.waits = waits;
+    this.failures = failures;
+    this.evaluations = evaluations;
+    this.consumedMillis = consumedMillis;
+    this.evaluationNanosP50 = evaluationNanosP50;
+    this.evaluationNanosP90 = evaluationNanosP90;
+    this.evaluationNanosP99 = evaluationNanosP99;
+  }
+
+  @Nonnull
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * @return number of waits started
+   */
+  public long getWaits() {
+    return waits;
+  }
+
+  /**
+   * @return number of waits which failed
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * @return number of evaluations of the state query
+   */
+  public long getEvaluations() {
+    return evaluations;
+  }
+
+  /**
+   * @return total time spent in finished waits
+   */
+  public long getConsumedMillis() {
+    return consumedMillis;
+  }
+
+  public long getEvaluationNanosP50() {
+    return evaluationNanosP50;
+  }
+
+  public long getEvaluationNanosP90() {
+    return evaluationNanosP90;
+  }
+
+  public long getEvaluationNanosP99() {
+    return evaluationNanosP99;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+                      .add("description", description)
+                      .add("waits", waits)
+                      .add("failures", failures)
+                      .add("evaluations", evaluations)
+                      .add("consumedMillis", consumedMillis)
+                      .add("evaluationNanosP50", evaluationNanosP50)
+                      .add("evaluationNanosP90", evaluationNanosP90)
+                      .add("evaluationNanosP99", evaluationNanosP99)
+                      .toString();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The most recent polls of a wait, kept in a ring buffer of fixed size. For each poll the time since the
+ * start of the wait, the duration of the evaluation and the returned value or the thrown exception is
+ * recorded. A failed wait attaches its timeline to the {@link WaitTimeoutException}, or as
+ * {@link WaitTimelineException} to other failures like assertion errors.
+ * </p>
+ * <p>
+ * The buffer is allocated once per thread and reused by all blocking waits of that thread. Values are
+ * only turned into a summary of bounded length when the wait fails, so that successful waits neither
+ * allocate nor format anything for the timeline.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class WaitTimeline {
+  /**
+   * How many polls are kept at most.
+   */
+  public static final int CAPACITY = 32;
+  private static final int MAX_SUMMARY_LENGTH = 200;
+
+  @Nonnull
+  private final List<Entry> entries;
+  private final int recordedPolls;
+
+  /**
+   * Summarize the polls of a ring buffer.
+   *
+   * @param recordedPolls the number of polls recorded, including those which got dropped from the buffer
+   * @param offsetNanos   per poll the time since the start of the wait when the evaluation started
+   * @param durationNanos per poll how long the evaluation took
+   * @param outcomes      per poll the value returned or the exception thrown by the state query
+   * @param exceptions    per poll whether the outcome is an exception
+   */
+  WaitTimeline(@Nonnegative final int recordedPolls,
+               @Nonnull final long[] offsetNanos,
+               @Nonnull final long[] durationNanos,
+               @Nonnull final Object[] outcomes,
+               @Nonnull final boolean[] exceptions) {
+    final int kept = Math.min(recordedPolls, CAPACITY);
+    final List<Entry> summarized = new ArrayList<>(kept);
+    for (int i = recordedPolls - kept; i < recordedPolls; i++) {
+      final int index = i % CAPACITY;
+      summarized.add(new Entry(offsetNanos[index], durationNanos[index], summarize(outcomes[index], exceptions[index]), exceptions[index]));
+    }
+    this.entries = Collections.unmodifiableList(summarized);
+    this.recordedPolls = recordedPolls;
+  }
+
+  /**
+   * The number of polls recorded, including those which got dropped from the buffer.
+   *
+   * @return number of polls
+   */
+  @Nonnegative
+  public int getRecordedPolls() {
+    return recordedPolls;
+  }
+
+  /**
+   * The polls kept, oldest first.
+   *
+   * @return polls
+   */
+  @Nonnull
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  @Nonnull
+  private static String summarize(@Nullable final Object outcome, final boolean exception) {
+    final String summary;
+    if (exception) {
+      final Throwable throwable = (Throwable) outcome;
+      final Throwable reason = throwable instanceof IgnorableStateQueryException && throwable.getCause() != null ? throwable.getCause() : throwable;
+      summary = reason.getClass().getSimpleName() + ": " + reason.getMessage();
+    } else {
+      summary = String.valueOf(outcome);
+    }
+    return summary.length() > MAX_SUMMARY_LENGTH ? summary.substring(0, MAX_SUMMARY_LENGTH) + "..." : summary;
+  }
+
+  /**
+   * Describe the polls kept, one per line.
+   *
+   * @return description
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    final int dropped = recordedPolls - entries.size();
+    if (dropped > 0) {
+      builder.append(String.format(Locale.ROOT, "  ... %d earlier polls%n", dropped));
+    }
+    for (final Entry entry : entries) {
+      builder.append("  ").append(entry).append(String.format("%n"));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * A single poll of the timeline.
+   *
+   * @since 1.3.0
+   */
+  public static final class Entry {
+    private final long offsetNanos;
+    private final long durationNanos;
+    @Nonnull
+    private final String summary;
+    private final boolean exception;
+
+    private Entry(final long offsetNanos, final long durationNanos, @Nonnull final String summary, final boolean exception) {
+      this.offsetNanos = offsetNanos;
+      this.durationNanos = durationNanos;
+      this.summary = summary;
+      this.exception = exception;
+    }
+
+    /**
+     * Time since the start of the wait when the evaluation started.
+     *
+     * @return nanoseconds
+     */
+    public long getOffsetNanos() {
+      return offsetNanos;
+    }
+
+    /**
+     * How long the evaluation took.
+     *
+     * @return nanoseconds
+     */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /**
+     * Summary of the value returned or the exception thrown.
+     *
+     * @return summary
+     */
+    @Nonnull
+    public String getSummary() {
+      return summary;
+    }
+
+    /**
+     * Whether the state query threw an exception.
+     *
+     * @return {@code true} for an exception, {@code false} for a value
+     */
+    public boolean isException() {
+      return exception;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "+%.3f ms (took %.3f ms) %s: %s",
+              offsetNanos / (double) TimeUnit.MILLISECONDS.toNanos(1L),
+              durationNanos / (double) TimeUnit.MILLISECONDS.toNanos(1L),
+              exception ? "threw" : "returned",
+              summary);
+    }
+  }
+}
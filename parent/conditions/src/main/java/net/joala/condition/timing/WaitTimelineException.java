@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Carries the {@link WaitTimeline timeline} of a failed wait whose fail strategy threw another exception
+ * than {@link WaitTimeoutException}, like assertion errors or violated assumptions. It is added to the
+ * failure as suppressed exception, thus the timeline is printed along with the stack trace of the failure.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class WaitTimelineException extends RuntimeException {
+  @Nonnull
+  private final transient WaitTimeline timeline;
+
+  WaitTimelineException(@Nonnull final WaitTimeline timeline) {
+    super(String.format("Timeline of last polls:%n%s", checkNotNull(timeline, "Timeline must not be null.")), null, false, false);
+    this.timeline = timeline;
+  }
+
+  /**
+   * The last polls of the wait which failed.
+   *
+   * @return timeline
+   */
+  @Nonnull
+  public WaitTimeline getTimeline() {
+    return timeline;
+  }
+}
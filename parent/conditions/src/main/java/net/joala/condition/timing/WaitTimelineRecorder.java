@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Ring buffer of fixed size which records the polls of a wait for its {@link WaitTimeline}. It is
+ * allocated once per {@link PollingSession} and reused by all waits of that session, thus recording a
+ * poll does not allocate anything.
+ * </p>
+ * <p>
+ * Only references to the outcomes are kept. They are summarized when the wait fails and are dropped
+ * when the wait ended.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+final class WaitTimelineRecorder {
+  private final long[] offsetNanos = new long[WaitTimeline.CAPACITY];
+  private final long[] durationNanos = new long[WaitTimeline.CAPACITY];
+  private final Object[] outcomes = new Object[WaitTimeline.CAPACITY];
+  private final boolean[] exceptions = new boolean[WaitTimeline.CAPACITY];
+  private int recordedPolls;
+
+  /**
+   * Record a poll.
+   *
+   * @param offsetNanos   time since the start of the wait when the evaluation started
+   * @param durationNanos how long the evaluation took
+   * @param outcome       the value returned or the exception thrown by the state query
+   * @param exception     whether the outcome is an exception
+   */
+  void record(final long offsetNanos, final long durationNanos, @Nullable final Object outcome, final boolean exception) {
+    final int index = recordedPolls % WaitTimeline.CAPACITY;
+    this.offsetNanos[index] = offsetNanos;
+    this.durationNanos[index] = durationNanos;
+    outcomes[index] = outcome;
+    exceptions[index] = exception;
+    recordedPolls++;
+  }
+
+  /**
+   * The number of polls recorded, including those which got dropped from the buffer.
+   *
+   * @return number of polls
+   */
+  @Nonnegative
+  int getRecordedPolls() {
+    return recordedPolls;
+  }
+
+  /**
+   * Summarize the polls recorded so far.
+   *
+   * @return timeline which does not refer to the outcomes
+   */
+  @Nonnull
+  WaitTimeline toTimeline() {
+    return new WaitTimeline(recordedPolls, offsetNanos, durationNanos, outcomes, exceptions);
+  }
+
+  /**
+   * Drop all polls and the references to their outcomes.
+   */
+  void clear() {
+    Arrays.fill(outcomes, 0, Math.min(recordedPolls, WaitTimeline.CAPACITY), null);
+    recordedPolls = 0;
+  }
+}
@@ -19,16 +19,24 @@
 
 package net.joala.condition.timing;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
  * <p>
  * Exception which signals that a condition is not fulfilled within time.
  * </p>
+ * <p>
+ * Exceptions thrown by waits carry the {@link WaitTimeline timeline} of the last polls, which is also
+ * part of the message.
+ * </p>
  *
  * @since 8/23/12
  */
 public final class WaitTimeoutException extends RuntimeException {
+  @Nullable
+  private transient WaitTimeline timeline;
+
   public WaitTimeoutException(@Nullable final String message) {
     super(message);
   }
@@ -36,4 +44,28 @@ public final class WaitTimeoutException extends RuntimeException {
   public WaitTimeoutException(@Nullable final String message, @Nullable final Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * The last polls of the wait which timed out.
+   *
+   * @return timeline; {@code null} if not thrown by a wait or if no poll got recorded
+   * @since 1.3.0
+   */
+  @Nullable
+  public WaitTimeline getTimeline() {
+    return timeline;
+  }
+
+  void attachTimeline(@Nonnull final WaitTimeline newTimeline) {
+    timeline = newTimeline;
+  }
+
+  @Override
+  public String getMessage() {
+    final String message = super.getMessage();
+    if (timeline == null || timeline.getRecordedPolls() == 0) {
+      return message;
+    }
+    return String.format("%s%nTimeline of last polls:%n%s", message, timeline);
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition;
+
+import net.joala.condition.timing.WaitCancelledException;
+import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.condition.timing.WaitTimeoutFailStrategy;
+import net.joala.expression.Expression;
+import net.joala.expression.ExpressionEvaluationException;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.joala.condition.Conditions.allOf;
+import static net.joala.condition.Conditions.anyOf;
+import static net.joala.condition.Conditions.expect;
+import static net.joala.condition.Conditions.firstOf;
+import static org.hamcrest.core.IsAnything.anything;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+/**
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+@RunWith(MockitoJUnitRunner.class)
+public class ConditionsTest {
+  private static final Timeout SHORT_TIMEOUT = new TimeoutImpl(100L, TimeUnit.MILLISECONDS);
+  private static final Timeout LONG_TIMEOUT = new TimeoutImpl(1L, TimeUnit.MINUTES);
+
+  @Mock
+  private Expression<String> firstExpression;
+  @Mock
+  private Expression<String> secondExpression;
+  private Condition<String> firstCondition;
+  private Condition<String> secondCondition;
+
+  @Before
+  public void setUp() throws Exception {
+    when(firstExpression.get()).thenReturn("first");
+    when(secondExpression.get()).thenReturn("second");
+    firstCondition = new DefaultCondition<>(firstExpression, LONG_TIMEOUT);
+    secondCondition = new DefaultCondition<>(secondExpression, LONG_TIMEOUT);
+  }
+
+  @Test
+  public void allOf_should_return_all_values_in_order() throws Exception {
+    final List<Object> values = allOf(LONG_TIMEOUT, expect(firstCondition, anything()), expect(secondCondition, anything()));
+    assertEquals("All values should have been returned.", Arrays.<Object>asList("first", "second"), values);
+  }
+
+  @Test(expected = WaitTimeoutException.class)
+  public void allOf_should_fail_if_expectations_are_unmet() throws Exception {
+    allOf(SHORT_TIMEOUT, expect(firstCondition, not(anything())), expect(secondCondition, not(anything())));
+  }
+
+  @Test
+  public void allOf_should_fail_at_once_on_terminal_failure() throws Exception {
+    final IllegalStateException terminalFailure = new IllegalStateException("failed for good");
+    when(firstExpression.get()).thenThrow(terminalFailure);
+    final long before = System.nanoTime();
+    try {
+      allOf(LONG_TIMEOUT, expect(firstCondition, anything()), expect(secondCondition, not(anything())));
+      fail("IllegalStateException should have been thrown.");
+    } catch (IllegalStateException e) {
+      final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - before);
+      assertSame("Terminal failure should have been thrown.", terminalFailure, e);
+      assertEquals("Unmet expectation should not have been waited for.", true, elapsedMillis < 30_000L);
+    }
+  }
+
+  @Test
+  public void anyOf_should_be_cancelled_on_interrupt() throws Exception {
+    Thread.currentThread().interrupt();
+    try {
+      anyOf(LONG_TIMEOUT, expect(firstCondition, not(anything())), expect(secondCondition, not(anything())));
+      fail("WaitCancelledException should have been thrown.");
+    } catch (WaitCancelledException ignored) {
+      assertTrue("Interrupt flag should have been kept.", Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void allOf_should_share_one_timeout() throws Exception {
+    final long before = System.nanoTime();
+    try {
+      allOf(SHORT_TIMEOUT, expect(firstCondition, not(anything())), expect(secondCondition, not(anything())));
+      fail("WaitTimeoutException should have been thrown.");
+    } catch (WaitTimeoutException ignored) {
+      final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - before);
+      assertEquals("Timeouts should not have added up.", true, elapsedMillis < 30_000L);
+    }
+  }
+
+  @Test
+  public void anyOf_should_return_index_of_met_expectation() throws Exception {
+    final int index = anyOf(LONG_TIMEOUT, expect(firstCondition, not(anything())), expect(secondCondition, anything()));
+    assertEquals("Second expectation should have been met.", 1, index);
+  }
+
+  @Test
+  public void anyOf_should_ignore_evaluation_exceptions() throws Exception {
+    when(firstExpression.get()).thenThrow(new ExpressionEvaluationException("not yet"));
+    final int index = anyOf(LONG_TIMEOUT, expect(firstCondition, anything()), expect(secondCondition, anything()));
+    assertEquals("Second expectation should have been met.", 1, index);
+  }
+
+  @Test(expected = WaitTimeoutException.class)
+  public void anyOf_should_fail_if_no_expectation_is_met() throws Exception {
+    anyOf(SHORT_TIMEOUT, expect(firstCondition, not(anything())), expect(secondCondition, not(anything())));
+  }
+
+  @Test
+  public void firstOf_should_return_first_matching_value() throws Exception {
+    final String value = firstOf(LONG_TIMEOUT, equalTo("second"), firstCondition, secondCondition);
+    assertEquals("Value of second condition should have been returned.", "second", value);
+  }
+
+  @Test
+  public void conditions_should_be_evaluated_on_given_scheduler() throws Exception {
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      final Thread schedulerThread = scheduler.submit(Thread::currentThread).get();
+      final AtomicReference<Thread> evaluatingThread = new AtomicReference<>();
+      when(firstExpression.get()).thenAnswer(invocation -> {
+        evaluatingThread.set(Thread.currentThread());
+        return "first";
+      });
+      allOf(LONG_TIMEOUT, new WaitTimeoutFailStrategy(), scheduler, expect(firstCondition, anything()));
+      assertSame("Condition should have been evaluated on given scheduler.", schedulerThread, evaluatingThread.get());
+      assertEquals("Second expectation should have been met.", 1,
+              anyOf(LONG_TIMEOUT, new WaitTimeoutFailStrategy(), scheduler, expect(firstCondition, not(anything())), expect(secondCondition, anything())));
+      assertEquals("Value of second condition should have been returned.", "second",
+              firstOf(LONG_TIMEOUT, scheduler, equalTo("second"), firstCondition, secondCondition));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void allOf_should_require_expectations() throws Exception {
+    allOf(LONG_TIMEOUT);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import ch.qos.logback.classic.Level;
+import net.joala.condition.timing.BackoffPolicy;
+import net.joala.expression.AbstractExpression;
+import net.joala.time.Clocks;
+import net.joala.time.TimeoutImpl;
+import org.hamcrest.Matcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.number.OrderingComparison.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * <p>
+ * Measures the heap allocated by the current thread while waiting for conditions which succeed on the
+ * first poll or after a few polls. Such waits must not allocate anything beyond the result. Any allocation per wait would
+ * sum up to megabytes during the measured iterations; the tolerance only covers the measurement itself.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class DefaultConditionAllocationTest {
+  private static final int WARM_UP_ITERATIONS = 20_000;
+  private static final int MEASURED_ITERATIONS = 100_000;
+  private static final long TOLERATED_BYTES = 4096L;
+  private static final String VALUE = "value";
+  private static final int POLLS = 4;
+  /**
+   * Starting a backoff must not allocate either, as the default policies do.
+   */
+  private static final BackoffPolicy.Backoff FIXED_BACKOFF = lastEvaluationMillis -> 1L;
+  private static final BackoffPolicy FIXED_BACKOFF_POLICY = () -> FIXED_BACKOFF;
+
+  private com.sun.management.ThreadMXBean threads;
+  private ch.qos.logback.classic.Logger logger;
+  private Level originalLevel;
+
+  @Before
+  public void setUp() throws Exception {
+    final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue("Measuring allocated bytes is not supported.", threadBean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) threadBean;
+    assumeTrue("Measuring allocated bytes is not enabled.",
+            threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+    // debug logging is enabled for tests and would format its arguments
+    logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("net.joala.condition");
+    originalLevel = logger.getLevel();
+    logger.setLevel(Level.INFO);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (logger != null) {
+      logger.setLevel(originalLevel);
+    }
+  }
+
+  @Test
+  public void await_should_not_allocate_when_first_poll_succeeds() throws Throwable { // NOSONAR: from JUnit
+    final Condition<String> condition = new DefaultCondition<>(new ConstantExpression(), new TimeoutImpl(1L, TimeUnit.MINUTES));
+    final long allocated = allocatedBytes(condition::await);
+    assertThat("Bytes allocated by " + MEASURED_ITERATIONS + " waits.", allocated, lessThan(TOLERATED_BYTES));
+  }
+
+  @Test
+  public void waitUntil_should_not_allocate_when_first_poll_succeeds() throws Throwable { // NOSONAR: from JUnit
+    final Condition<String> condition = new DefaultCondition<>(new ConstantExpression(), new TimeoutImpl(1L, TimeUnit.MINUTES));
+    final Matcher<String> matcher = equalTo(VALUE);
+    final long allocated = allocatedBytes(() -> condition.waitUntil(matcher));
+    assertThat("Bytes allocated by " + MEASURED_ITERATIONS + " waits.", allocated, lessThan(TOLERATED_BYTES));
+  }
+
+  @Test
+  public void await_should_not_allocate_when_wait_succeeds_after_several_polls() throws Throwable { // NOSONAR: from JUnit
+    Clocks.useVirtualClock();
+    try {
+      final Condition<String> condition = new DefaultCondition<>(new EventualExpression(), new TimeoutImpl(1L, TimeUnit.MINUTES))
+              .withBackoffPolicy(FIXED_BACKOFF_POLICY);
+      final Matcher<String> matcher = equalTo(VALUE);
+      final long allocated = allocatedBytes(() -> condition.await(matcher));
+      assertThat("Bytes allocated by " + MEASURED_ITERATIONS + " waits.", allocated, lessThan(TOLERATED_BYTES));
+    } finally {
+      Clocks.reset();
+    }
+  }
+
+  private long allocatedBytes(final Runnable wait) {
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      wait.run();
+    }
+    final long threadId = Thread.currentThread().getId();
+    final long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      wait.run();
+    }
+    return threads.getThreadAllocatedBytes(threadId) - before;
+  }
+
+  private static final class ConstantExpression extends AbstractExpression<String> {
+    @Override
+    public String get() {
+      return VALUE;
+    }
+  }
+
+  private static final class EventualExpression extends AbstractExpression<String> {
+    private int evaluations;
+
+    @Override
+    public String get() {
+      evaluations++;
+      return evaluations % POLLS == 0 ? VALUE : "pending";
+    }
+  }
+}
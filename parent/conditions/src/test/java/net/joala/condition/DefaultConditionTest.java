@@ -19,10 +19,16 @@
 
 package net.joala.condition;
 
+import net.joala.condition.timing.FixedIntervalBackoffPolicy;
+import net.joala.condition.timing.PollRateLimiter;
+import net.joala.condition.timing.WaitAbortedException;
 import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.expression.AsyncExpression;
+import net.joala.expression.CompletionStageExpression;
 import net.joala.expression.Expression;
 import net.joala.expression.ExpressionEvaluationException;
 import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.internal.AssumptionViolatedException;
@@ -32,18 +38,24 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static java.lang.String.format;
 import static net.joala.matcher.exception.MessageContains.messageContains;
 import static org.hamcrest.core.IsAnything.anything;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.number.OrderingComparison.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -86,6 +98,20 @@ public class DefaultConditionTest {
     new DefaultCondition<>(expression, (Timeout) null);
   }
 
+  @Test
+  public void abortWhen_should_fail_at_once_on_terminal_state() throws Exception {
+    final long startNanos = System.nanoTime();
+    try {
+      new DefaultCondition<>(expression, new TimeoutImpl(1L, TimeUnit.MINUTES))
+              .abortWhen(equalTo(expressionValue))
+              .waitUntilEquals(expressionValue + "-done");
+      fail("Condition should have been aborted.");
+    } catch (WaitAbortedException e) {
+      assertEquals("Terminal state should have been reported.", expressionValue, e.getTerminalState());
+    }
+    assertThat("Condition should not have waited for the timeout.", System.nanoTime() - startNanos, lessThan(TimeUnit.SECONDS.toNanos(30L)));
+  }
+
   @Test
   public void get_should_return_expression_value() throws Exception {
     final String conditionValue = condition.get();
@@ -111,6 +137,61 @@ public class DefaultConditionTest {
     verify(expression).get();
   }
 
+  @Test
+  public void await_should_take_permits_from_poll_rate_limit() throws Exception {
+    final PollRateLimiter limiter = new PollRateLimiter(10d, 1);
+    final Condition<String> limited = new DefaultCondition<>(expression, new TimeoutImpl(1L, TimeUnit.MINUTES))
+            .withPollRateLimit(limiter.scope("backend"));
+    limited.await();
+    limited.await();
+    assertEquals("Second await should have been throttled.", 1L, limiter.getThrottledPolls());
+  }
+
+  @Test
+  public void awaitAsync_should_complete_with_expression_value() throws Exception {
+    final String conditionValue = condition.awaitAsync(anything()).get(1L, TimeUnit.MINUTES);
+    assertEquals("Expression's value should have been returned.", expressionValue, conditionValue);
+  }
+
+  @Test
+  public void awaitAsync_should_complete_exceptionally_if_expression_does_not_match() throws Exception {
+    try {
+      condition.awaitAsync(not(anything())).get(1L, TimeUnit.MINUTES);
+      fail("WaitTimeoutException should have been thrown.");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(WaitTimeoutException.class));
+    }
+  }
+
+  @Test
+  public void run_finally_should_be_executed_on_awaitAsync_completion() throws Exception {
+    ((FailSafeCondition<String>) condition).runFinally(runnable);
+    condition.awaitAsync(anything()).get(1L, TimeUnit.MINUTES);
+    verify(runnable, times(1)).run();
+  }
+
+  @Test
+  public void awaitAsync_should_evaluate_async_expression_through_stages() throws Exception {
+    final CompletableFuture<String> failedStage = new CompletableFuture<>();
+    failedStage.completeExceptionally(new ExpressionEvaluationException());
+    when(asyncExpression.getAsync()).thenReturn(failedStage, CompletableFuture.completedFuture(expressionValue));
+    final Condition<String> asyncCondition = new DefaultCondition<>(asyncExpression, new TimeoutImpl(1L, TimeUnit.MINUTES));
+    assertEquals("Value of stage should have been returned.", expressionValue, asyncCondition.awaitAsync(anything()).get(1L, TimeUnit.MINUTES));
+    verify(asyncExpression, times(2)).getAsync();
+    verify(asyncExpression, never()).get();
+  }
+
+  @Test
+  public void await_should_wake_up_on_change_of_observable_expression() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final Condition<String> observingCondition = new DefaultCondition<>(new CompletionStageExpression<>(future), new TimeoutImpl(1L, TimeUnit.MINUTES))
+            .withBackoffPolicy(new FixedIntervalBackoffPolicy(TimeUnit.MINUTES.toMillis(1L)));
+    final long before = System.nanoTime();
+    CompletableFuture.runAsync(() -> future.complete(expressionValue));
+    assertEquals("Expression's value should have been returned.", expressionValue, observingCondition.await());
+    assertThat("Should have woken up on change rather than after polling interval.", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - before), lessThan(30L));
+  }
+
   @Test(expected = WaitTimeoutException.class)
   public void await_should_timeout_if_expression_does_not_match() throws Exception {
     condition.await(not(anything()));
@@ -355,6 +436,9 @@ public class DefaultConditionTest {
   private Expression<String> expression;
   @SuppressWarnings("UnusedDeclaration")
   @Mock
+  private AsyncExpression<String> asyncExpression;
+  @SuppressWarnings("UnusedDeclaration")
+  @Mock
   private Runnable runnable;
 
 }
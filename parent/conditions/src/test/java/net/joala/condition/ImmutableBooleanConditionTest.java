@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.expression.Expression;
+import net.joala.time.TimeoutImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link ImmutableBooleanCondition}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+@RunWith(MockitoJUnitRunner.class)
+public class ImmutableBooleanConditionTest {
+  @Mock
+  private Expression<Boolean> expression;
+  private ImmutableBooleanCondition condition;
+
+  @Before
+  public void setUp() throws Exception {
+    when(expression.get()).thenReturn(Boolean.TRUE);
+    condition = new DefaultConditionFactory(new TimeoutImpl(100L, TimeUnit.MILLISECONDS)).immutableBooleanCondition(expression);
+  }
+
+  @Test
+  public void configuring_should_return_boolean_copy_and_keep_original() throws Exception {
+    final ImmutableBooleanCondition configured = condition.withMessage("configured message");
+    assertNotSame("A copy should have been returned.", condition, configured);
+    assertThat("Copy should have been configured.", configured.toString(), containsString("configured message"));
+    assertThat("Original should not have been changed.", condition.toString(), not(containsString("configured message")));
+    configured.waitUntilTrue();
+  }
+
+  @Test
+  public void copy_should_keep_boolean_condition() throws Exception {
+    final ImmutableCondition<Boolean> immutable = new ImmutableCondition<>(new DefaultBooleanCondition(expression, new TimeoutImpl(100L, TimeUnit.MILLISECONDS)));
+    assertThat("Copy should have kept the type of the condition.", immutable.toString(), containsString("DefaultBooleanCondition"));
+  }
+
+  @Test
+  public void should_fail_with_configuration() throws Exception {
+    try {
+      condition.withMessage("should be false").waitUntilFalse();
+      fail("WaitTimeoutException should have been thrown.");
+    } catch (WaitTimeoutException e) {
+      assertThat("Message should have been configured.", e.getMessage(), containsString("should be false"));
+    }
+  }
+
+  @Test
+  public void toString_should_be_implemented() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(condition).run();
+  }
+}
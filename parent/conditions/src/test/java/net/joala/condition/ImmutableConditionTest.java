@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition;
+
+import net.joala.condition.timing.WaitAbortedException;
+import net.joala.condition.timing.WaitTimeoutException;
+import net.joala.expression.Expression;
+import net.joala.time.TimeoutImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link ImmutableCondition}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+@RunWith(MockitoJUnitRunner.class)
+public class ImmutableConditionTest {
+  private static final int THREADS = 4;
+
+  @Mock
+  private Expression<String> expression;
+  private ImmutableCondition<String> condition;
+
+  @Before
+  public void setUp() throws Exception {
+    when(expression.get()).thenReturn("value");
+    condition = new DefaultConditionFactory(new TimeoutImpl(100L, TimeUnit.MILLISECONDS)).immutableCondition(expression);
+  }
+
+  @Test
+  public void configuring_should_return_copy_and_keep_original() throws Exception {
+    final ImmutableCondition<String> configured = condition.withMessage("configured message");
+    assertNotSame("A copy should have been returned.", condition, configured);
+    assertThat("Copy should have been configured.", configured.toString(), containsString("configured message"));
+    assertThat("Original should not have been changed.", condition.toString(), not(containsString("configured message")));
+  }
+
+  @Test
+  public void changes_to_source_condition_should_not_affect_immutable_condition() throws Exception {
+    final DefaultCondition<String> source = new DefaultCondition<>(expression, new TimeoutImpl(100L, TimeUnit.MILLISECONDS));
+    final ImmutableCondition<String> immutable = new ImmutableCondition<>(source);
+    source.withMessage("changed later");
+    assertThat("Immutable condition should not have been changed.", immutable.toString(), not(containsString("changed later")));
+  }
+
+  @Test
+  public void should_be_usable_from_parallel_threads() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        final String message = "message " + i;
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            try {
+              condition.withMessage(message).waitUntilEquals("other");
+              return "not failed";
+            } catch (WaitTimeoutException e) {
+              return e.getMessage();
+            }
+          }
+        }));
+      }
+      for (int i = 0; i < THREADS; i++) {
+        assertThat("Each thread should have failed with its own message.", results.get(i).get(30L, TimeUnit.SECONDS), containsString("message " + i));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void should_wait_with_configuration() throws Exception {
+    assertEquals("Value should have been returned.", "value", condition.withTimeoutFactor(2d).await(equalTo("value")));
+    try {
+      condition.abortWhen(equalTo("value")).waitUntilEquals("other");
+      fail("Condition should have been aborted.");
+    } catch (WaitAbortedException ignored) {
+      // expected
+    }
+  }
+
+  @Test
+  public void toString_should_be_implemented() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(condition).run();
+  }
+}
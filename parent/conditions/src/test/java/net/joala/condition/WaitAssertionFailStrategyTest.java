@@ -19,7 +19,14 @@
 
 package net.joala.condition;
 
+import com.google.common.base.Functions;
 import net.joala.condition.timing.WaitFailStrategyTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * @since 8/26/12
@@ -34,4 +41,14 @@ public class WaitAssertionFailStrategyTest extends WaitFailStrategyTest<WaitAsse
   protected WaitAssertionFailStrategy getFailStrategy() {
     return new WaitAssertionFailStrategy();
   }
+
+  @Test
+  public void abort_should_raise_assertion_error() throws Exception {
+    try {
+      getFailStrategy().abort("reason", Functions.identity(), "input", "terminal", equalTo("terminal"), 0L);
+      fail("Abort should have failed.");
+    } catch (AssertionError e) {
+      assertThat("Terminal state should have been described.", e.getMessage(), containsString("terminal"));
+    }
+  }
 }
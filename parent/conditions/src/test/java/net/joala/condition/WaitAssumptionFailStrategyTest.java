@@ -19,9 +19,16 @@
 
 package net.joala.condition;
 
+import com.google.common.base.Functions;
 import net.joala.condition.timing.WaitFailStrategyTest;
+import org.junit.Test;
 import org.junit.internal.AssumptionViolatedException;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
 /**
  * @since 8/26/12
  */
@@ -35,4 +42,14 @@ public class WaitAssumptionFailStrategyTest extends WaitFailStrategyTest<WaitAss
   protected WaitAssumptionFailStrategy getFailStrategy() {
     return new WaitAssumptionFailStrategy();
   }
+
+  @Test
+  public void abort_should_raise_assumption_violation() throws Exception {
+    try {
+      getFailStrategy().abort("reason", Functions.identity(), "input", "terminal", equalTo("terminal"), 0L);
+      fail("Abort should have failed.");
+    } catch (AssumptionViolatedException e) {
+      assertThat("Terminal state should have been described.", e.getMessage(), containsString("terminal"));
+    }
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import net.joala.time.Clocks;
+import net.joala.time.TimeoutImpl;
+import net.joala.time.VirtualClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@link AdaptiveBackoffPolicy}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class AdaptiveBackoffPolicyTest {
+  private static final long FALLBACK_DELAY_MILLIS = 10L;
+
+  private VirtualClock clock;
+
+  @Before
+  public void setUp() throws Exception {
+    clock = Clocks.useVirtualClock();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Clocks.reset();
+  }
+
+  @Test
+  public void fallback_should_be_used_until_enough_waits_have_been_observed() throws Exception {
+    final AdaptiveBackoffPolicy policy = new AdaptiveBackoffPolicy(new FixedIntervalBackoffPolicy(FALLBACK_DELAY_MILLIS));
+    for (int i = 1; i < AdaptiveBackoffPolicy.MIN_SAMPLES; i++) {
+      policy.succeeded(1000L);
+    }
+    assertEquals("Fallback delay should be used.", FALLBACK_DELAY_MILLIS, policy.start().nextDelayMillis(0L));
+  }
+
+  @Test
+  public void polls_should_cluster_around_expected_time_to_success() throws Exception {
+    final AdaptiveBackoffPolicy policy = new AdaptiveBackoffPolicy(new FixedIntervalBackoffPolicy(FALLBACK_DELAY_MILLIS));
+    for (int i = 0; i < AdaptiveBackoffPolicy.MIN_SAMPLES; i++) {
+      policy.succeeded(1000L);
+    }
+    // mean 1000 ms, deviation 281.25 ms: window from 438 ms to 1563 ms
+    final BackoffPolicy.Backoff backoff = policy.start();
+    assertEquals("First delay should skip to the window.", 438L, backoff.nextDelayMillis(0L));
+    clock.advance(438L, TimeUnit.MILLISECONDS);
+    assertEquals("Polls within the window should be dense.", 140L, backoff.nextDelayMillis(0L));
+    clock.advance(1200L, TimeUnit.MILLISECONDS);
+    assertEquals("Fallback should take over after the window.", FALLBACK_DELAY_MILLIS, backoff.nextDelayMillis(0L));
+  }
+
+  @Test
+  public void successful_waits_should_be_learned() throws Exception {
+    final AdaptiveBackoffPolicy policy = new AdaptiveBackoffPolicy();
+    final int unlearnedEvaluations = evaluationsUntilSuccessAfter(policy, 2000L);
+    for (int i = 1; i < AdaptiveBackoffPolicy.MIN_SAMPLES; i++) {
+      evaluationsUntilSuccessAfter(policy, 2000L);
+    }
+    assertThat("Learned schedule should need fewer evaluations.",
+            evaluationsUntilSuccessAfter(policy, 2000L), lessThan(unlearnedEvaluations));
+  }
+
+  @Test
+  public void policies_should_be_shared_per_key() throws Exception {
+    assertSame("Same key should share a policy.", AdaptiveBackoffPolicy.forKey("state"), AdaptiveBackoffPolicy.forKey("state"));
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new AdaptiveBackoffPolicy()).run();
+  }
+
+  private int evaluationsUntilSuccessAfter(final BackoffPolicy policy, final long successMillis) {
+    final AtomicInteger evaluations = new AtomicInteger();
+    final long startMillis = clock.nowMillis();
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES), 1d, new WaitTimeoutFailStrategy(), policy)
+            .until("value", new Function<String, Boolean>() {
+              @Override
+              public Boolean apply(final String input) {
+                evaluations.incrementAndGet();
+                return clock.nowMillis() - startMillis >= successMillis;
+              }
+            }, is(true));
+    return evaluations.get();
+  }
+}
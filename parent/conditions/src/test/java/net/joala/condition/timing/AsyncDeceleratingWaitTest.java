@@ -0,0 +1,217 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link AsyncDeceleratingWait}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class AsyncDeceleratingWaitTest {
+  private static final long TIMEOUT_MILLIS = 200L;
+  private static final long FUTURE_TIMEOUT_SECONDS = 30L;
+
+  private ScheduledExecutorService scheduler;
+  private Timeout timeout;
+
+  @Before
+  public void setUp() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    timeout = new TimeoutImpl(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void untilAsync_completes_if_first_evaluation_succeeds() throws Exception {
+    final CountingFunction stateQuery = new CountingFunction(1);
+    final CompletableFuture<Integer> future = createWait().untilAsync(new Object(), stateQuery, equalTo(1));
+    assertEquals("Result of state query should have been returned.", Integer.valueOf(1), future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void untilAsync_retries_until_state_matches() throws Exception {
+    final int expected = 3;
+    final CountingFunction stateQuery = new CountingFunction(expected);
+    final CompletableFuture<Integer> future = createWait().untilAsync(new Object(), stateQuery, equalTo(expected));
+    assertEquals("Result of state query should have been returned.", Integer.valueOf(expected), future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void untilAsync_ignores_ignorable_exceptions() throws Exception {
+    final CountingFunction stateQuery = new CountingFunction(2);
+    final CompletableFuture<Integer> future = createWait().untilAsync(new Object(), stateQuery);
+    assertEquals("First non-failing result should have been returned.", Integer.valueOf(2), future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void untilAsync_completes_exceptionally_with_fail_strategy_exception_on_timeout() throws Exception {
+    final CompletableFuture<Integer> future = createWait().untilAsync(new Object(), new CountingFunction(1), equalTo(-1));
+    try {
+      future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Future should have failed with timeout failure.");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(WaitTimeoutException.class));
+    }
+  }
+
+  @Test
+  public void untilAsync_completes_exceptionally_on_unexpected_exception() throws Exception {
+    final IllegalStateException exception = new IllegalStateException();
+    final CompletableFuture<Integer> future = createWait().untilAsync(new Object(), input -> {
+      throw exception;
+    });
+    try {
+      future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Future should have failed with exception of state query.");
+    } catch (ExecutionException e) {
+      assertEquals("Exception of state query should be propagated.", exception, e.getCause());
+    }
+  }
+
+  @Test
+  public void untilStage_starts_next_stage_only_after_previous_stage_completed() throws Exception {
+    final int expected = 3;
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger pendingStages = new AtomicInteger();
+    final AtomicInteger maxPendingStages = new AtomicInteger();
+    // The single scheduler thread both completes the stages and drives the wait.
+    final CompletableFuture<Integer> future = createWait().untilStage(new Object(), input -> {
+      final int call = calls.incrementAndGet();
+      maxPendingStages.accumulateAndGet(pendingStages.incrementAndGet(), Math::max);
+      final CompletableFuture<Integer> stage = new CompletableFuture<>();
+      scheduler.schedule(() -> {
+        pendingStages.decrementAndGet();
+        stage.complete(call);
+      }, 5L, TimeUnit.MILLISECONDS);
+      return stage;
+    }, equalTo(expected));
+    assertEquals("Result of stage should have been returned.", Integer.valueOf(expected), future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals("Only one stage should have been pending at a time.", 1, maxPendingStages.get());
+  }
+
+  @Test
+  public void untilStage_ignores_ignorable_stage_failures() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final CompletableFuture<Integer> future = createWait().untilStage(new Object(), new Function<Object, CompletableFuture<Integer>>() {
+      @Override
+      public CompletableFuture<Integer> apply(@Nullable final Object input) {
+        return calls.incrementAndGet() == 1
+                ? failedStage(new IgnorableStateQueryException(this))
+                : CompletableFuture.completedFuture(calls.get());
+      }
+    });
+    assertEquals("First non-failing result should have been returned.", Integer.valueOf(2), future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void untilStage_completes_exceptionally_on_unexpected_stage_failure() throws Exception {
+    final IllegalStateException exception = new IllegalStateException();
+    final CompletableFuture<Integer> future = createWait().untilStage(new Object(), input -> failedStage(exception));
+    try {
+      future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Future should have failed with failure of stage.");
+    } catch (ExecutionException e) {
+      assertEquals("Failure of stage should be propagated.", exception, e.getCause());
+    }
+  }
+
+  @Test
+  public void untilStage_times_out_if_stage_does_not_complete() throws Exception {
+    final CompletableFuture<Integer> future = createWait().untilStage(new Object(), input -> new CompletableFuture<Integer>());
+    try {
+      future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Future should have failed with timeout failure.");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(WaitTimeoutException.class));
+    }
+  }
+
+  @Test
+  public void until_blocks_as_decelerating_wait() throws Exception {
+    final CountingFunction stateQuery = new CountingFunction(2);
+    assertEquals("Result of state query should have been returned.", Integer.valueOf(2), createWait().until(new Object(), stateQuery, equalTo(2)));
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(createWait()).run();
+  }
+
+  private static CompletableFuture<Integer> failedStage(final Throwable failure) {
+    final CompletableFuture<Integer> stage = new CompletableFuture<>();
+    stage.completeExceptionally(failure);
+    return stage;
+  }
+
+  private AsyncDeceleratingWait createWait() {
+    return new AsyncDeceleratingWait(timeout, 1d, new WaitTimeoutFailStrategy(), scheduler);
+  }
+
+  /**
+   * Counts its calls and returns the count. Fails with ignorable exception on first call if
+   * the required calls are even.
+   */
+  private static final class CountingFunction implements Function<Object, Integer> {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final boolean failFirst;
+
+    private CountingFunction(final int requiredCalls) {
+      failFirst = requiredCalls % 2 == 0;
+    }
+
+    @Override
+    public Integer apply(@Nullable final Object input) {
+      final int call = calls.incrementAndGet();
+      if (failFirst && call == 1) {
+        throw new IgnorableStateQueryException(this);
+      }
+      return call;
+    }
+  }
+}
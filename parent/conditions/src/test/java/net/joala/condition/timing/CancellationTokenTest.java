@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.anything;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link CancellationToken} and its use by waits.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class CancellationTokenTest {
+  private static final TimeoutImpl LONG_TIMEOUT = new TimeoutImpl(5L, TimeUnit.MINUTES);
+
+  @Test
+  public void cancel_should_run_listeners_once() throws Exception {
+    final CancellationToken token = new CancellationToken();
+    final AtomicInteger calls = new AtomicInteger();
+    token.addListener(calls::incrementAndGet);
+    token.cancel();
+    token.cancel();
+    assertEquals("Listener should have been called once.", 1, calls.get());
+  }
+
+  @Test
+  public void addListener_should_run_listener_immediately_if_cancelled() throws Exception {
+    final CancellationToken token = new CancellationToken();
+    final AtomicInteger calls = new AtomicInteger();
+    token.cancel();
+    token.addListener(calls::incrementAndGet);
+    assertEquals("Listener should have been called.", 1, calls.get());
+  }
+
+  @Test
+  public void awaitCancellation_should_time_out_if_not_cancelled() throws Exception {
+    assertFalse("Should have timed out.", new CancellationToken().awaitCancellation(10L));
+  }
+
+  @Test(expected = WaitCancelledException.class)
+  public void throwIfCancelled_should_fail_if_cancelled() throws Exception {
+    final CancellationToken token = new CancellationToken();
+    token.cancel();
+    token.throwIfCancelled();
+  }
+
+  @Test
+  public void wait_should_stop_promptly_on_cancellation() throws Exception {
+    final CancellationToken token = new CancellationToken();
+    final DeceleratingWait wait = new DeceleratingWait(LONG_TIMEOUT).withCancellationToken(token);
+    final long before = System.nanoTime();
+    CompletableFuture.runAsync(token::cancel);
+    try {
+      wait.until("value", Functions.<String>identity(), not(anything()));
+      fail("WaitCancelledException should have been thrown.");
+    } catch (WaitCancelledException ignored) {
+      assertThat("Wait should have stopped promptly.", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - before), lessThan(30L));
+    }
+  }
+
+  @Test
+  public void wait_should_stop_on_interrupt_and_keep_interrupt_flag() throws Exception {
+    final DeceleratingWait wait = new DeceleratingWait(LONG_TIMEOUT);
+    Thread.currentThread().interrupt();
+    try {
+      wait.until("value", Functions.<String>identity(), not(anything()));
+      fail("WaitCancelledException should have been thrown.");
+    } catch (WaitCancelledException ignored) {
+      assertTrue("Interrupt flag should have been kept.", Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void async_wait_should_complete_exceptionally_on_cancellation() throws Exception {
+    final CancellationToken token = new CancellationToken();
+    final CompletableFuture<String> future = new AsyncDeceleratingWait(LONG_TIMEOUT).withCancellationToken(token)
+            .untilAsync("value", Functions.<String>identity(), not(anything()));
+    token.cancel();
+    try {
+      future.get(1L, TimeUnit.MINUTES);
+      fail("WaitCancelledException should have been thrown.");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(WaitCancelledException.class));
+    }
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new CancellationToken()).excludeFieldNames(Pattern.compile("lock|listeners")).run();
+  }
+}
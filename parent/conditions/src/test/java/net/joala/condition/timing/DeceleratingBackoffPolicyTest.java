@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import org.junit.Test;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link DeceleratingBackoffPolicy}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class DeceleratingBackoffPolicyTest {
+  @Test
+  public void delays_should_decelerate_by_factor() throws Exception {
+    final BackoffPolicy.Backoff backoff = new DeceleratingBackoffPolicy(100L, 1.5).start();
+    assertEquals("First delay should be initial delay.", 100L, backoff.nextDelayMillis(0L));
+    assertEquals("Second delay should be decelerated.", 150L, backoff.nextDelayMillis(0L));
+    assertEquals("Third delay should be decelerated.", 225L, backoff.nextDelayMillis(0L));
+  }
+
+  @Test
+  public void delays_should_increase_at_least_by_one_millisecond() throws Exception {
+    final BackoffPolicy.Backoff backoff = new DeceleratingBackoffPolicy(1L, 1.1).start();
+    assertEquals("First delay should be initial delay.", 1L, backoff.nextDelayMillis(0L));
+    assertEquals("Second delay should be one millisecond longer.", 2L, backoff.nextDelayMillis(0L));
+  }
+
+  @Test
+  public void delays_should_adopt_to_evaluation_duration() throws Exception {
+    final BackoffPolicy.Backoff backoff = new DeceleratingBackoffPolicy(10L, 2d).start();
+    assertEquals("Delay should be at least evaluation duration.", 50L, backoff.nextDelayMillis(50L));
+    assertEquals("Deceleration should continue from evaluation duration.", 100L, backoff.nextDelayMillis(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_should_fail_for_factor_less_than_one() throws Exception {
+    new DeceleratingBackoffPolicy(10L, 0.5);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new DeceleratingBackoffPolicy(10L, 1.1)).run();
+  }
+}
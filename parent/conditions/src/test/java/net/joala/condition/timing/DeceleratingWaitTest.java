@@ -20,13 +20,19 @@
 package net.joala.condition.timing;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.MoreObjects;
+import net.joala.time.Deadline;
+import net.joala.time.DurationHistory;
+import net.joala.time.LearningTimeout;
 import net.joala.time.Timeout;
 import net.joala.time.TimeoutImpl;
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -54,7 +60,9 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 
 /**
  * <p>
@@ -70,6 +78,9 @@ public class DeceleratingWaitTest {
 
   private static final double TEST_TIMEOUT_FACTOR = 5d;
 
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @SuppressWarnings("unchecked")
   @Before
   public void setUp() throws Exception {
@@ -78,6 +89,74 @@ public class DeceleratingWaitTest {
     timeout = new TimeoutImpl(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
   }
 
+  @Test
+  public void successful_wait_should_be_recorded_for_learning_timeout() throws Exception {
+    final DurationHistory history = new DurationHistory(temporaryFolder.getRoot().toPath().resolve("history.properties"));
+    new DeceleratingWait(new LearningTimeout("key", new TimeoutImpl(1L, TimeUnit.MINUTES), history))
+            .until("value", Functions.<String>identity());
+    assertEquals("Duration of wait should have been recorded.", 1, history.durationsMillis("key").length);
+    history.flush();
+  }
+
+  @Test
+  public void timed_out_wait_should_record_duration_of_learning_timeout() throws Exception {
+    final DurationHistory history = new DurationHistory(temporaryFolder.getRoot().toPath().resolve("history.properties"));
+    history.record("key", 1L);
+    try {
+      new DeceleratingWait(new LearningTimeout("key", new TimeoutImpl(10L, TimeUnit.MILLISECONDS), history))
+              .until("value", Functions.constant(false), Matchers.is(true));
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException ignored) {
+      final long[] durations = history.durationsMillis("key");
+      assertEquals("Duration of timed out wait should have been recorded.", 2, durations.length);
+      assertThat("Duration of timed out wait should have been recorded.", durations[1], Matchers.greaterThanOrEqualTo(10L));
+    }
+    history.flush();
+  }
+
+  @Test
+  public void wait_should_be_clamped_to_deadline_of_scope() throws Exception {
+    final long startNanos = System.nanoTime();
+    try (Deadline.Scope ignored = Deadline.after(50L, TimeUnit.MILLISECONDS).enter()) {
+      new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).until("value", Functions.constant(false), Matchers.is(true));
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException ignored) {
+      // expected
+    }
+    assertThat("Wait should have ended at deadline of scope.", System.nanoTime() - startNanos, Matchers.lessThan(TimeUnit.SECONDS.toNanos(30L)));
+  }
+
+  @Test
+  public void nested_wait_should_be_clamped_to_outer_wait() throws Exception {
+    final long startNanos = System.nanoTime();
+    final Function<String, Boolean> nestedWait = new Function<String, Boolean>() {
+      @Override
+      public Boolean apply(final String input) {
+        return new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).until(input, Functions.constant(false), Matchers.is(true));
+      }
+    };
+    try {
+      new DeceleratingWait(new TimeoutImpl(50L, TimeUnit.MILLISECONDS)).until("value", nestedWait);
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException ignored) {
+      // expected
+    }
+    assertThat("Nested wait should have ended at deadline of outer wait.", System.nanoTime() - startNanos, Matchers.lessThan(TimeUnit.SECONDS.toNanos(30L)));
+  }
+
+  @Test
+  public void abortWhen_should_fail_via_fail_strategy() throws Exception {
+    try {
+      new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES), mockWaitFailStrategy)
+              .abortWhen(Matchers.equalTo("failed"))
+              .until("failed", Functions.<String>identity(), Matchers.equalTo("done"));
+      fail("Wait should have been aborted.");
+    } catch (WaitAbortedException ignored) {
+      // expected, as the mocked strategy does not throw
+    }
+    verify(mockWaitFailStrategy).abort(any(String.class), any(), eq("failed"), eq("failed"), any(Matcher.class), anyLong());
+  }
+
   @Test
   public void until_returns_immediately_if_first_evaluation_succeeds() throws Exception {
     expectedCalls = new ExpectedCallsBuilder()
@@ -173,6 +252,25 @@ public class DeceleratingWaitTest {
     assertSuccessfulWait();
   }
 
+  @Test
+  public void until_should_sleep_as_defined_by_backoff_policy() throws Exception {
+    final long interval = DeceleratingWait.INITIAL_DELAY * 3;
+    expectedCalls = new ExpectedCallsBuilder()
+            .add(WaitCall.NOW, 0L)
+            .add(WaitCall.NOW, 0L)
+            .add(WaitCall.FUNCTION_RESULT, false)
+            .add(WaitCall.NOW, 0L)
+            .add(WaitCall.SLEEP, interval)
+            .add(WaitCall.NOW, interval)
+            .add(WaitCall.FUNCTION_RESULT, false)
+            .add(WaitCall.NOW, interval)
+            .add(WaitCall.SLEEP, interval)
+            .add(WaitCall.NOW, interval * 2)
+            .add(WaitCall.FUNCTION_RESULT, true)
+            .build();
+    assertSuccessfulWait(new TestedDeceleratingWait(timeout, mockWaitFailStrategy, new FixedIntervalBackoffPolicy(interval)));
+  }
+
   @SuppressWarnings("MagicNumber")
   @Test
   public void sleep_should_sleep_for_specified_millis() throws Exception {
@@ -371,6 +469,10 @@ public class DeceleratingWaitTest {
       super(timeout, timeoutFactor);
     }
 
+    private TestedDeceleratingWait(@Nonnull final Timeout timeout, @Nonnull final WaitFailStrategy failStrategy, @Nonnull final BackoffPolicy backoffPolicy) {
+      super(timeout, 1d, failStrategy, backoffPolicy);
+    }
+
     void until() {
       this.until(RANDOM_STRING_SUPPLIER.get(), mockInput, stateQuery, Matchers.equalTo(Boolean.TRUE));
     }
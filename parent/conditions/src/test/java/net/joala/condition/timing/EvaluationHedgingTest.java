@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link EvaluationHedging}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class EvaluationHedgingTest {
+  @Test
+  public void evaluate_should_return_result_of_state_query() throws Exception {
+    assertEquals("Result of state query should have been returned.", "value",
+            new EvaluationHedging().evaluate("value", Functions.<String>identity(), 1000L));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void evaluate_should_rethrow_runtime_exceptions() throws Exception {
+    new EvaluationHedging().evaluate("value", new Function<String, String>() {
+      @Override
+      public String apply(final String input) {
+        throw new IllegalStateException(input);
+      }
+    }, 1000L);
+  }
+
+  @Test
+  public void slow_evaluation_should_be_hedged() throws Exception {
+    final EvaluationHedging hedging = new EvaluationHedging(50d, 1d);
+    warmUp(hedging);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final String result = hedging.evaluate("value", new StallingOnceFunction(interrupted), TimeUnit.MINUTES.toMillis(1L));
+    assertEquals("Result of hedged evaluation should have been returned.", "value", result);
+    assertEquals("One evaluation should have been hedged.", 1L, hedging.getHedgedEvaluations());
+    assertTrue("Stalled evaluation should have been interrupted.", interrupted.await(1L, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void hedging_should_respect_maximum_extra_load() throws Exception {
+    final EvaluationHedging hedging = new EvaluationHedging(50d, 0d);
+    warmUp(hedging);
+    try {
+      hedging.evaluate("value", new StallingOnceFunction(new CountDownLatch(1)), 50L);
+      fail("IgnorableStateQueryException should have been thrown.");
+    } catch (IgnorableStateQueryException ignored) {
+      assertEquals("No evaluation should have been hedged.", 0L, hedging.getHedgedEvaluations());
+    }
+  }
+
+  @Test
+  public void hedging_should_not_start_before_latencies_are_known() throws Exception {
+    final EvaluationHedging hedging = new EvaluationHedging(50d, 1d);
+    try {
+      hedging.evaluate("value", new StallingOnceFunction(new CountDownLatch(1)), 50L);
+      fail("IgnorableStateQueryException should have been thrown.");
+    } catch (IgnorableStateQueryException ignored) {
+      assertEquals("No evaluation should have been hedged.", 0L, hedging.getHedgedEvaluations());
+    }
+  }
+
+  @Test
+  public void evaluate_should_cancel_wait_on_interrupt() throws Exception {
+    Thread.currentThread().interrupt();
+    try {
+      new EvaluationHedging().evaluate("value", new StallingOnceFunction(new CountDownLatch(1)), 1000L);
+      fail("WaitCancelledException should have been thrown.");
+    } catch (WaitCancelledException ignored) {
+      assertTrue("Interrupt flag should have been kept.", Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void wait_should_succeed_with_hedged_evaluation() throws Exception {
+    final EvaluationHedging hedging = new EvaluationHedging(50d, 1d);
+    warmUp(hedging);
+    final String result = new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES))
+            .withEvaluationHedging(hedging)
+            .until("value", new StallingOnceFunction(new CountDownLatch(1)));
+    assertEquals("Wait should have returned the result of the hedged evaluation.", "value", result);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void percentile_must_be_positive() throws Exception {
+    new EvaluationHedging(0d, 0.1d);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new EvaluationHedging()).run();
+  }
+
+  private static void warmUp(final EvaluationHedging hedging) {
+    for (int i = 0; i < EvaluationHedging.MIN_SAMPLES; i++) {
+      hedging.evaluate("value", Functions.<String>identity(), 1000L);
+    }
+  }
+
+  /**
+   * Stalls on the first call until interrupted and returns immediately on later calls.
+   */
+  private static final class StallingOnceFunction implements Function<String, String> {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch interrupted;
+
+    private StallingOnceFunction(final CountDownLatch interrupted) {
+      this.interrupted = interrupted;
+    }
+
+    @Override
+    public String apply(final String input) {
+      if (calls.getAndIncrement() == 0) {
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(5L));
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }
+      return input;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import net.joala.time.Deadline;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link EvaluationWatchdog}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class EvaluationWatchdogTest {
+  @Test
+  public void evaluate_should_return_result_of_state_query() throws Exception {
+    assertEquals("Result of state query should have been returned.", "value",
+            new EvaluationWatchdog().evaluate("value", Functions.<String>identity(), 1000L));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void evaluate_should_rethrow_runtime_exceptions() throws Exception {
+    new EvaluationWatchdog().evaluate("value", new Function<String, String>() {
+      @Override
+      public String apply(final String input) {
+        throw new IllegalStateException(input);
+      }
+    }, 1000L);
+  }
+
+  @Test
+  public void evaluate_should_propagate_deadline_to_state_query() throws Exception {
+    final Deadline deadline = Deadline.after(1L, TimeUnit.MINUTES);
+    try (Deadline.Scope ignored = deadline.enter()) {
+      assertSame("Deadline of waiting thread should be current for state query.", deadline,
+              new EvaluationWatchdog().evaluate("value", new Function<String, Deadline>() {
+                @Override
+                public Deadline apply(final String input) {
+                  return Deadline.current();
+                }
+              }, 1000L));
+    }
+  }
+
+  @Test
+  public void evaluate_should_interrupt_hanging_state_query() throws Exception {
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    try {
+      new EvaluationWatchdog().evaluate("value", new HangingFunction(interrupted), 10L);
+      fail("IgnorableStateQueryException should have been thrown.");
+    } catch (IgnorableStateQueryException ignored) {
+      assertTrue("Hanging state query should have been interrupted.", interrupted.await(1L, TimeUnit.MINUTES));
+    }
+  }
+
+  @Test
+  public void evaluate_should_cancel_wait_on_interrupt() throws Exception {
+    Thread.currentThread().interrupt();
+    try {
+      new EvaluationWatchdog().evaluate("value", new HangingFunction(new CountDownLatch(1)), 1000L);
+      fail("WaitCancelledException should have been thrown.");
+    } catch (WaitCancelledException ignored) {
+      assertTrue("Interrupt flag should have been kept.", Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void wait_should_not_overrun_timeout_on_hanging_state_query() throws Exception {
+    final DeceleratingWait wait = new DeceleratingWait(new TimeoutImpl(50L, TimeUnit.MILLISECONDS))
+            .withEvaluationWatchdog(new EvaluationWatchdog());
+    final long before = System.nanoTime();
+    try {
+      wait.until("value", new HangingFunction(new CountDownLatch(1)));
+      fail("WaitTimeoutException should have been thrown.");
+    } catch (WaitTimeoutException ignored) {
+      assertThat("Wait should not have waited for the hanging state query.",
+              TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - before), lessThan(30L));
+    }
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new EvaluationWatchdog()).run();
+  }
+
+  private static final class HangingFunction implements Function<String, String> {
+    private final CountDownLatch interrupted;
+
+    private HangingFunction(final CountDownLatch interrupted) {
+      this.interrupted = interrupted;
+    }
+
+    @Override
+    public String apply(final String input) {
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(5L));
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return input;
+    }
+  }
+}
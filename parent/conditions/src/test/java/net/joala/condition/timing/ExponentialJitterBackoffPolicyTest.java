@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import org.junit.Test;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@link ExponentialJitterBackoffPolicy}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class ExponentialJitterBackoffPolicyTest {
+  private static final int RUNS = 100;
+
+  @Test
+  public void delays_should_vary_within_jitter_around_exponential_base() throws Exception {
+    for (int run = 0; run < RUNS; run++) {
+      final BackoffPolicy.Backoff backoff = new ExponentialJitterBackoffPolicy(100L, 2d, 0.5).start();
+      assertThat("First delay should be within jitter.", backoff.nextDelayMillis(0L), allOf(greaterThanOrEqualTo(50L), lessThanOrEqualTo(150L)));
+      assertThat("Second delay should be within jitter.", backoff.nextDelayMillis(0L), allOf(greaterThanOrEqualTo(100L), lessThanOrEqualTo(300L)));
+    }
+  }
+
+  @Test
+  public void delays_without_jitter_should_grow_exponentially() throws Exception {
+    final BackoffPolicy.Backoff backoff = new ExponentialJitterBackoffPolicy(10L, 2d, 0d).start();
+    assertEquals("First delay should be initial delay.", 10L, backoff.nextDelayMillis(0L));
+    assertEquals("Second delay should be doubled.", 20L, backoff.nextDelayMillis(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_should_fail_for_jitter_greater_than_one() throws Exception {
+    new ExponentialJitterBackoffPolicy(10L, 2d, 1.5);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new ExponentialJitterBackoffPolicy(10L, 2d, 0.5)).run();
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import org.junit.Test;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link FibonacciBackoffPolicy}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class FibonacciBackoffPolicyTest {
+  @Test
+  public void delays_should_follow_fibonacci_sequence_up_to_maximum() throws Exception {
+    final BackoffPolicy.Backoff backoff = new FibonacciBackoffPolicy(10L, 60L).start();
+    final long[] expected = {10L, 10L, 20L, 30L, 50L, 60L, 60L};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Delay " + i + " should follow Fibonacci sequence.", expected[i], backoff.nextDelayMillis(0L));
+    }
+  }
+
+  @Test
+  public void each_wait_run_should_start_from_initial_delay() throws Exception {
+    final FibonacciBackoffPolicy policy = new FibonacciBackoffPolicy(10L, 60L);
+    policy.start().nextDelayMillis(0L);
+    assertEquals("New run should start with initial delay.", 10L, policy.start().nextDelayMillis(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_should_fail_for_maximum_less_than_initial_delay() throws Exception {
+    new FibonacciBackoffPolicy(10L, 5L);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new FibonacciBackoffPolicy(10L, 60L)).run();
+  }
+}
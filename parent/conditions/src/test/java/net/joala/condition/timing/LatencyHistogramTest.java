@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import org.junit.Test;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Tests {@link LatencyHistogram}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class LatencyHistogramTest {
+  @Test
+  public void percentile_should_be_zero_if_empty() throws Exception {
+    assertEquals("Empty histogram should report zero.", 0L, new LatencyHistogram().percentile(50d));
+  }
+
+  @Test
+  public void percentile_should_be_upper_bound_within_factor_two() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(100L);
+    }
+    histogram.record(10000L);
+    assertEquals("Median should be upper bound of bucket containing 100.", 127L, histogram.percentile(50d));
+    assertEquals("Maximum should be upper bound of bucket containing 10000.", 16383L, histogram.percentile(100d));
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new LatencyHistogram()).run();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link LowLatencyWait}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class LowLatencyWaitTest {
+  private static final long TIMEOUT_MILLIS = 200L;
+  private final Timeout timeout = new TimeoutImpl(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+  @Test
+  public void until_returns_during_spin_phase_without_parking() throws Exception {
+    final CountingWait wait = new CountingWait(TimeUnit.SECONDS.toNanos(1L), TimeUnit.SECONDS.toNanos(1L));
+    assertEquals("Result should be returned.", Integer.valueOf(3), wait.until(new Object(), new CountingFunction(), equalTo(3)));
+    assertEquals("Should not have parked.", 0, wait.parks.get());
+  }
+
+  @Test
+  public void until_parks_after_spin_phase() throws Exception {
+    final CountingWait wait = new CountingWait(0L, TimeUnit.SECONDS.toNanos(1L));
+    assertEquals("Result should be returned.", Integer.valueOf(3), wait.until(new Object(), new CountingFunction(), equalTo(3)));
+    assertEquals("Should have parked between evaluations.", 2, wait.parks.get());
+  }
+
+  @Test
+  public void until_falls_back_to_deceleration_and_fails_at_deadline() throws Exception {
+    final CountingFunction stateQuery = new CountingFunction();
+    try {
+      new LowLatencyWait(timeout).until(new Object(), stateQuery, equalTo(-1));
+      fail("Should have failed with timeout failure.");
+    } catch (WaitTimeoutException ignored) {
+      // fine
+    }
+    assertThat("Should have evaluated several times.", stateQuery.calls.get(), greaterThan(2));
+  }
+
+  @Test
+  public void now_should_be_monotonic_time() throws Exception {
+    final long before = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    final long now = new LowLatencyWait(timeout).nowMillis();
+    final long after = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    assertThat("Time should be between before and after.", now >= before && now <= after, equalTo(true));
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new LowLatencyWait(timeout)).run();
+  }
+
+  private final class CountingWait extends LowLatencyWait {
+    private final AtomicInteger parks = new AtomicInteger();
+
+    private CountingWait(final long spinNanos, final long parkNanos) {
+      super(timeout, 1d, new WaitTimeoutFailStrategy(), DEFAULT_BACKOFF_POLICY, spinNanos, parkNanos);
+    }
+
+    @Override
+    protected void park(final long nanos) {
+      parks.incrementAndGet();
+    }
+  }
+
+  private static final class CountingFunction implements Function<Object, Integer> {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public Integer apply(@Nullable final Object input) {
+      return calls.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import net.joala.time.Clocks;
+import net.joala.time.TimeoutImpl;
+import net.joala.time.VirtualClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link PollRateLimiter}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class PollRateLimiterTest {
+  private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+  private VirtualClock clock;
+
+  @Before
+  public void setUp() throws Exception {
+    clock = Clocks.useVirtualClock();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Clocks.reset();
+  }
+
+  @Test
+  public void burst_should_not_be_throttled() throws Exception {
+    final PollRateLimiter.Scope scope = new PollRateLimiter(1d, 3).scope("backend");
+    for (int i = 0; i < 3; i++) {
+      assertEquals("Polls within burst should not be delayed.", 0L, scope.reserve(Long.MAX_VALUE));
+    }
+    assertEquals("Polls within burst should not be counted.", 0L, scope.getThrottledPolls());
+  }
+
+  @Test
+  public void polls_beyond_burst_should_be_delayed_by_rate() throws Exception {
+    final PollRateLimiter.Scope scope = new PollRateLimiter(1d, 1).scope("backend");
+    scope.reserve(Long.MAX_VALUE);
+    assertEquals("Second poll should wait for the next permit.", SECOND_NANOS, scope.reserve(Long.MAX_VALUE));
+    assertEquals("Third poll should queue behind the second one.", 2L * SECOND_NANOS, scope.reserve(Long.MAX_VALUE));
+    assertEquals("Throttled polls should be counted.", 2L, scope.getThrottledPolls());
+    assertEquals("Throttled time should be counted.", 3L * SECOND_NANOS, scope.getThrottledNanos());
+  }
+
+  @Test
+  public void permits_should_refill_over_time() throws Exception {
+    final PollRateLimiter.Scope scope = new PollRateLimiter(1d, 1).scope("backend");
+    scope.reserve(Long.MAX_VALUE);
+    clock.advance(1L, TimeUnit.SECONDS);
+    assertEquals("Permit should have been refilled.", 0L, scope.reserve(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void permit_beyond_max_delay_should_not_be_taken() throws Exception {
+    final PollRateLimiter.Scope scope = new PollRateLimiter(1d, 1).scope("backend");
+    scope.reserve(Long.MAX_VALUE);
+    assertEquals("No permit should be available within max delay.", PollRateLimiter.NO_PERMIT, scope.reserve(10L));
+    assertEquals("Denied permit should not be counted as throttled.", 0L, scope.getThrottledNanos());
+    assertEquals("Denied permit should not delay later polls.", SECOND_NANOS, scope.reserve(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void keys_should_have_separate_buckets() throws Exception {
+    final PollRateLimiter limiter = new PollRateLimiter(1d, 1);
+    limiter.scope("first").reserve(Long.MAX_VALUE);
+    assertEquals("Other key should not be throttled.", 0L, limiter.scope("second").reserve(Long.MAX_VALUE));
+    assertSame("Same key should share a bucket.", limiter.scope("first"), limiter.scope("first"));
+  }
+
+  @Test
+  public void wait_should_be_throttled() throws Exception {
+    final PollRateLimiter limiter = new PollRateLimiter(10d, 1);
+    final AtomicInteger evaluations = new AtomicInteger();
+    final long startNanos = clock.nowNanos();
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES))
+            .withPollRateLimit(limiter.scope("backend"))
+            .until("value", new Function<String, Boolean>() {
+              @Override
+              public Boolean apply(final String input) {
+                return evaluations.incrementAndGet() == 5;
+              }
+            }, is(true));
+    assertThat("Evaluations should have been spread by the rate limit.",
+            clock.nowNanos() - startNanos, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400L)));
+    assertEquals("Throttled evaluations should have been counted.", 4L, limiter.getThrottledPolls());
+  }
+
+  @Test
+  public void wait_should_fail_instead_of_exceeding_rate_before_deadline() throws Exception {
+    final PollRateLimiter limiter = new PollRateLimiter(1d, 1);
+    final AtomicInteger evaluations = new AtomicInteger();
+    try {
+      new DeceleratingWait(new TimeoutImpl(100L, TimeUnit.MILLISECONDS))
+              .withPollRateLimit(limiter.scope("backend"))
+              .until("value", new Function<String, Boolean>() {
+                @Override
+                public Boolean apply(final String input) {
+                  evaluations.incrementAndGet();
+                  return false;
+                }
+              }, is(true));
+      fail("Wait should have failed.");
+    } catch (WaitTimeoutException ignored) {
+      assertEquals("Only the permitted evaluation should have been done.", 1, evaluations.get());
+    }
+  }
+
+  @Test
+  public void async_wait_should_be_throttled() throws Exception {
+    final PollRateLimiter limiter = new PollRateLimiter(10d, 1);
+    final AtomicInteger evaluations = new AtomicInteger();
+    new AsyncDeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES))
+            .withPollRateLimit(limiter.scope("backend"))
+            .untilAsync("value", new Function<String, Boolean>() {
+              @Override
+              public Boolean apply(final String input) {
+                return evaluations.incrementAndGet() == 5;
+              }
+            }, is(true))
+            .get(1L, TimeUnit.MINUTES);
+    assertEquals("Throttled evaluations should have been counted.", 4L, limiter.getThrottledPolls());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new PollRateLimiter(1d, 1)).run();
+  }
+}
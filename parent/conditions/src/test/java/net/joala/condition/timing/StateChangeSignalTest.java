@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.condition.timing;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests {@link StateChangeSignal}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class StateChangeSignalTest {
+  @Test
+  public void signal_should_increment_version() throws Exception {
+    final StateChangeSignal signal = new StateChangeSignal();
+    final long version = signal.version();
+    signal.signal();
+    assertEquals("Version should have been incremented.", version + 1L, signal.version());
+  }
+
+  @Test
+  public void awaitChange_should_return_immediately_if_signal_was_raised_before() throws Exception {
+    final StateChangeSignal signal = new StateChangeSignal();
+    final long version = signal.version();
+    signal.signal();
+    assertTrue("Signal should have been recognized.", signal.awaitChange(version, TimeUnit.MINUTES.toMillis(1L)));
+  }
+
+  @Test
+  public void awaitChange_should_time_out_without_signal() throws Exception {
+    final StateChangeSignal signal = new StateChangeSignal();
+    assertFalse("Should have timed out.", signal.awaitChange(signal.version(), 10L));
+  }
+
+  @Test
+  public void awaitChange_should_wake_up_on_signal_from_other_thread() throws Exception {
+    final StateChangeSignal signal = new StateChangeSignal();
+    final long version = signal.version();
+    CompletableFuture.runAsync(signal::signal);
+    assertTrue("Signal should have been recognized.", signal.awaitChange(version, TimeUnit.MINUTES.toMillis(1L)));
+  }
+
+  @Test
+  public void listeners_should_be_called_on_signal() throws Exception {
+    final StateChangeSignal signal = new StateChangeSignal();
+    final AtomicInteger calls = new AtomicInteger();
+    signal.addListener(calls::incrementAndGet);
+    signal.signal();
+    assertEquals("Listener should have been called.", 1, calls.get());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new StateChangeSignal()).excludeFieldNames(Pattern.compile("lock|listeners")).run();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link TimeoutFactors} and {@link MachineLoadTimeoutFactorProvider}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class TimeoutFactorsTest {
+  private static final double DELTA = 0.0001d;
+
+  @After
+  public void tearDown() throws Exception {
+    TimeoutFactors.setProvider(null);
+  }
+
+  @Test
+  public void missing_property_should_result_in_factor_one() throws Exception {
+    assertEquals("Factor should be one.", 1d, TimeoutFactors.providerFor(null).timeoutFactor(), DELTA);
+  }
+
+  @Test
+  public void numeric_property_should_be_used_as_factor() throws Exception {
+    assertEquals("Factor should have been parsed.", 2.5d, TimeoutFactors.providerFor(" 2.5 ").timeoutFactor(), DELTA);
+  }
+
+  @Test
+  public void invalid_property_should_be_ignored() throws Exception {
+    assertEquals("Non-numeric factor should have been ignored.", 1d, TimeoutFactors.providerFor("fast").timeoutFactor(), DELTA);
+    assertEquals("Negative factor should have been ignored.", 1d, TimeoutFactors.providerFor("-1").timeoutFactor(), DELTA);
+    assertEquals("NaN should have been ignored.", 1d, TimeoutFactors.providerFor("NaN").timeoutFactor(), DELTA);
+  }
+
+  @Test
+  public void auto_property_should_derive_factor_from_machine() throws Exception {
+    final TimeoutFactorProvider provider = TimeoutFactors.providerFor("AUTO");
+    assertThat("Machine should have been measured.", provider, instanceOf(MachineLoadTimeoutFactorProvider.class));
+    assertThat("Factor should be within bounds.", provider.timeoutFactor(),
+            Matchers.both(Matchers.greaterThanOrEqualTo(1d)).and(Matchers.lessThanOrEqualTo(MachineLoadTimeoutFactorProvider.MAX_FACTOR)));
+  }
+
+  @Test
+  public void machine_factor_should_be_the_largest_shortage() throws Exception {
+    assertEquals("Idle fast machine should not get a factor.", 1d, MachineLoadTimeoutFactorProvider.factorFor(8, 0.5d, 1000L), DELTA);
+    assertEquals("Missing processors should be compensated.", 2d, MachineLoadTimeoutFactorProvider.factorFor(1, -1d, 1000L), DELTA);
+    assertEquals("Load should be compensated.", 3d, MachineLoadTimeoutFactorProvider.factorFor(4, 12d, 1000L), DELTA);
+    assertEquals("Slow calibration should be compensated.", 2.5d,
+            MachineLoadTimeoutFactorProvider.factorFor(4, 1d, TimeUnit.MICROSECONDS.toNanos(2500L)), DELTA);
+    assertEquals("Factor should be limited.", MachineLoadTimeoutFactorProvider.MAX_FACTOR,
+            MachineLoadTimeoutFactorProvider.factorFor(4, 400d, 1000L), DELTA);
+  }
+
+  @Test
+  public void global_factor_should_apply_to_waits() throws Exception {
+    TimeoutFactors.setProvider(() -> 0d);
+    final long startNanos = System.nanoTime();
+    try {
+      new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).until("value", Functions.constant(false), Matchers.is(true));
+      fail("Wait should have timed out immediately.");
+    } catch (WaitTimeoutException ignored) {
+      // expected
+    }
+    assertThat("Timeout should have been reduced by global factor.", System.nanoTime() - startNanos, Matchers.lessThan(TimeUnit.SECONDS.toNanos(30L)));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.Clocks;
+import net.joala.time.Timeout;
+import net.joala.time.TimeoutImpl;
+import net.joala.time.VirtualClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests that waits time out in simulated time when using a {@link VirtualClock}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class VirtualClockWaitTest {
+  private static final Timeout TIMEOUT = new TimeoutImpl(1L, TimeUnit.HOURS);
+  private static final long MAX_REAL_NANOS = TimeUnit.SECONDS.toNanos(30L);
+
+  private VirtualClock clock;
+  private long startNanos;
+
+  @Before
+  public void setUp() throws Exception {
+    clock = Clocks.useVirtualClock();
+    startNanos = System.nanoTime();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Clocks.reset();
+  }
+
+  @Test
+  public void decelerating_wait_should_time_out_in_simulated_time() throws Exception {
+    try {
+      new DeceleratingWait(TIMEOUT).until("value", Functions.constant(false), is(true));
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException ignored) {
+      // expected
+    }
+    assertTimedOutInSimulatedTime();
+  }
+
+  @Test
+  public void low_latency_wait_should_time_out_in_simulated_time() throws Exception {
+    try {
+      new LowLatencyWait(TIMEOUT).until("value", Functions.constant(false), is(true));
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException ignored) {
+      // expected
+    }
+    assertTimedOutInSimulatedTime();
+  }
+
+  @Test
+  public void async_wait_should_time_out_in_simulated_time() throws Exception {
+    try {
+      new AsyncDeceleratingWait(TIMEOUT).untilAsync("value", Functions.constant(false), is(true)).get(30L, TimeUnit.SECONDS);
+      fail("Wait should have timed out.");
+    } catch (ExecutionException e) {
+      assertThat("Wait should have timed out.", e.getCause(), instanceOf(WaitTimeoutException.class));
+    }
+    assertTimedOutInSimulatedTime();
+  }
+
+  private void assertTimedOutInSimulatedTime() {
+    assertThat("Simulated time should have reached the timeout.", clock.nowNanos(), greaterThanOrEqualTo(TIMEOUT.in(TimeUnit.NANOSECONDS)));
+    assertThat("Wait should have taken no real time.", System.nanoTime() - startNanos, lessThan(MAX_REAL_NANOS));
+  }
+}
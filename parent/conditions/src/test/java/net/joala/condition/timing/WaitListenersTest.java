@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Tests {@link WaitListeners}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class WaitListenersTest {
+  @Test
+  public void failing_listener_should_not_fail_wait() throws Exception {
+    final WaitListener listener = new WaitListener() {
+      @Override
+      public void waitStarted(@Nonnull final String description, final long timeoutMillis) {
+        throw new IllegalStateException("Listener failed on start.");
+      }
+
+      @Override
+      public void evaluated(@Nonnull final String description, final long durationNanos, final boolean matched) {
+        throw new IllegalStateException("Listener failed on evaluation.");
+      }
+
+      @Override
+      public void waitSucceeded(@Nonnull final String description, final long consumedMillis, final int evaluations) {
+        throw new IllegalStateException("Listener failed on success.");
+      }
+    };
+    final String result = new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).withWaitListener(listener)
+            .until("value", Functions.<String>identity());
+    assertEquals("Wait should have succeeded despite the failing listener.", "value", result);
+  }
+}
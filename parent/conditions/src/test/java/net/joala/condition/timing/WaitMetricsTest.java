@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.hamcrest.Description;
+import org.hamcrest.SelfDescribing;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.anything;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link WaitMetrics}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class WaitMetricsTest {
+  @Test
+  public void should_count_successful_wait() throws Exception {
+    final WaitMetrics metrics = new WaitMetrics();
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).withWaitListener(metrics)
+            .until("value", Functions.<String>identity());
+    final List<WaitStatistics> statistics = metrics.getStatistics();
+    assertEquals("One wait should have been recorded.", 1, statistics.size());
+    assertEquals("Wait should be described by its input.", "value", statistics.get(0).getDescription());
+    assertEquals("One wait should have been counted.", 1L, statistics.get(0).getWaits());
+    assertEquals("No failure should have been counted.", 0L, statistics.get(0).getFailures());
+    assertEquals("One evaluation should have been counted.", 1L, statistics.get(0).getEvaluations());
+  }
+
+  @Test
+  public void self_describing_input_should_be_described_by_its_description() throws Exception {
+    final WaitMetrics metrics = new WaitMetrics();
+    final SelfDescribing input = new SelfDescribing() {
+      @Override
+      public void describeTo(final Description description) {
+        description.appendText("some expression");
+      }
+    };
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).withWaitListener(metrics)
+            .until(input, Functions.<SelfDescribing>identity());
+    assertEquals("Wait should be described by the description of its input.", "some expression",
+            metrics.getStatistics().get(0).getDescription());
+  }
+
+  @Test
+  public void should_count_failed_wait() throws Exception {
+    final WaitMetrics metrics = new WaitMetrics();
+    try {
+      new DeceleratingWait(new TimeoutImpl(20L, TimeUnit.MILLISECONDS)).withWaitListener(metrics)
+              .until("value", Functions.<String>identity(), not(anything()));
+      fail("WaitTimeoutException should have been thrown.");
+    } catch (WaitTimeoutException ignored) {
+      final WaitStatistics statistics = metrics.getStatistics().get(0);
+      assertEquals("Failure should have been counted.", 1L, statistics.getFailures());
+      assertEquals("Evaluations should have been counted.", true, statistics.getEvaluations() > 1L);
+    }
+  }
+
+  @Test
+  public void writeReport_should_contain_descriptions() throws Exception {
+    final WaitMetrics metrics = new WaitMetrics();
+    metrics.waitStarted("some expression", 100L);
+    metrics.evaluated("some expression", 1000L, true);
+    metrics.waitSucceeded("some expression", 5L, 1);
+    final StringBuilder report = new StringBuilder();
+    metrics.writeReport(report);
+    assertThat(report.toString(), containsString("some expression"));
+  }
+
+  @Test
+  public void reset_should_forget_statistics() throws Exception {
+    final WaitMetrics metrics = new WaitMetrics();
+    metrics.waitStarted("some expression", 100L);
+    metrics.reset();
+    assertEquals("Statistics should have been forgotten.", 0, metrics.getStatistics().size());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new WaitMetrics()).run();
+  }
+}
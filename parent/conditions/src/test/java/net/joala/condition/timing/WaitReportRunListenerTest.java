@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Functions;
+import net.joala.time.TimeoutImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * <p>
+ * Tests {@link WaitReportRunListener}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class WaitReportRunListenerTest {
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_report_waits_during_test_run() throws Exception {
+    final File reportFile = temporaryFolder.newFile("wait-report.txt");
+    final WaitReportRunListener listener = new WaitReportRunListener(reportFile);
+    listener.testRunStarted(Description.EMPTY);
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).until("reported value", Functions.<String>identity());
+    listener.testRunFinished(new Result());
+    final String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+    assertThat(report, containsString("reported value"));
+  }
+
+  @Test
+  public void should_not_record_waits_after_test_run() throws Exception {
+    final WaitReportRunListener listener = new WaitReportRunListener(temporaryFolder.newFile("wait-report.txt"));
+    listener.testRunStarted(Description.EMPTY);
+    listener.testRunFinished(new Result());
+    new DeceleratingWait(new TimeoutImpl(1L, TimeUnit.MINUTES)).until("value", Functions.<String>identity());
+    assertEquals("No wait should have been recorded.", 0, listener.getMetrics().getStatistics().size());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new WaitReportRunListener(null)).run();
+  }
+}
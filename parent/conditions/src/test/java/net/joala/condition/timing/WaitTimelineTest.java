@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.condition.timing;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Strings;
+import net.joala.condition.WaitAssertionFailStrategy;
+import net.joala.time.TimeoutImpl;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link WaitTimeline}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class WaitTimelineTest {
+  @Test
+  public void should_keep_most_recent_polls() throws Exception {
+    final WaitTimelineRecorder recorder = new WaitTimelineRecorder();
+    final int polls = WaitTimeline.CAPACITY + 8;
+    for (int i = 0; i < polls; i++) {
+      recorder.record(i, 1L, i, false);
+    }
+    final WaitTimeline timeline = recorder.toTimeline();
+    final List<WaitTimeline.Entry> entries = timeline.getEntries();
+    assertEquals("All polls should have been counted.", polls, timeline.getRecordedPolls());
+    assertEquals("Only capacity polls should have been kept.", WaitTimeline.CAPACITY, entries.size());
+    assertEquals("Oldest kept poll should come first.", 8L, entries.get(0).getOffsetNanos());
+    assertEquals("Newest poll should come last.", String.valueOf(polls - 1), entries.get(entries.size() - 1).getSummary());
+    assertThat("Dropped polls should have been mentioned.", timeline.toString(), containsString("8 earlier polls"));
+  }
+
+  @Test
+  public void should_summarize_cause_of_ignorable_exception() throws Exception {
+    final WaitTimelineRecorder recorder = new WaitTimelineRecorder();
+    recorder.record(0L, 1L, new IgnorableStateQueryException(Functions.identity(), new IllegalStateException("not yet")), true);
+    final WaitTimeline.Entry entry = recorder.toTimeline().getEntries().get(0);
+    assertTrue("Exception should have been recorded.", entry.isException());
+    assertEquals("Cause should have been summarized.", "IllegalStateException: not yet", entry.getSummary());
+  }
+
+  @Test
+  public void should_truncate_long_summaries() throws Exception {
+    final WaitTimelineRecorder recorder = new WaitTimelineRecorder();
+    recorder.record(0L, 1L, Strings.repeat("x", 1000), false);
+    assertThat("Summary should have been truncated.", recorder.toTimeline().getEntries().get(0).getSummary().length(), lessThan(1000));
+  }
+
+  @Test
+  public void should_keep_summaries_once_summarized() throws Exception {
+    final WaitTimelineRecorder recorder = new WaitTimelineRecorder();
+    final StringBuilder value = new StringBuilder("returned");
+    recorder.record(0L, 1L, value, false);
+    final WaitTimeline timeline = recorder.toTimeline();
+    value.append(" and changed");
+    recorder.clear();
+    assertEquals("Value should have been summarized when the timeline got created.", "returned", timeline.getEntries().get(0).getSummary());
+  }
+
+  @Test
+  public void clear_should_drop_recorded_polls() throws Exception {
+    final WaitTimelineRecorder recorder = new WaitTimelineRecorder();
+    recorder.record(0L, 1L, "value", false);
+    recorder.clear();
+    assertEquals("Polls should have been dropped.", 0, recorder.getRecordedPolls());
+    assertTrue("No polls should have been kept.", recorder.toTimeline().getEntries().isEmpty());
+  }
+
+  @Test
+  public void failed_wait_should_attach_timeline() throws Exception {
+    final Function<String, String> stateQuery = new Function<String, String>() {
+      @Override
+      public String apply(@Nullable final String input) {
+        return "state of " + input;
+      }
+    };
+    try {
+      new DeceleratingWait(new TimeoutImpl(100L, TimeUnit.MILLISECONDS)).until("value", stateQuery, is("other"));
+      fail("Wait should have timed out.");
+    } catch (WaitTimeoutException e) {
+      final WaitTimeline timeline = e.getTimeline();
+      assertNotNull("Timeline should have been attached.", timeline);
+      assertThat("Polls should have been recorded.", timeline.getRecordedPolls(), greaterThan(0));
+      assertEquals("Returned value should have been recorded.", "state of value", timeline.getEntries().get(0).getSummary());
+      assertThat("Timeline should be part of message.", e.getMessage(), containsString("returned: state of value"));
+    }
+  }
+
+  @Test
+  public void failed_assertion_should_attach_timeline() throws Exception {
+    try {
+      new DeceleratingWait(new TimeoutImpl(100L, TimeUnit.MILLISECONDS), new WaitAssertionFailStrategy())
+              .until("value", Functions.<String>identity(), is("other"));
+      fail("Assertion should have failed.");
+    } catch (AssertionError e) {
+      assertEquals("Timeline should have been attached.", 1, e.getSuppressed().length);
+      assertThat("Timeline should have been attached.", e.getSuppressed()[0], instanceOf(WaitTimelineException.class));
+      final WaitTimeline timeline = ((WaitTimelineException) e.getSuppressed()[0]).getTimeline();
+      assertEquals("Returned value should have been recorded.", "value", timeline.getEntries().get(0).getSummary());
+      assertThat("Timeline should be part of message.", e.getSuppressed()[0].getMessage(), containsString("returned: value"));
+    }
+  }
+}
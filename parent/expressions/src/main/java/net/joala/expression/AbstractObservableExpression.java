@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Convenience abstract implementation of {@link ObservableExpression}. Sources of changes just need
+ * to call {@link #fireChanged()} or register a {@link CompletionStage} via {@link #fireChangedOn(CompletionStage)}.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @since 1.3.0
+ */
+public abstract class AbstractObservableExpression<T> extends AbstractExpression<T> implements ObservableExpression<T> {
+  @Nonnull
+  private final List<ExpressionChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  protected AbstractObservableExpression() {
+  }
+
+  /**
+   * <p>
+   * Constructor with a simple description.
+   * </p>
+   *
+   * @param simpleDescription description to add; {@code null} if this object shall not provide any description
+   */
+  protected AbstractObservableExpression(@Nullable final String simpleDescription) {
+    super(simpleDescription);
+  }
+
+  @Override
+  public void addChangeListener(@Nonnull final ExpressionChangeListener listener) {
+    checkNotNull(listener, "Listener must not be null.");
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeChangeListener(@Nonnull final ExpressionChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Notify all listeners that the value of this expression might have changed.
+   */
+  public void fireChanged() {
+    for (final ExpressionChangeListener listener : listeners) {
+      listener.expressionChanged();
+    }
+  }
+
+  /**
+   * Notify all listeners as soon as the given stage completes, either normally or exceptionally.
+   *
+   * @param stage stage to observe
+   */
+  public void fireChangedOn(@Nonnull final CompletionStage<?> stage) {
+    checkNotNull(stage, "Stage must not be null.");
+    stage.whenComplete((result, failure) -> fireChanged());
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("super", super.toString())
+            .add("listeners", listeners)
+            .toString();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>
+ * An expression for sources which deliver their value asynchronously. Asynchronous conditions
+ * request the next value only after the stage of the previous evaluation completed, and they do
+ * not hold a thread while the stage is pending.
+ * </p>
+ * <p>
+ * A stage which completes exceptionally with {@link ExpressionEvaluationException} is treated
+ * like a volatile failure of {@link #get()}, i.&nbsp;e. the expression gets evaluated again.
+ * Blocking clients fall back to {@link #get()} which waits for the stage.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @see AsyncExpressions
+ * @since 1.3.0
+ */
+public interface AsyncExpression<T> extends Expression<T> {
+  /**
+   * Start the retrieval of the result of the expression.
+   *
+   * @return stage which completes with the expression result
+   * @throws ExpressionEvaluationException when the retrieval cannot (yet) be started, but this failure is
+   *                                       "volatile", i.&nbsp;e. it is expected to vanish later
+   */
+  @Nonnull
+  CompletionStage<T> getAsync();
+
+  /**
+   * Retrieve the result of the expression by waiting for the stage returned by {@link #getAsync()}.
+   *
+   * @return expression result
+   * @throws ExpressionEvaluationException when the stage completed with a volatile failure or waiting
+   *                                       for the stage got interrupted
+   */
+  @Override
+  @Nullable
+  default T get() {
+    return AsyncExpressions.join(getAsync());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import net.joala.time.Deadline;
+import org.hamcrest.Description;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Adapters between synchronous {@link Expression expressions} and {@link AsyncExpression asynchronous
+ * expressions}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class AsyncExpressions {
+  private AsyncExpressions() {
+  }
+
+  /**
+   * <p>
+   * Adapt a synchronous expression by evaluating it on the given executor. Use it to keep blocking
+   * expressions off the threads which drive asynchronous waits.
+   * </p>
+   *
+   * @param expression the expression to evaluate
+   * @param executor   the executor to evaluate the expression on
+   * @param <T>        the result type of the expression
+   * @return asynchronous expression
+   */
+  @Nonnull
+  public static <T> AsyncExpression<T> async(@Nonnull final Expression<T> expression, @Nonnull final Executor executor) {
+    checkNotNull(expression, "Expression must not be null.");
+    checkNotNull(executor, "Executor must not be null.");
+    return new ExecutorAsyncExpression<>(expression, executor);
+  }
+
+  /**
+   * <p>
+   * Adapt an asynchronous expression to a synchronous one which waits for each stage. Conditions then
+   * poll the expression like any other expression.
+   * </p>
+   *
+   * @param expression the expression to evaluate
+   * @param <T>        the result type of the expression
+   * @return synchronous expression
+   */
+  @Nonnull
+  public static <T> Expression<T> blocking(@Nonnull final AsyncExpression<T> expression) {
+    checkNotNull(expression, "Expression must not be null.");
+    return new BlockingExpression<>(expression);
+  }
+
+  /**
+   * Wait for the result of the given stage, but not beyond the {@link Deadline#current() current deadline}.
+   * Stages are not required to support {@link CompletionStage#toCompletableFuture()}, thus their completion
+   * is tracked by a callback.
+   *
+   * @param stage stage to wait for
+   * @param <T>   the result type of the stage
+   * @return result of the stage
+   * @throws ExpressionEvaluationException if the stage completed with such a failure, did not complete
+   *                                       before the deadline or waiting got interrupted
+   */
+  @Nullable
+  static <T> T join(@Nonnull final CompletionStage<T> stage) {
+    checkNotNull(stage, "Stage must not be null.");
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    stage.whenComplete((result, failure) -> {
+      if (failure == null) {
+        future.complete(result);
+      } else {
+        future.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+      }
+    });
+    try {
+      return future.get(Deadline.clamp(Long.MAX_VALUE, TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new ExpressionEvaluationException("Stage did not complete before the deadline.", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExpressionEvaluationException("Interrupted while waiting for stage.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new UncheckedExecutionException(cause);
+    }
+  }
+
+  private static final class ExecutorAsyncExpression<T> implements AsyncExpression<T> {
+    @Nonnull
+    private final Expression<T> expression;
+    @Nonnull
+    private final Executor executor;
+
+    private ExecutorAsyncExpression(@Nonnull final Expression<T> expression, @Nonnull final Executor executor) {
+      this.expression = expression;
+      this.executor = executor;
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<T> getAsync() {
+      return CompletableFuture.supplyAsync(expression::get, executor);
+    }
+
+    @Nullable
+    @Override
+    public T get() {
+      return expression.get();
+    }
+
+    @Override
+    public void describeTo(@Nonnull final Description description) {
+      expression.describeTo(description);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("expression", expression)
+              .add("executor", executor)
+              .toString();
+    }
+  }
+
+  private static final class BlockingExpression<T> implements Expression<T> {
+    @Nonnull
+    private final AsyncExpression<T> expression;
+
+    private BlockingExpression(@Nonnull final AsyncExpression<T> expression) {
+      this.expression = expression;
+    }
+
+    @Nullable
+    @Override
+    public T get() {
+      return join(expression.getAsync());
+    }
+
+    @Override
+    public void describeTo(@Nonnull final Description description) {
+      expression.describeTo(description);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("expression", expression)
+              .toString();
+    }
+  }
+}
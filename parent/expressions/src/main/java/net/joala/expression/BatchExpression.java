@@ -0,0 +1,345 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import net.joala.time.Clocks;
+import org.hamcrest.Description;
+import org.hamcrest.SelfDescribing;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Expression which fetches many values in one call, for example all properties of one REST resource,
+ * and feeds them to derived per-key expressions. Conditions on 30 properties then cause one fetch per
+ * poll round instead of 30:
+ * </p>
+ * <pre>{@code
+ * final BatchExpression<String, String> job = new BatchExpression<>(fetchJob, 100L, TimeUnit.MILLISECONDS);
+ * conditionFactory.condition(job.forKey("state")).waitUntilEquals("DONE");
+ * }</pre>
+ * <p>
+ * Rules for reusing a fetch:
+ * </p>
+ * <ul>
+ * <li><strong>coalescing window:</strong> all evaluations within the window after a fetch share its
+ * result; concurrent evaluations wait for one fetch; built from a {@link CachingExpression} and a
+ * {@link CoalescingExpression},</li>
+ * <li><strong>staleness:</strong> if a fetch fails with an {@link ExpressionEvaluationException}, the
+ * values of the last successful fetch are still returned as long as they are not older than the
+ * maximum staleness; by default failures are not hidden,</li>
+ * <li><strong>missing keys:</strong> a derived expression fails with an
+ * {@link ExpressionEvaluationException} if the fetch did not return a value for its key.</li>
+ * </ul>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @since 1.3.0
+ */
+public class BatchExpression<K, V> extends AbstractExpression<Map<K, V>> {
+  @Nonnull
+  private final Function<? super Set<K>, ? extends Map<K, ? extends V>> fetch;
+  @Nonnegative
+  private final long coalescingWindowNanos;
+  @Nonnegative
+  private volatile long maxStalenessNanos;
+  /**
+   * Keys of all derived expressions.
+   */
+  private final Set<K> keys = ConcurrentHashMap.newKeySet();
+  /**
+   * Shares fetches and their failures within the coalescing window.
+   */
+  @Nonnull
+  private final CachingExpression<Map<K, V>> cache;
+  /**
+   * Lets concurrent evaluations wait for one fetch, even without coalescing window.
+   */
+  @Nonnull
+  private final Expression<Map<K, V>> values;
+  @Nullable
+  private volatile Snapshot<K, V> lastFetched;
+
+  /**
+   * @param fetch            expression returning all values at once
+   * @param coalescingWindow how long to share a fetch
+   * @param unit             unit of the window
+   */
+  public BatchExpression(@Nonnull final Expression<? extends Map<K, ? extends V>> fetch,
+                         @Nonnegative final long coalescingWindow,
+                         @Nonnull final TimeUnit unit) {
+    this(new ExpressionFetch<>(checkNotNull(fetch, "Fetch must not be null.")), coalescingWindow, unit);
+  }
+
+  /**
+   * @param fetch            function fetching the values for the given keys, which are the keys of all
+   *                         derived expressions; signals failure by {@link ExpressionEvaluationException};
+   *                         used for the description if it is {@link SelfDescribing}
+   * @param coalescingWindow how long to share a fetch
+   * @param unit             unit of the window
+   */
+  public BatchExpression(@Nonnull final Function<? super Set<K>, ? extends Map<K, ? extends V>> fetch,
+                         @Nonnegative final long coalescingWindow,
+                         @Nonnull final TimeUnit unit) {
+    checkNotNull(fetch, "Fetch must not be null.");
+    checkNotNull(unit, "Unit must not be null.");
+    checkArgument(coalescingWindow >= 0L, "Coalescing window must not be negative: %s", coalescingWindow);
+    this.fetch = fetch;
+    coalescingWindowNanos = unit.toNanos(coalescingWindow);
+    cache = new CachingExpression<Map<K, V>>(new FetchExpression(), coalescingWindowNanos, TimeUnit.NANOSECONDS) {
+      @Override
+      protected long nowNanos() {
+        return BatchExpression.this.nowNanos();
+      }
+    };
+    values = new CoalescingExpression<>(cache);
+  }
+
+  /**
+   * Return the values of the last successful fetch while fetching fails, as long as they are not
+   * older than the given maximum staleness.
+   *
+   * @param maxStaleness how old values may be at most; 0 to not hide failures
+   * @param unit         unit of the staleness
+   * @return self-reference
+   */
+  @Nonnull
+  public BatchExpression<K, V> withMaxStaleness(@Nonnegative final long maxStaleness, @Nonnull final TimeUnit unit) {
+    checkArgument(maxStaleness >= 0L, "Maximum staleness must not be negative: %s", maxStaleness);
+    maxStalenessNanos = unit.toNanos(maxStaleness);
+    return this;
+  }
+
+  /**
+   * Derive an expression for the value of the given key.
+   *
+   * @param key key of the value
+   * @return expression for the value
+   */
+  @Nonnull
+  public Expression<V> forKey(@Nonnull final K key) {
+    checkNotNull(key, "Key must not be null.");
+    keys.add(key);
+    return new KeyExpression<>(this, key);
+  }
+
+  /**
+   * Retrieve the values of the current fetch or fetch them if the coalescing window passed.
+   *
+   * @return values by key
+   * @throws ExpressionEvaluationException if fetching failed and no values within the maximum staleness exist
+   */
+  @Override
+  @Nonnull
+  public Map<K, V> get() {
+    try {
+      return values.get();
+    } catch (ExpressionEvaluationException e) {
+      final Snapshot<K, V> last = lastFetched;
+      if (last != null && nowNanos() - last.fetchedAtNanos <= maxStalenessNanos) {
+        return last.values;
+      }
+      // Throw a new exception, so that the stack trace shows the current caller.
+      throw new ExpressionEvaluationException("Fetching batch failed: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Forget the fetched values, so that the next evaluation fetches again.
+   */
+  public void invalidate() {
+    cache.invalidate();
+  }
+
+  /**
+   * Monotonic time in nanoseconds of the clock in use, which may be a {@link net.joala.time.VirtualClock}.
+   * Overwrite for tests.
+   *
+   * @return monotonic time
+   */
+  @VisibleForTesting
+  protected long nowNanos() {
+    return Clocks.getClock().nowNanos();
+  }
+
+  @Override
+  public void describeTo(@Nonnull final Description description) {
+    if (fetch instanceof SelfDescribing) {
+      ((SelfDescribing) fetch).describeTo(description);
+    } else {
+      description.appendText("batch of ").appendValue(keys);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("super", super.toString())
+            .add("fetch", fetch)
+            .add("coalescingWindowNanos", coalescingWindowNanos)
+            .add("maxStalenessNanos", maxStalenessNanos)
+            .add("keys", keys)
+            .add("cache", cache)
+            .add("values", values)
+            .add("lastFetched", lastFetched)
+            .toString();
+  }
+
+  /**
+   * Fetches the values of all keys and remembers them for serving stale values.
+   */
+  private final class FetchExpression extends AbstractExpression<Map<K, V>> {
+    @Override
+    @Nonnull
+    public Map<K, V> get() {
+      final long fetchNanos = nowNanos();
+      final Map<K, ? extends V> fetched = fetch.apply(ImmutableSet.copyOf(keys));
+      checkNotNull(fetched, "Fetch must not return null.");
+      final Map<K, V> result = Collections.unmodifiableMap(new HashMap<K, V>(fetched));
+      lastFetched = new Snapshot<>(result, fetchNanos);
+      return result;
+    }
+
+    @Override
+    public void describeTo(@Nonnull final Description description) {
+      BatchExpression.this.describeTo(description);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("fetch", fetch)
+              .toString();
+    }
+  }
+
+  /**
+   * The values of a successful fetch.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  private static final class Snapshot<K, V> {
+    @Nonnull
+    private final Map<K, V> values;
+    private final long fetchedAtNanos;
+
+    private Snapshot(@Nonnull final Map<K, V> values, final long fetchedAtNanos) {
+      this.values = values;
+      this.fetchedAtNanos = fetchedAtNanos;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("values", values)
+              .add("fetchedAtNanos", fetchedAtNanos)
+              .toString();
+    }
+  }
+
+  /**
+   * Fetch which evaluates an expression returning all values.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  private static final class ExpressionFetch<K, V> implements Function<Set<K>, Map<K, ? extends V>>, SelfDescribing {
+    @Nonnull
+    private final Expression<? extends Map<K, ? extends V>> expression;
+
+    private ExpressionFetch(@Nonnull final Expression<? extends Map<K, ? extends V>> expression) {
+      this.expression = expression;
+    }
+
+    @Override
+    public Map<K, ? extends V> apply(@Nullable final Set<K> input) {
+      return expression.get();
+    }
+
+    @Override
+    public void describeTo(@Nonnull final Description description) {
+      expression.describeTo(description);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("expression", expression)
+              .toString();
+    }
+  }
+
+  /**
+   * Expression for the value of one key of a batch.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  private static final class KeyExpression<K, V> extends AbstractExpression<V> {
+    @Nonnull
+    private final BatchExpression<K, V> batchExpression;
+    @Nonnull
+    private final K key;
+
+    private KeyExpression(@Nonnull final BatchExpression<K, V> batchExpression, @Nonnull final K key) {
+      this.batchExpression = batchExpression;
+      this.key = key;
+    }
+
+    @Override
+    @Nullable
+    public V get() {
+      final Map<K, V> values = batchExpression.get();
+      if (!values.containsKey(key)) {
+        throw new ExpressionEvaluationException("No value fetched for key " + key + ".");
+      }
+      return values.get(key);
+    }
+
+    @Override
+    public void describeTo(@Nonnull final Description description) {
+      description.appendText("value of ").appendValue(key).appendText(" from ");
+      batchExpression.describeTo(description);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("super", super.toString())
+              .add("key", key)
+              .toString();
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import net.joala.time.Clocks;
+import org.hamcrest.Description;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Decorator which caches the result of an expensive expression, such as an HTTP call or a database
+ * query, for a given time to live. Several conditions sharing one caching expression cause only one
+ * evaluation of the wrapped expression per time to live, even if they evaluate concurrently.
+ * </p>
+ * <p>
+ * Failures with {@link ExpressionEvaluationException} are cached as well (negative caching), by default
+ * for the same time to live. Other exceptions are not cached. Use {@link #invalidate()} to force the
+ * next evaluation, for example after triggering a change of the state.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @since 1.3.0
+ */
+public class CachingExpression<T> extends AbstractExpression<T> {
+  @Nonnull
+  private final Expression<T> delegate;
+  @Nonnegative
+  private final long ttlNanos;
+  @Nonnegative
+  private final long negativeTtlNanos;
+  private final Object lock = new Object();
+  /**
+   * Incremented on each invalidation; entries of earlier generations are not used anymore, even if their
+   * evaluation was still in flight when invalidating.
+   */
+  private final AtomicLong generation = new AtomicLong();
+  @Nullable
+  private volatile Entry<T> entry;
+
+  /**
+   * @param delegate the expression to cache the results of
+   * @param ttl      how long to cache results and failures
+   * @param unit     unit of the time to live
+   */
+  public CachingExpression(@Nonnull final Expression<T> delegate, @Nonnegative final long ttl, @Nonnull final TimeUnit unit) {
+    this(delegate, ttl, ttl, unit);
+  }
+
+  /**
+   * @param delegate    the expression to cache the results of
+   * @param ttl         how long to cache results
+   * @param negativeTtl how long to cache failures; 0 to not cache failures
+   * @param unit        unit of the times to live
+   */
+  public CachingExpression(@Nonnull final Expression<T> delegate,
+                           @Nonnegative final long ttl,
+                           @Nonnegative final long negativeTtl,
+                           @Nonnull final TimeUnit unit) {
+    checkNotNull(delegate, "Delegate must not be null.");
+    checkNotNull(unit, "Unit must not be null.");
+    checkArgument(ttl >= 0L, "Time to live must not be negative: %s", ttl);
+    checkArgument(negativeTtl >= 0L, "Negative time to live must not be negative: %s", negativeTtl);
+    this.delegate = delegate;
+    ttlNanos = unit.toNanos(ttl);
+    negativeTtlNanos = unit.toNanos(negativeTtl);
+  }
+
+  /**
+   * Retrieve the cached result or evaluate the wrapped expression if the cached one expired. Concurrent
+   * callers wait for one evaluation and share its result.
+   *
+   * @return result of the wrapped expression
+   * @throws ExpressionEvaluationException if the wrapped expression failed (now or within the negative time to live)
+   */
+  @Override
+  @Nullable
+  public T get() {
+    Entry<T> current = entry;
+    if (!isValid(current)) {
+      synchronized (lock) {
+        current = entry;
+        if (!isValid(current)) {
+          current = evaluate(generation.get());
+          entry = current;
+        }
+      }
+    }
+    return current.get();
+  }
+
+  /**
+   * Forget the cached result, so that the next call to {@link #get()} evaluates the wrapped expression.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+    entry = null;
+  }
+
+  private boolean isValid(@Nullable final Entry<T> candidate) {
+    return candidate != null && candidate.generation == generation.get() && !candidate.isExpired(nowNanos());
+  }
+
+  @Nonnull
+  private Entry<T> evaluate(final long evaluatedGeneration) {
+    try {
+      final T value = delegate.get();
+      return new Entry<>(value, null, nowNanos() + ttlNanos, evaluatedGeneration);
+    } catch (ExpressionEvaluationException e) {
+      if (negativeTtlNanos == 0L) {
+        throw e;
+      }
+      return new Entry<>(null, e, nowNanos() + negativeTtlNanos, evaluatedGeneration);
+    }
+  }
+
+  /**
+   * Monotonic time in nanoseconds of the clock in use, which may be a {@link net.joala.time.VirtualClock}.
+   * Overwrite for tests.
+   *
+   * @return monotonic time
+   */
+  @VisibleForTesting
+  protected long nowNanos() {
+    return Clocks.getClock().nowNanos();
+  }
+
+  @Override
+  public void describeTo(@Nonnull final Description description) {
+    delegate.describeTo(description);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("super", super.toString())
+            .add("delegate", delegate)
+            .add("ttlNanos", ttlNanos)
+            .add("negativeTtlNanos", negativeTtlNanos)
+            .add("generation", generation)
+            .add("entry", entry)
+            .toString();
+  }
+
+  /**
+   * A cached result or failure.
+   *
+   * @param <T> the result type of the expression
+   */
+  private static final class Entry<T> {
+    @Nullable
+    private final T value;
+    @Nullable
+    private final ExpressionEvaluationException failure;
+    private final long expiresAtNanos;
+    private final long generation;
+
+    private Entry(@Nullable final T value,
+                  @Nullable final ExpressionEvaluationException failure,
+                  final long expiresAtNanos,
+                  final long generation) {
+      this.value = value;
+      this.failure = failure;
+      this.expiresAtNanos = expiresAtNanos;
+      this.generation = generation;
+    }
+
+    private boolean isExpired(final long nowNanos) {
+      return nowNanos - expiresAtNanos >= 0L;
+    }
+
+    @Nullable
+    private T get() {
+      if (failure != null) {
+        // Rethrow a new exception, so that the stack trace shows the current caller.
+        throw new ExpressionEvaluationException("Cached failure: " + failure.getMessage(), failure);
+      }
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("value", value)
+              .add("failure", failure)
+              .add("expiresAtNanos", expiresAtNanos)
+              .add("generation", generation)
+              .toString();
+    }
+  }
+}
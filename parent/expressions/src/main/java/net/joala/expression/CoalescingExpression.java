@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+import org.hamcrest.Description;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Decorator which coalesces concurrent evaluations of the wrapped expression via {@link SingleFlight}.
+ * Waits polling in parallel then share one evaluation in flight instead of each calling the backend.
+ * </p>
+ * <p>
+ * By default evaluations are coalesced per wrapped expression instance. To coalesce equivalent
+ * expressions, for example several expressions requesting the same URI, provide a key describing
+ * the evaluation, such as the URI.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @since 1.3.0
+ */
+public class CoalescingExpression<T> extends AbstractExpression<T> {
+  @Nonnull
+  private final Expression<T> delegate;
+  @Nonnull
+  private final Object key;
+  @Nonnull
+  private final SingleFlight singleFlight;
+
+  /**
+   * Coalesce evaluations of the very same expression.
+   *
+   * @param delegate the expression to coalesce evaluations of
+   */
+  public CoalescingExpression(@Nonnull final Expression<T> delegate) {
+    this(delegate, SingleFlight.identityKey(delegate));
+  }
+
+  /**
+   * Coalesce evaluations of all expressions with an equal key.
+   *
+   * @param delegate the expression to coalesce evaluations of
+   * @param key      key identifying equivalent evaluations
+   */
+  public CoalescingExpression(@Nonnull final Expression<T> delegate, @Nonnull final Object key) {
+    this(delegate, key, SingleFlight.shared());
+  }
+
+  /**
+   * @param delegate     the expression to coalesce evaluations of
+   * @param key          key identifying equivalent evaluations
+   * @param singleFlight where to coordinate evaluations in flight
+   */
+  public CoalescingExpression(@Nonnull final Expression<T> delegate, @Nonnull final Object key, @Nonnull final SingleFlight singleFlight) {
+    checkNotNull(delegate, "Delegate must not be null.");
+    checkNotNull(key, "Key must not be null.");
+    checkNotNull(singleFlight, "Single flight must not be null.");
+    this.delegate = delegate;
+    this.key = key;
+    this.singleFlight = singleFlight;
+  }
+
+  @Override
+  @Nullable
+  public T get() {
+    return singleFlight.evaluate(key, delegate);
+  }
+
+  @Override
+  public void describeTo(@Nonnull final Description description) {
+    delegate.describeTo(description);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("super", super.toString())
+            .add("delegate", delegate)
+            .add("key", key)
+            .add("singleFlight", singleFlight)
+            .toString();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Observable expression evaluating to the result of a {@link CompletionStage}. While the stage has
+ * not completed yet, the expression fails with {@link ExpressionEvaluationException}. Conditions
+ * waiting for this expression get notified as soon as the stage completes.
+ * </p>
+ *
+ * @param <T> the result type of the stage
+ * @since 1.3.0
+ */
+public class CompletionStageExpression<T> extends AbstractObservableExpression<T> {
+  @Nonnull
+  private final CompletableFuture<T> future;
+
+  public CompletionStageExpression(@Nonnull final CompletionStage<T> stage) {
+    this(stage, null);
+  }
+
+  /**
+   * @param stage             the stage to get the result from
+   * @param simpleDescription description to add; {@code null} if this object shall not provide any description
+   */
+  public CompletionStageExpression(@Nonnull final CompletionStage<T> stage, @Nullable final String simpleDescription) {
+    super(simpleDescription);
+    checkNotNull(stage, "Stage must not be null.");
+    // stages are not required to support toCompletableFuture(), thus track completion by a callback
+    future = new CompletableFuture<>();
+    stage.whenComplete((result, failure) -> {
+      if (failure == null) {
+        future.complete(result);
+      } else {
+        future.completeExceptionally(failure);
+      }
+    });
+    fireChangedOn(future);
+  }
+
+  /**
+   * Retrieve the result of the stage.
+   *
+   * @return result of the stage
+   * @throws ExpressionEvaluationException if the stage did not complete yet or completed exceptionally
+   */
+  @Override
+  @Nullable
+  public T get() {
+    if (!future.isDone()) {
+      throw new ExpressionEvaluationException("Stage not completed yet.");
+    }
+    try {
+      return future.join();
+    } catch (CompletionException | CancellationException e) {
+      throw new ExpressionEvaluationException("Stage completed exceptionally.", e.getCause() == null ? e : e.getCause());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("super", super.toString())
+            .add("future", future)
+            .toString();
+  }
+}
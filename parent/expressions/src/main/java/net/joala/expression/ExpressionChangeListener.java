@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+/**
+ * <p>
+ * Listener which gets informed when the value of an {@link ObservableExpression} might have changed.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public interface ExpressionChangeListener {
+  /**
+   * Signals that the value of the expression might have changed. Listeners must return quickly and
+   * must not evaluate the expression within this call as it is possibly called by the thread
+   * which is about to change the state.
+   */
+  void expressionChanged();
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.joala.time.Clocks;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Publisher emitting the values of an expression to reactive streams subscribers. The expression is
+ * polled in the given interval, but only while the subscriber signalled demand: a subscriber which
+ * stops requesting values also stops the polling, so slow consumers never pile up values and never
+ * cause load on the system under test.
+ * </p>
+ * <p>
+ * Each subscriber gets its own polling schedule on a shared scheduler. Polls which fail with
+ * {@link ExpressionEvaluationException} or evaluate to {@code null} are skipped as the state is just
+ * not available yet; any other exception terminates the subscription with {@code onError}. The
+ * stream never completes on its own, subscribers end it by cancelling their subscription.
+ * </p>
+ * <p>
+ * By default every poll result is emitted. With {@link #withOnlyChanges(boolean)} values equal to
+ * the previously emitted one are dropped without consuming demand.
+ * </p>
+ * <p>
+ * On Java 9 and later the publisher can be exposed as {@code java.util.concurrent.Flow.Publisher}
+ * via {@code org.reactivestreams.FlowAdapters}.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @since 1.3.0
+ */
+public class ExpressionPublisher<T> implements Publisher<T> {
+  @Nonnull
+  private final Expression<T> expression;
+  private final long intervalNanos;
+  @Nullable
+  private final ScheduledExecutorService scheduler;
+  private volatile boolean onlyChanges;
+
+  /**
+   * Publisher polling the expression on a shared pool of daemon threads.
+   *
+   * @param expression expression to poll
+   * @param interval   minimum time between two polls for one subscriber
+   * @param unit       unit of the interval
+   */
+  public ExpressionPublisher(@Nonnull final Expression<T> expression, final long interval, @Nonnull final TimeUnit unit) {
+    this(expression, interval, unit, null);
+  }
+
+  /**
+   * @param expression expression to poll
+   * @param interval   minimum time between two polls for one subscriber
+   * @param unit       unit of the interval
+   * @param scheduler  scheduler to poll on; {@code null} for the shared default scheduler
+   */
+  public ExpressionPublisher(@Nonnull final Expression<T> expression,
+                             final long interval,
+                             @Nonnull final TimeUnit unit,
+                             @Nullable final ScheduledExecutorService scheduler) {
+    checkNotNull(expression, "Expression must not be null.");
+    checkNotNull(unit, "Unit must not be null.");
+    checkArgument(interval >= 0, "Interval must not be negative.");
+    this.expression = expression;
+    intervalNanos = unit.toNanos(interval);
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Configure whether to emit only values which differ from the previously emitted one.
+   * Affects subscriptions created afterwards.
+   *
+   * @param onlyChanges {@code true} to drop repeated values
+   * @return self-reference
+   */
+  @Nonnull
+  public ExpressionPublisher<T> withOnlyChanges(final boolean onlyChanges) {
+    this.onlyChanges = onlyChanges;
+    return this;
+  }
+
+  @Override
+  public void subscribe(final Subscriber<? super T> subscriber) {
+    checkNotNull(subscriber, "Subscriber must not be null.");
+    final ScheduledExecutorService executor = scheduler == null ? SharedScheduler.INSTANCE : scheduler;
+    subscriber.onSubscribe(new PollingSubscription<>(expression, intervalNanos, onlyChanges, executor, subscriber));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("expression", expression)
+            .add("intervalNanos", intervalNanos)
+            .add("onlyChanges", onlyChanges)
+            .add("scheduler", scheduler)
+            .toString();
+  }
+
+  /**
+   * <p>
+   * Subscription polling the expression while there is outstanding demand. At most one poll is
+   * scheduled at any time, which serializes all signals to the subscriber.
+   * </p>
+   */
+  private static final class PollingSubscription<T> implements Subscription, Runnable {
+    private static final Object NONE = new Object();
+
+    private final Expression<T> expression;
+    private final long intervalNanos;
+    private final boolean onlyChanges;
+    private final ScheduledExecutorService executor;
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean cancelled;
+    @Nullable
+    private volatile Throwable pendingError;
+    /**
+     * Only accessed from within polls which never run concurrently.
+     */
+    private Object lastEmitted = NONE;
+    private volatile long lastPollNanos;
+    private volatile boolean polled;
+
+    private PollingSubscription(final Expression<T> expression,
+                                final long intervalNanos,
+                                final boolean onlyChanges,
+                                final ScheduledExecutorService executor,
+                                final Subscriber<? super T> subscriber) {
+      this.expression = expression;
+      this.intervalNanos = intervalNanos;
+      this.onlyChanges = onlyChanges;
+      this.executor = executor;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(final long n) {
+      if (cancelled) {
+        return;
+      }
+      if (n <= 0) {
+        // signalled from the poll thread to keep signals serial
+        pendingError = new IllegalArgumentException("Requested number of values must be positive but was " + n + '.');
+        scheduleIfIdle();
+        return;
+      }
+      long current;
+      long updated;
+      do {
+        current = demand.get();
+        updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+      } while (!demand.compareAndSet(current, updated));
+      scheduleIfIdle();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (cancelled) {
+          return;
+        }
+        final Throwable error = pendingError;
+        if (error != null) {
+          fail(error);
+          return;
+        }
+        poll();
+        lastPollNanos = Clocks.getClock().nowNanos();
+        polled = true;
+      } catch (Throwable e) { // NOSONAR: anything thrown by the expression or the subscriber ends the stream
+        fail(e);
+        return;
+      } finally {
+        scheduled.set(false);
+      }
+      scheduleIfIdle();
+    }
+
+    private void poll() {
+      final T value;
+      try {
+        value = expression.get();
+      } catch (ExpressionEvaluationException ignored) {
+        return;
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      if (value == null || cancelled || (onlyChanges && Objects.equals(lastEmitted, value))) {
+        return;
+      }
+      lastEmitted = value;
+      demand.decrementAndGet();
+      subscriber.onNext(value);
+    }
+
+    private void scheduleIfIdle() {
+      final boolean failing = pendingError != null;
+      if (cancelled || (demand.get() <= 0 && !failing) || !scheduled.compareAndSet(false, true)) {
+        return;
+      }
+      final long delayNanos = polled && !failing ? Math.max(0L, lastPollNanos + intervalNanos - Clocks.getClock().nowNanos()) : 0L;
+      try {
+        executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        fail(e);
+      }
+    }
+
+    private void fail(final Throwable e) {
+      if (!cancelled) {
+        cancelled = true;
+        subscriber.onError(e);
+      }
+    }
+  }
+
+  /**
+   * Lazily created scheduler shared by all publishers which do not provide their own.
+   */
+  private static final class SharedScheduler {
+    private static final ScheduledExecutorService INSTANCE = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+            new ThreadFactoryBuilder().setNameFormat("joala-publisher-%d").setDaemon(true).build());
+
+    private SharedScheduler() {
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>
+ * An expression which signals when its value might have changed. Conditions waiting for such
+ * expressions re-evaluate them as soon as they get notified instead of polling them
+ * repeatedly.
+ * </p>
+ * <p>
+ * Implementations must notify about every change. A change which is not signalled will not be
+ * detected until the waiting condition times out. It is recommended to extend
+ * {@link AbstractObservableExpression}.
+ * </p>
+ *
+ * @param <T> the result type of the expression
+ * @since 1.3.0
+ */
+public interface ObservableExpression<T> extends Expression<T> {
+  /**
+   * Register a listener to be notified on changes.
+   *
+   * @param listener listener to add
+   */
+  void addChangeListener(@Nonnull ExpressionChangeListener listener);
+
+  /**
+   * Remove a previously registered listener.
+   *
+   * @param listener listener to remove
+   */
+  void removeChangeListener(@Nonnull ExpressionChangeListener listener);
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import net.joala.time.Deadline;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Coalesces concurrent evaluations of expressions with the same key: only one evaluation per key is in
+ * flight at a time and its result is shared with every caller arriving during it. Thus the load on a
+ * backend stays bounded no matter how many waits poll it in parallel. Evaluations are not cached; a
+ * caller arriving after an evaluation finished starts a new one.
+ * </p>
+ * <p>
+ * Keys are compared by {@link Object#equals(Object)}. Use {@link #identityKey(Object)} to coalesce only
+ * evaluations of the very same object.
+ * </p>
+ * <p>
+ * Callers joining an evaluation in flight wait for it at most until the {@link Deadline#current() current
+ * deadline} and stop waiting when interrupted, so that a hanging evaluation does not hold all of them.
+ * </p>
+ *
+ * @see CoalescingExpression
+ * @since 1.3.0
+ */
+public final class SingleFlight {
+  private static final SingleFlight SHARED = new SingleFlight();
+
+  private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * The instance used by default; keys need to be unique across the whole JVM.
+   *
+   * @return shared instance
+   */
+  @Nonnull
+  public static SingleFlight shared() {
+    return SHARED;
+  }
+
+  /**
+   * Key which matches only the given object itself, regardless of its {@code equals} implementation.
+   *
+   * @param object the object to identify
+   * @return key for the object
+   */
+  @Nonnull
+  public static Object identityKey(@Nonnull final Object object) {
+    return new IdentityKey(object);
+  }
+
+  /**
+   * Evaluate the expression unless an evaluation with the same key is in flight, in which case its result
+   * is returned.
+   *
+   * @param key        key of the evaluation
+   * @param expression expression to evaluate
+   * @param <T>        the result type of the expression
+   * @return result of the evaluation
+   * @throws ExpressionEvaluationException if the evaluation failed, or waiting for the evaluation in flight
+   *                                       passed the deadline or got interrupted; in the latter case the
+   *                                       interrupt flag remains set
+   */
+  @Nullable
+  public <T> T evaluate(@Nonnull final Object key, @Nonnull final Expression<T> expression) {
+    checkNotNull(key, "Key must not be null.");
+    checkNotNull(expression, "Expression must not be null.");
+    final CompletableFuture<Object> flight = new CompletableFuture<>();
+    final CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+    if (running != null) {
+      return join(running);
+    }
+    try {
+      final T result = expression.get();
+      flight.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static <T> T join(@Nonnull final CompletableFuture<Object> running) {
+    try {
+      return (T) running.get(Deadline.clamp(Long.MAX_VALUE, TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new ExpressionEvaluationException("Evaluation in flight did not complete before the deadline.", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExpressionEvaluationException("Interrupted while waiting for evaluation in flight.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ExpressionEvaluationException) {
+        // Throw a new exception, so that the stack trace shows the current caller.
+        throw new ExpressionEvaluationException(cause.getMessage(), cause);
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new UncheckedExecutionException(cause);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("inFlight", inFlight)
+            .toString();
+  }
+
+  /**
+   * Key comparing the wrapped object by identity.
+   */
+  private static final class IdentityKey {
+    @Nonnull
+    private final Object object;
+
+    private IdentityKey(@Nonnull final Object object) {
+      checkNotNull(object, "Object must not be null.");
+      this.object = object;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return this == o || o instanceof IdentityKey && object == ((IdentityKey) o).object;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(object);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("object", object)
+              .toString();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import net.joala.time.Deadline;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link AsyncExpressions} and the blocking default of {@link AsyncExpression}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class AsyncExpressionsTest {
+  @Test
+  public void get_should_return_result_of_stage() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final AsyncExpression<String> expression = new StageExpression(future);
+    CompletableFuture.runAsync(() -> future.complete("result"));
+    assertEquals("Result of stage should be returned.", "result", expression.get());
+  }
+
+  @Test
+  public void get_should_rethrow_volatile_failure_of_stage() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ExpressionEvaluationException cause = new ExpressionEvaluationException("not yet");
+    future.completeExceptionally(cause);
+    try {
+      new StageExpression(future).get();
+      fail("Failure of stage should have been rethrown.");
+    } catch (ExpressionEvaluationException e) {
+      assertSame("Failure of stage should be rethrown.", cause, e);
+    }
+  }
+
+  @Test(expected = ExpressionEvaluationException.class)
+  public void get_should_not_wait_for_stage_beyond_deadline() throws Exception {
+    try (Deadline.Scope ignored = Deadline.after(20L, TimeUnit.MILLISECONDS).enter()) {
+      new StageExpression(new CompletableFuture<>()).get();
+    }
+  }
+
+  @Test
+  public void get_should_support_stages_without_future() throws Exception {
+    final CompletableFuture<String> stage = new StageWithoutFuture<>();
+    stage.complete("result");
+    assertEquals("Result of stage should be returned.", "result", new StageExpression(stage).get());
+  }
+
+  @Test
+  public void async_should_evaluate_expression_on_executor() throws Exception {
+    final AtomicInteger executions = new AtomicInteger();
+    final Executor executor = command -> {
+      executions.incrementAndGet();
+      command.run();
+    };
+    final AsyncExpression<String> expression = AsyncExpressions.async(new ConstantExpression("result"), executor);
+    assertEquals("Result of expression should be returned.", "result", expression.getAsync().toCompletableFuture().get());
+    assertEquals("Expression should have been evaluated on executor.", 1, executions.get());
+  }
+
+  @Test
+  public void blocking_should_wait_for_stage() throws Exception {
+    final Expression<String> expression = AsyncExpressions.blocking(new StageExpression(CompletableFuture.completedFuture("result")));
+    assertFalse("Adapter should not be asynchronous.", expression instanceof AsyncExpression);
+    assertEquals("Result of stage should be returned.", "result", expression.get());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(AsyncExpressions.async(new ConstantExpression("result"), Runnable::run)).run();
+    toStringTestlet(AsyncExpressions.blocking(new StageExpression(new CompletableFuture<>()))).run();
+  }
+
+  private static final class StageExpression extends AbstractExpression<String> implements AsyncExpression<String> {
+    private final CompletionStage<String> stage;
+
+    private StageExpression(final CompletionStage<String> stage) {
+      this.stage = stage;
+    }
+
+    @Override
+    public CompletionStage<String> getAsync() {
+      return stage;
+    }
+  }
+
+  /**
+   * Stage which does not support conversion to a future, like stages of some reactive libraries.
+   */
+  private static final class StageWithoutFuture<T> extends CompletableFuture<T> {
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+      throw new UnsupportedOperationException("Stage does not support conversion to a future.");
+    }
+  }
+
+  private static final class ConstantExpression extends AbstractExpression<String> {
+    private final String value;
+
+    private ConstantExpression(final String value) {
+      this.value = value;
+    }
+
+    @Override
+    public String get() {
+      return value;
+    }
+  }
+}
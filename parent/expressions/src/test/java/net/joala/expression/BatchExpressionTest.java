@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link BatchExpression}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class BatchExpressionTest {
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger fetches = new AtomicInteger();
+  private volatile boolean failing;
+  private volatile Set<String> fetchedKeys;
+
+  private final Function<Set<String>, Map<String, Integer>> fetch = new Function<Set<String>, Map<String, Integer>>() {
+    @Override
+    public Map<String, Integer> apply(@Nullable final Set<String> input) {
+      final int fetch = fetches.incrementAndGet();
+      fetchedKeys = input;
+      if (failing) {
+        throw new ExpressionEvaluationException("failed");
+      }
+      return ImmutableMap.of("a", fetch, "b", fetch * 10);
+    }
+  };
+
+  @Test
+  public void derived_expressions_should_share_one_fetch_within_window() throws Exception {
+    final BatchExpression<String, Integer> batch = new TestedBatchExpression(10L);
+    final Expression<Integer> a = batch.forKey("a");
+    final Expression<Integer> b = batch.forKey("b");
+    assertEquals("Value of a should have been returned.", Integer.valueOf(1), a.get());
+    now.set(9L);
+    assertEquals("Value of b should have been returned.", Integer.valueOf(10), b.get());
+    assertEquals("Values should have been fetched once.", 1, fetches.get());
+    assertEquals("Keys of all derived expressions should have been fetched.", ImmutableSet.of("a", "b"), fetchedKeys);
+  }
+
+  @Test
+  public void should_fetch_again_after_window() throws Exception {
+    final BatchExpression<String, Integer> batch = new TestedBatchExpression(10L);
+    final Expression<Integer> a = batch.forKey("a");
+    a.get();
+    now.set(10L);
+    assertEquals("New value should have been fetched.", Integer.valueOf(2), a.get());
+  }
+
+  @Test
+  public void missing_key_should_fail() throws Exception {
+    assertFailing(new TestedBatchExpression(10L).forKey("c"));
+  }
+
+  @Test
+  public void failure_should_not_be_hidden_by_default() throws Exception {
+    final BatchExpression<String, Integer> batch = new TestedBatchExpression(10L);
+    final Expression<Integer> a = batch.forKey("a");
+    a.get();
+    failing = true;
+    now.set(10L);
+    assertFailing(a);
+  }
+
+  @Test
+  public void stale_values_should_be_returned_within_max_staleness() throws Exception {
+    final BatchExpression<String, Integer> batch = new TestedBatchExpression(10L).withMaxStaleness(25L, TimeUnit.NANOSECONDS);
+    final Expression<Integer> a = batch.forKey("a");
+    a.get();
+    failing = true;
+    now.set(10L);
+    assertEquals("Stale value should have been returned.", Integer.valueOf(1), a.get());
+    now.set(15L);
+    a.get();
+    assertEquals("Failed fetch should have been shared within window.", 2, fetches.get());
+    now.set(26L);
+    assertFailing(a);
+  }
+
+  @Test
+  public void expression_fetch_should_return_all_values() throws Exception {
+    final Expression<Map<String, Integer>> all = new AbstractExpression<Map<String, Integer>>() {
+      @Override
+      public Map<String, Integer> get() {
+        return ImmutableMap.of("x", 42);
+      }
+    };
+    assertEquals("Value should have been returned.", Integer.valueOf(42),
+            new BatchExpression<>(all, 1L, TimeUnit.SECONDS).forKey("x").get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_should_reject_negative_window() throws Exception {
+    new BatchExpression<>(fetch, -1L, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new BatchExpression<>(fetch, 1L, TimeUnit.SECONDS)).run();
+  }
+
+  private static void assertFailing(final Expression<?> expression) {
+    try {
+      expression.get();
+      fail("ExpressionEvaluationException should have been thrown.");
+    } catch (ExpressionEvaluationException ignored) {
+      // expected
+    }
+  }
+
+  private final class TestedBatchExpression extends BatchExpression<String, Integer> {
+    private TestedBatchExpression(final long coalescingWindow) {
+      super(fetch, coalescingWindow, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    protected long nowNanos() {
+      return now.get();
+    }
+  }
+}
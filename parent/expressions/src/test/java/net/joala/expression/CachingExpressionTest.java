@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import net.joala.time.Clocks;
+import net.joala.time.VirtualClock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link CachingExpression}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class CachingExpressionTest {
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger evaluations = new AtomicInteger();
+  private boolean failing;
+  private Expression<Integer> counting;
+
+  @Before
+  public void setUp() throws Exception {
+    counting = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        final int evaluation = evaluations.incrementAndGet();
+        if (failing) {
+          throw new ExpressionEvaluationException("failed");
+        }
+        return evaluation;
+      }
+    };
+  }
+
+  @Test
+  public void get_should_return_cached_value_within_ttl() throws Exception {
+    final CachingExpression<Integer> expression = new TestedCachingExpression(counting, 10L, 10L);
+    expression.get();
+    now.set(9L);
+    assertEquals("Cached value should have been returned.", Integer.valueOf(1), expression.get());
+    assertEquals("Delegate should have been evaluated once.", 1, evaluations.get());
+  }
+
+  @Test
+  public void get_should_evaluate_again_after_ttl() throws Exception {
+    final CachingExpression<Integer> expression = new TestedCachingExpression(counting, 10L, 10L);
+    expression.get();
+    now.set(10L);
+    assertEquals("New value should have been returned.", Integer.valueOf(2), expression.get());
+  }
+
+  @Test
+  public void get_should_cache_failures_within_negative_ttl() throws Exception {
+    failing = true;
+    final CachingExpression<Integer> expression = new TestedCachingExpression(counting, 10L, 5L);
+    assertFailing(expression);
+    now.set(4L);
+    assertFailing(expression);
+    assertEquals("Delegate should have been evaluated once.", 1, evaluations.get());
+    now.set(5L);
+    assertFailing(expression);
+    assertEquals("Delegate should have been evaluated again.", 2, evaluations.get());
+  }
+
+  @Test
+  public void get_should_not_cache_failures_without_negative_ttl() throws Exception {
+    failing = true;
+    final CachingExpression<Integer> expression = new TestedCachingExpression(counting, 10L, 0L);
+    assertFailing(expression);
+    assertFailing(expression);
+    assertEquals("Delegate should have been evaluated each time.", 2, evaluations.get());
+  }
+
+  @Test
+  public void invalidate_should_force_evaluation() throws Exception {
+    final CachingExpression<Integer> expression = new TestedCachingExpression(counting, 10L, 10L);
+    expression.get();
+    expression.invalidate();
+    assertEquals("New value should have been returned.", Integer.valueOf(2), expression.get());
+  }
+
+  @Test
+  public void invalidate_should_discard_evaluation_in_flight() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CachingExpression<Integer> expression = new TestedCachingExpression(new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        final int evaluation = evaluations.incrementAndGet();
+        if (evaluation == 1) {
+          started.countDown();
+          try {
+            release.await(1L, TimeUnit.MINUTES);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return evaluation;
+      }
+    }, 10L, 10L);
+    final CompletableFuture<Integer> inFlight = CompletableFuture.supplyAsync(expression::get);
+    assertTrue("Evaluation should have started.", started.await(1L, TimeUnit.MINUTES));
+    expression.invalidate();
+    release.countDown();
+    assertEquals("Evaluation in flight should return its value.", Integer.valueOf(1), inFlight.get(1L, TimeUnit.MINUTES));
+    assertEquals("Value evaluated before invalidating should not have been cached.", Integer.valueOf(2), expression.get());
+  }
+
+  @Test
+  public void ttl_should_pass_with_virtual_clock() throws Exception {
+    final VirtualClock clock = Clocks.useVirtualClock();
+    try {
+      final CachingExpression<Integer> expression = new CachingExpression<>(counting, 10L, TimeUnit.SECONDS);
+      expression.get();
+      clock.advance(9L, TimeUnit.SECONDS);
+      assertEquals("Cached value should have been returned.", Integer.valueOf(1), expression.get());
+      clock.advance(1L, TimeUnit.SECONDS);
+      assertEquals("New value should have been returned.", Integer.valueOf(2), expression.get());
+    } finally {
+      Clocks.reset();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_should_reject_negative_ttl() throws Exception {
+    new CachingExpression<>(counting, -1L, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new CachingExpression<>(counting, 1L, TimeUnit.SECONDS)).excludeFieldNames(Pattern.compile("lock")).run();
+  }
+
+  private static void assertFailing(final Expression<?> expression) {
+    try {
+      expression.get();
+      fail("ExpressionEvaluationException should have been thrown.");
+    } catch (ExpressionEvaluationException ignored) {
+      // expected
+    }
+  }
+
+  private final class TestedCachingExpression extends CachingExpression<Integer> {
+    private TestedCachingExpression(final Expression<Integer> delegate, final long ttl, final long negativeTtl) {
+      super(delegate, ttl, negativeTtl, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    protected long nowNanos() {
+      return now.get();
+    }
+  }
+}
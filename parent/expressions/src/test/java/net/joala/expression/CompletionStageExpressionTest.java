@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * <p>
+ * Tests {@link CompletionStageExpression} and thus {@link AbstractObservableExpression}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class CompletionStageExpressionTest {
+  @Test(expected = ExpressionEvaluationException.class)
+  public void get_should_fail_while_stage_is_not_completed() throws Exception {
+    new CompletionStageExpression<>(new CompletableFuture<String>()).get();
+  }
+
+  @Test
+  public void get_should_return_result_of_completed_stage() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final Expression<String> expression = new CompletionStageExpression<>(future);
+    future.complete("result");
+    assertEquals("Result of stage should be returned.", "result", expression.get());
+  }
+
+  @Test
+  public void get_should_fail_with_cause_of_exceptionally_completed_stage() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final Expression<String> expression = new CompletionStageExpression<>(future);
+    final IllegalStateException cause = new IllegalStateException();
+    future.completeExceptionally(cause);
+    try {
+      expression.get();
+    } catch (ExpressionEvaluationException e) {
+      assertSame("Cause should be propagated.", cause, e.getCause());
+    }
+  }
+
+  @Test
+  public void listeners_should_be_notified_on_completion() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ObservableExpression<String> expression = new CompletionStageExpression<>(future);
+    final AtomicInteger notifications = new AtomicInteger();
+    expression.addChangeListener(notifications::incrementAndGet);
+    assertEquals("Listener should not have been notified yet.", 0, notifications.get());
+    future.complete("result");
+    assertEquals("Listener should have been notified.", 1, notifications.get());
+  }
+
+  @Test
+  public void listeners_should_see_result_on_notification() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ObservableExpression<String> expression = new CompletionStageExpression<>(future);
+    final AtomicReference<String> seen = new AtomicReference<>();
+    expression.addChangeListener(() -> seen.set(expression.get()));
+    future.complete("result");
+    assertEquals("Result should have been available to listener.", "result", seen.get());
+  }
+
+  @Test
+  public void get_should_support_stages_without_future() throws Exception {
+    final CompletableFuture<String> stage = new StageWithoutFuture<>();
+    final Expression<String> expression = new CompletionStageExpression<>(stage);
+    stage.complete("result");
+    assertEquals("Result of stage should be returned.", "result", expression.get());
+  }
+
+  @Test
+  public void removed_listeners_should_not_be_notified() throws Exception {
+    final AbstractObservableExpression<String> expression = new CompletionStageExpression<>(new CompletableFuture<>());
+    final AtomicInteger notifications = new AtomicInteger();
+    final ExpressionChangeListener listener = notifications::incrementAndGet;
+    expression.addChangeListener(listener);
+    expression.removeChangeListener(listener);
+    expression.fireChanged();
+    assertEquals("Listener should not have been notified.", 0, notifications.get());
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: Adopted from JUnit standard
+    toStringTestlet(new CompletionStageExpression<>(new CompletableFuture<String>(), "description")).run();
+  }
+
+  /**
+   * Stage which does not support conversion to a future, like stages of some reactive libraries.
+   */
+  private static final class StageWithoutFuture<T> extends CompletableFuture<T> {
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+      throw new UnsupportedOperationException("Stage does not support conversion to a future.");
+    }
+  }
+}
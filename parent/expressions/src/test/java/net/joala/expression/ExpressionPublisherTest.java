@@ -0,0 +1,263 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.joala.expression;
+
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests {@link ExpressionPublisher}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class ExpressionPublisherTest {
+  private static final long TIMEOUT_SECONDS = 5L;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void publisher_should_emit_no_more_values_than_requested() throws Exception {
+    final AtomicInteger polls = new AtomicInteger();
+    final Expression<Integer> expression = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        return polls.incrementAndGet();
+      }
+    };
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(3);
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(3L);
+    subscriber.await();
+    assertEquals("Requested values should have been emitted.", Arrays.asList(1, 2, 3), subscriber.values);
+    awaitIdle();
+    assertEquals("Polling should stop without demand.", 3, polls.get());
+  }
+
+  @Test
+  public void publisher_should_emit_only_changes_if_configured() throws Exception {
+    final Iterator<String> values = Arrays.asList("a", "a", "b", "b", "b", "a", "c").iterator();
+    final Expression<String> expression = new AbstractExpression<String>() {
+      @Override
+      public synchronized String get() {
+        return values.hasNext() ? values.next() : "c";
+      }
+    };
+    final RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(4);
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler)
+            .withOnlyChanges(true)
+            .subscribe(subscriber);
+    subscriber.request(4L);
+    subscriber.await();
+    assertEquals("Repeated values should have been dropped.", Arrays.asList("a", "b", "a", "c"), subscriber.values);
+  }
+
+  @Test
+  public void publisher_should_skip_unavailable_states() throws Exception {
+    final AtomicInteger polls = new AtomicInteger();
+    final Expression<Integer> expression = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        final int poll = polls.incrementAndGet();
+        if (poll < 3) {
+          throw new ExpressionEvaluationException("Not yet.");
+        }
+        return poll == 3 ? null : poll;
+      }
+    };
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(1L);
+    subscriber.await();
+    assertEquals("First available value should have been emitted.", Collections.singletonList(4), subscriber.values);
+    assertNull("Unavailable states should not fail the stream.", subscriber.error);
+  }
+
+  @Test
+  public void publisher_should_signal_unexpected_failures() throws Exception {
+    final IllegalStateException failure = new IllegalStateException();
+    final Expression<Integer> expression = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        throw failure;
+      }
+    };
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(1L);
+    subscriber.await();
+    assertSame("Failure should have been signalled.", failure, subscriber.error);
+  }
+
+  @Test
+  public void publisher_should_signal_errors_of_expression() throws Exception {
+    final AssertionError failure = new AssertionError();
+    final Expression<Integer> expression = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        throw failure;
+      }
+    };
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(1L);
+    subscriber.await();
+    assertSame("Error should have been signalled.", failure, subscriber.error);
+  }
+
+  @Test
+  public void publisher_should_signal_failures_of_subscriber() throws Exception {
+    final IllegalStateException failure = new IllegalStateException();
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(1) {
+      @Override
+      public void onNext(final Integer value) {
+        throw failure;
+      }
+    };
+    new ExpressionPublisher<>(new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        return 1;
+      }
+    }, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(Long.MAX_VALUE);
+    subscriber.await();
+    assertSame("Failure of subscriber should have been signalled.", failure, subscriber.error);
+  }
+
+  @Test
+  public void non_positive_request_should_signal_error() throws Exception {
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+    new ExpressionPublisher<>(new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        return 1;
+      }
+    }, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(0L);
+    subscriber.await();
+    assertTrue("Illegal request should have been signalled.", subscriber.error instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void cancel_should_stop_polling() throws Exception {
+    final AtomicInteger polls = new AtomicInteger();
+    final Expression<Integer> expression = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        return polls.incrementAndGet();
+      }
+    };
+    final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(1) {
+      @Override
+      public void onNext(final Integer value) {
+        subscription.cancel();
+        super.onNext(value);
+      }
+    };
+    new ExpressionPublisher<>(expression, 0L, TimeUnit.MILLISECONDS, scheduler).subscribe(subscriber);
+    subscriber.request(Long.MAX_VALUE);
+    subscriber.await();
+    awaitIdle();
+    assertEquals("Polling should stop on cancel.", 1, polls.get());
+  }
+
+  @Test
+  public void toString_should_contain_relevant_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new ExpressionPublisher<>(new CompletionStageExpression<>(new CompletableFuture<>()), 1L, TimeUnit.SECONDS)).run();
+  }
+
+  /**
+   * Wait until all polls already scheduled have run.
+   */
+  private void awaitIdle() throws Exception {
+    scheduler.submit(() -> null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private static class RecordingSubscriber<T> implements Subscriber<T> {
+    final List<T> values = Collections.synchronizedList(new ArrayList<>());
+    volatile Throwable error;
+    volatile Subscription subscription;
+    private final CountDownLatch latch;
+
+    RecordingSubscriber(final int expectedValues) {
+      latch = new CountDownLatch(expectedValues);
+    }
+
+    void request(final long n) {
+      subscription.request(n);
+    }
+
+    void await() throws InterruptedException {
+      assertTrue("Subscriber should have been signalled in time.", latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void onSubscribe(final Subscription s) {
+      subscription = s;
+    }
+
+    @Override
+    public void onNext(final T value) {
+      values.add(value);
+      latch.countDown();
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+      error = t;
+      while (latch.getCount() > 0) {
+        latch.countDown();
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      throw new AssertionError("Expression streams should never complete.");
+    }
+  }
+}
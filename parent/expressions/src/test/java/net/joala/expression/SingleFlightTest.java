@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.expression;
+
+import net.joala.time.Deadline;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests {@link SingleFlight} and {@link CoalescingExpression}.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class SingleFlightTest {
+  private static final int WAITERS = 5;
+
+  @Test
+  public void concurrent_evaluations_should_share_one_evaluation() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger evaluations = new AtomicInteger();
+    final Expression<Integer> blocking = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        started.countDown();
+        try {
+          release.await(1L, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return evaluations.incrementAndGet();
+      }
+    };
+    final SingleFlight singleFlight = new SingleFlight();
+    final Expression<Integer> expression = new CoalescingExpression<>(blocking, "key", singleFlight);
+    final CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(expression::get);
+    assertTrue("Leader should have started evaluation.", started.await(1L, TimeUnit.MINUTES));
+    final List<CompletableFuture<Integer>> followers = new ArrayList<>();
+    for (int i = 0; i < WAITERS; i++) {
+      followers.add(CompletableFuture.supplyAsync(() -> singleFlight.evaluate("key", blocking)));
+    }
+    // Give followers a chance to join the flight.
+    Thread.sleep(100L);
+    release.countDown();
+    assertEquals("Leader should get result.", Integer.valueOf(1), leader.get(1L, TimeUnit.MINUTES));
+    for (final CompletableFuture<Integer> follower : followers) {
+      final int result = follower.get(1L, TimeUnit.MINUTES);
+      assertTrue("Follower should get shared or later result.", result >= 1);
+    }
+    assertTrue("Evaluations should have been coalesced.", evaluations.get() < WAITERS + 1);
+  }
+
+  @Test
+  public void follower_should_stop_waiting_for_hanging_leader_on_interrupt() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Expression<Integer> hanging = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        started.countDown();
+        try {
+          release.await(1L, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return 1;
+      }
+    };
+    final SingleFlight singleFlight = new SingleFlight();
+    final CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> singleFlight.evaluate("key", hanging));
+    try {
+      assertTrue("Leader should have started evaluation.", started.await(1L, TimeUnit.MINUTES));
+      Thread.currentThread().interrupt();
+      singleFlight.evaluate("key", hanging);
+      fail("ExpressionEvaluationException should have been thrown.");
+    } catch (ExpressionEvaluationException ignored) {
+      assertTrue("Interrupt flag should have been kept.", Thread.interrupted());
+    } finally {
+      release.countDown();
+      leader.get(1L, TimeUnit.MINUTES);
+    }
+  }
+
+  @Test(expected = ExpressionEvaluationException.class)
+  public void follower_should_not_wait_for_hanging_leader_beyond_deadline() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Expression<Integer> hanging = new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        started.countDown();
+        try {
+          release.await(1L, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return 1;
+      }
+    };
+    final SingleFlight singleFlight = new SingleFlight();
+    final CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> singleFlight.evaluate("key", hanging));
+    try (Deadline.Scope ignored = Deadline.after(20L, TimeUnit.MILLISECONDS).enter()) {
+      assertTrue("Leader should have started evaluation.", started.await(1L, TimeUnit.MINUTES));
+      singleFlight.evaluate("key", hanging);
+    } finally {
+      release.countDown();
+      leader.get(1L, TimeUnit.MINUTES);
+    }
+  }
+
+  @Test
+  public void sequential_evaluations_should_not_be_cached() throws Exception {
+    final AtomicInteger evaluations = new AtomicInteger();
+    final Expression<Integer> expression = new CoalescingExpression<>(new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        return evaluations.incrementAndGet();
+      }
+    });
+    expression.get();
+    assertEquals("Expression should have been evaluated again.", Integer.valueOf(2), expression.get());
+  }
+
+  @Test
+  public void failures_should_be_propagated() throws Exception {
+    final Expression<Integer> expression = new CoalescingExpression<>(new AbstractExpression<Integer>() {
+      @Override
+      public Integer get() {
+        throw new ExpressionEvaluationException("failed");
+      }
+    });
+    try {
+      expression.get();
+      fail("ExpressionEvaluationException should have been thrown.");
+    } catch (ExpressionEvaluationException ignored) {
+      // expected
+    }
+  }
+
+  @Test
+  public void identity_keys_should_only_equal_for_same_object() throws Exception {
+    final String object = "object";
+    assertEquals("Keys of same object should be equal.", SingleFlight.identityKey(object), SingleFlight.identityKey(object));
+    assertTrue("Keys of equal objects should differ.",
+            !SingleFlight.identityKey(object).equals(SingleFlight.identityKey(new String(object.toCharArray()))));
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new SingleFlight()).run();
+  }
+
+  @Test
+  public void coalescing_expression_toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new CoalescingExpression<>(new AbstractExpression<String>() {
+      @Override
+      public String get() {
+        return "value";
+      }
+    })).run();
+  }
+}
@@ -21,15 +21,18 @@ package net.joala.net;
 
 import com.google.common.base.MoreObjects;
 import com.sun.net.httpserver.HttpExchange;
+import net.joala.time.Clocks;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * <p>
- * Send the given response but with some delay.
+ * Send the given response but with some delay. The delay is spent by the
+ * {@link Clocks#getSleeper() sleeper in use}, thus it passes immediately if time is simulated.
  * </p>
  *
  * @since 10/4/12
@@ -62,7 +65,7 @@ public class DelayedResponse implements Response {
   public void write(@Nonnull final HttpExchange exchange) throws IOException {
     checkNotNull(exchange, "Exchange must not be null.");
     try {
-      Thread.sleep(delayMillis);
+      Clocks.getSleeper().sleep(delayMillis, TimeUnit.MILLISECONDS);
     } catch (InterruptedException ignored) {
     }
     response.write(exchange);
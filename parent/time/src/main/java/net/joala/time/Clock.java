@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+/**
+ * <p>
+ * Source of the current time as used by waits, deadlines and delayed responses.
+ * </p>
+ *
+ * @see Clocks
+ * @see VirtualClock
+ * @since 1.3.0
+ */
+public interface Clock {
+  /**
+   * The current wall clock time.
+   *
+   * @return milliseconds since the epoch
+   */
+  long nowMillis();
+
+  /**
+   * Monotonic time to measure durations with. Only the difference of two values is meaningful.
+   *
+   * @return nanoseconds since some arbitrary origin
+   */
+  long nowNanos();
+}
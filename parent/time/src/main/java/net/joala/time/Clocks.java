@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Registry of the clock and the sleeper used by all of Joala, by default the {@link SystemClock}.
+ * Replace them for tests, for example by a {@link VirtualClock}; do not forget to {@link #reset()}
+ * afterwards, as the registry is global. Replace them only while no wait is running, as times of
+ * different clocks cannot be compared.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class Clocks {
+  private static volatile Holder holder = new Holder(SystemClock.INSTANCE, SystemClock.INSTANCE);
+
+  private Clocks() {
+  }
+
+  /**
+   * The clock in use.
+   *
+   * @return clock
+   */
+  @Nonnull
+  public static Clock getClock() {
+    return holder.clock;
+  }
+
+  /**
+   * The sleeper in use.
+   *
+   * @return sleeper
+   */
+  @Nonnull
+  public static Sleeper getSleeper() {
+    return holder.sleeper;
+  }
+
+  /**
+   * Use the given clock and sleeper.
+   *
+   * @param clock   clock to use
+   * @param sleeper sleeper to use
+   */
+  public static void use(@Nonnull final Clock clock, @Nonnull final Sleeper sleeper) {
+    holder = new Holder(checkNotNull(clock, "Clock must not be null."), checkNotNull(sleeper, "Sleeper must not be null."));
+  }
+
+  /**
+   * Use a new virtual clock as clock and sleeper.
+   *
+   * @return the virtual clock in use
+   */
+  @Nonnull
+  public static VirtualClock useVirtualClock() {
+    final VirtualClock clock = new VirtualClock();
+    use(clock, clock);
+    return clock;
+  }
+
+  /**
+   * The virtual clock in use.
+   *
+   * @return virtual clock; {@code null} if time is not simulated
+   */
+  @Nullable
+  public static VirtualClock getVirtualClock() {
+    final Clock clock = holder.clock;
+    return clock instanceof VirtualClock ? (VirtualClock) clock : null;
+  }
+
+  /**
+   * Use the system clock again.
+   */
+  public static void reset() {
+    use(SystemClock.INSTANCE, SystemClock.INSTANCE);
+  }
+
+  /**
+   * Clock and sleeper, replaced together to keep them consistent.
+   */
+  private static final class Holder {
+    @Nonnull
+    private final Clock clock;
+    @Nonnull
+    private final Sleeper sleeper;
+
+    private Holder(@Nonnull final Clock clock, @Nonnull final Sleeper sleeper) {
+      this.clock = clock;
+      this.sleeper = sleeper;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("clock", clock)
+              .add("sleeper", sleeper)
+              .toString();
+    }
+  }
+}
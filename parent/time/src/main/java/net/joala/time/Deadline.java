@@ -0,0 +1,293 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.round;
+
+/**
+ * <p>
+ * A point in time until which some work has to be done. A deadline can be entered as scope of the
+ * current thread; waits started within the scope clamp their own timeout to the remaining budget of the
+ * deadline. Thus nested waits, for example an expression which waits internally or a step made of
+ * several waits, share one budget instead of adding up their timeouts.
+ * </p>
+ * <pre>{@code
+ * try (Deadline.Scope ignored = Deadline.after(timeout).enter()) {
+ *   condition1.waitUntilTrue();
+ *   condition2.waitUntilTrue();
+ * }
+ * }</pre>
+ * <p>
+ * As timeout a deadline provides the budget which is left.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class Deadline implements Timeout {
+  private static final ThreadLocal<Frame> CURRENT = ThreadLocal.withInitial(Frame::new);
+
+  private final long deadlineNanos;
+
+  private Deadline(final long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Create a deadline which passes after the given amount of time from now on.
+   *
+   * @param amount amount of time
+   * @param unit   unit of the amount
+   * @return deadline
+   */
+  @Nonnull
+  public static Deadline after(@Nonnegative final long amount, @Nonnull final TimeUnit unit) {
+    checkArgument(amount >= 0L, "amount must be positive: %s", amount);
+    checkNotNull(unit, "time unit must not be null");
+    return new Deadline(Clocks.getClock().nowNanos() + unit.toNanos(amount));
+  }
+
+  /**
+   * Create a deadline which passes after the given timeout from now on.
+   *
+   * @param timeout timeout
+   * @return deadline
+   */
+  @Nonnull
+  public static Deadline after(@Nonnull final Timeout timeout) {
+    checkNotNull(timeout, "timeout must not be null");
+    return after(timeout.in(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * The deadline of the innermost scope entered by the current thread.
+   *
+   * @return deadline; {@code null} if no scope has been entered
+   */
+  @Nullable
+  public static Deadline current() {
+    return CURRENT.get().deadline();
+  }
+
+  /**
+   * <p>
+   * Make the given deadline the current deadline of this thread without clamping it to an outer deadline.
+   * Prefer {@link #enter()}; this method is meant for waits which already clamped their deadline and want
+   * to avoid creating a scope for each evaluation.
+   * </p>
+   *
+   * @param deadline the deadline to make current; {@code null} to clear
+   * @return the previous deadline to restore afterwards; {@code null} if there was none
+   */
+  @Nullable
+  public static Deadline swapCurrent(@Nullable final Deadline deadline) {
+    final Frame frame = CURRENT.get();
+    final Deadline previous = frame.deadline();
+    frame.set(deadline);
+    return previous;
+  }
+
+  /**
+   * <p>
+   * Make the deadline at the given time of the {@link Clocks#getClock() clock in use} the current deadline
+   * of this thread, like {@link #swapCurrent(Deadline)}. The deadline object is only created if someone asks
+   * for the {@link #current() current deadline}, so that waits do not allocate for each run.
+   * </p>
+   *
+   * @param deadlineNanos the time the deadline passes, in nanoseconds of the clock in use
+   * @return the previous deadline to restore afterwards by {@link #restoreCurrent(Deadline)}; {@code null} if there was none
+   */
+  @Nullable
+  public static Deadline swapCurrentNanos(final long deadlineNanos) {
+    final Frame frame = CURRENT.get();
+    final Deadline previous = frame.deadline();
+    frame.setNanos(deadlineNanos);
+    return previous;
+  }
+
+  /**
+   * <p>
+   * Restore the deadline returned by {@link #swapCurrent(Deadline)} or {@link #swapCurrentNanos(long)}.
+   * Other than swapping, restoring does not create the deadline object it replaces.
+   * </p>
+   *
+   * @param previous the deadline to make current again; {@code null} to clear
+   */
+  public static void restoreCurrent(@Nullable final Deadline previous) {
+    CURRENT.get().set(previous);
+  }
+
+  /**
+   * Clamp the given amount of time to the budget left by the current deadline.
+   *
+   * @param amount amount of time
+   * @param unit   unit of the amount and of the result
+   * @return the given amount, or the remaining budget if it is shorter
+   */
+  @Nonnegative
+  public static long clamp(@Nonnegative final long amount, @Nonnull final TimeUnit unit) {
+    final Frame frame = CURRENT.get();
+    return frame.present ? Math.min(amount, remaining(frame.deadlineNanos, unit)) : amount;
+  }
+
+  /**
+   * The budget left until the deadline passes.
+   *
+   * @param unit the unit to use
+   * @return remaining time; {@code 0} if the deadline passed
+   */
+  @Nonnegative
+  public long remaining(@Nonnull final TimeUnit unit) {
+    return remaining(deadlineNanos, unit);
+  }
+
+  /**
+   * Whether the deadline passed.
+   *
+   * @return {@code true} if no budget is left
+   */
+  public boolean isExpired() {
+    return deadlineNanos - Clocks.getClock().nowNanos() <= 0L;
+  }
+
+  /**
+   * Get the earlier one of this and the given deadline.
+   *
+   * @param other other deadline; {@code null} for none
+   * @return the deadline which passes first
+   */
+  @Nonnull
+  public Deadline earlierOf(@Nullable final Deadline other) {
+    return other == null || deadlineNanos - other.deadlineNanos <= 0L ? this : other;
+  }
+
+  /**
+   * Enter this deadline as scope of the current thread. If the current thread is already within a scope
+   * with an earlier deadline, the earlier deadline stays in effect.
+   *
+   * @return scope to close when leaving it
+   */
+  @Nonnull
+  public Scope enter() {
+    final Frame frame = CURRENT.get();
+    final Deadline previous = frame.deadline();
+    frame.set(earlierOf(previous));
+    return new Scope(previous);
+  }
+
+  @Nonnegative
+  private static long remaining(final long deadlineNanos, @Nonnull final TimeUnit unit) {
+    return unit.convert(Math.max(0L, deadlineNanos - Clocks.getClock().nowNanos()), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  @Nonnegative
+  @SuppressWarnings("PMD.ShortMethodName")
+  public long in(@Nonnull final TimeUnit targetUnit) {
+    checkNotNull(targetUnit, "time unit must not be null");
+    return remaining(targetUnit);
+  }
+
+  @Override
+  @Nonnegative
+  @SuppressWarnings("PMD.ShortMethodName")
+  public long in(@Nonnull final TimeUnit targetUnit, @Nonnegative final double factor) {
+    if (Double.compare(factor, 0d) < 0) {
+      throw new IllegalArgumentException("factor must be positive: " + factor);
+    }
+    return round(in(targetUnit) * factor);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("remainingMillis", remaining(TimeUnit.MILLISECONDS))
+            .toString();
+  }
+
+  /**
+   * <p>
+   * A deadline entered by the current thread. Closing the scope restores the deadline which was current
+   * before.
+   * </p>
+   *
+   * @since 1.3.0
+   */
+  public static final class Scope implements AutoCloseable {
+    @Nullable
+    private final Deadline previous;
+
+    private Scope(@Nullable final Deadline previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      restoreCurrent(previous);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+              .add("previous", previous)
+              .toString();
+    }
+  }
+
+  /**
+   * <p>
+   * The current deadline of one thread. It is kept as point in time and only turned into a deadline
+   * object on demand, so that swapping it does not allocate.
+   * </p>
+   */
+  private static final class Frame {
+    private boolean present;
+    private long deadlineNanos;
+    @Nullable
+    private Deadline deadline;
+
+    @Nullable
+    private Deadline deadline() {
+      if (present && deadline == null) {
+        deadline = new Deadline(deadlineNanos);
+      }
+      return deadline;
+    }
+
+    private void set(@Nullable final Deadline newDeadline) {
+      present = newDeadline != null;
+      deadlineNanos = newDeadline == null ? 0L : newDeadline.deadlineNanos;
+      deadline = newDeadline;
+    }
+
+    private void setNanos(final long newDeadlineNanos) {
+      present = true;
+      deadlineNanos = newDeadlineNanos;
+      deadline = null;
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import com.google.common.base.MoreObjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * Durations recorded per key, which persist across runs in a properties file. Only the most recent
+ * {@value #MAX_SAMPLES} durations per key are kept.
+ * </p>
+ * <p>
+ * The file is read on first access. Recorded durations are kept in memory and {@link #flush() flushed}
+ * when the JVM shuts down. Flushing merges them with the file contents on disk under a file lock, so
+ * that several processes sharing a file, such as parallel test forks, keep each other's durations.
+ * Failing to read or write the file does not fail the caller; the durations are then only kept in
+ * memory.
+ * </p>
+ *
+ * @see LearningTimeout
+ * @since 1.3.0
+ */
+public final class DurationHistory {
+  private static final Logger LOG = LoggerFactory.getLogger(DurationHistory.class);
+  /**
+   * System property to specify the file of the default history.
+   */
+  public static final String FILE_PROPERTY = "joala.timeout.history";
+  /**
+   * Number of durations kept per key.
+   */
+  public static final int MAX_SAMPLES = 50;
+  private static final String SEPARATOR = ",";
+  /**
+   * File locks are held per JVM, thus histories of this JVM have to take turns flushing.
+   */
+  private static final Object FLUSH_MONITOR = new Object();
+
+  @Nonnull
+  private final Path file;
+  /**
+   * Durations in milliseconds per key, the most recent last; guarded by {@code this}.
+   */
+  private final Map<String, Deque<Long>> durations = new HashMap<>();
+  /**
+   * Durations recorded since the last flush per key; guarded by {@code this}.
+   */
+  private final Map<String, List<Long>> unflushed = new HashMap<>();
+  /**
+   * Keys cleared since the last flush; guarded by {@code this}.
+   */
+  private final Set<String> cleared = new HashSet<>();
+  private boolean loaded;
+  private boolean flushOnShutdown;
+
+  /**
+   * @param file file to persist the durations in; created on first recorded duration
+   */
+  public DurationHistory(@Nonnull final Path file) {
+    checkNotNull(file, "File must not be null.");
+    this.file = file;
+  }
+
+  /**
+   * The history stored in the file given by system property {@value #FILE_PROPERTY}, by default
+   * {@code .joala/timeout-history.properties} in the user's home directory.
+   *
+   * @return default history
+   */
+  @Nonnull
+  public static DurationHistory defaultHistory() {
+    return DefaultHistory.INSTANCE;
+  }
+
+  /**
+   * Durations recorded for the given key, the most recent last.
+   *
+   * @param key key to get the durations for
+   * @return durations in milliseconds; empty if none recorded
+   */
+  @Nonnull
+  public synchronized long[] durationsMillis(@Nonnull final String key) {
+    checkNotNull(key, "Key must not be null.");
+    load();
+    final Deque<Long> recorded = durations.get(key);
+    if (recorded == null) {
+      return new long[0];
+    }
+    final long[] result = new long[recorded.size()];
+    int i = 0;
+    for (final Long duration : recorded) {
+      result[i++] = duration;
+    }
+    return result;
+  }
+
+  /**
+   * Record a duration for the given key. It is persisted on the next {@link #flush() flush}.
+   *
+   * @param key            key to record the duration for
+   * @param durationMillis duration in milliseconds
+   */
+  public synchronized void record(@Nonnull final String key, @Nonnegative final long durationMillis) {
+    checkNotNull(key, "Key must not be null.");
+    checkArgument(durationMillis >= 0L, "Duration must not be negative: %s", durationMillis);
+    load();
+    append(durations.computeIfAbsent(key, k -> new ArrayDeque<>()), durationMillis);
+    unflushed.computeIfAbsent(key, k -> new ArrayList<>()).add(durationMillis);
+    flushOnShutdown();
+  }
+
+  /**
+   * Forget the durations of the given key, for example because they turned out to be too short. The
+   * key is also removed from the file on the next {@link #flush() flush}.
+   *
+   * @param key key to forget the durations of
+   */
+  public synchronized void clear(@Nonnull final String key) {
+    checkNotNull(key, "Key must not be null.");
+    load();
+    durations.remove(key);
+    unflushed.remove(key);
+    cleared.add(key);
+    flushOnShutdown();
+  }
+
+  /**
+   * Merge the durations recorded since the last flush into the file. Called automatically when the
+   * JVM shuts down.
+   */
+  public void flush() {
+    synchronized (FLUSH_MONITOR) {
+      synchronized (this) {
+        if (unflushed.isEmpty() && cleared.isEmpty()) {
+          return;
+        }
+        try {
+          final Path directory = file.toAbsolutePath().getParent();
+          Files.createDirectories(directory);
+          try (FileChannel lockChannel = FileChannel.open(directory.resolve(file.getFileName() + ".lock"),
+                  StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+               FileLock ignored = lockChannel.lock()) {
+            final Map<String, Deque<Long>> merged = read();
+            for (final String key : cleared) {
+              merged.remove(key);
+            }
+            for (final Map.Entry<String, List<Long>> entry : unflushed.entrySet()) {
+              final Deque<Long> recorded = merged.computeIfAbsent(entry.getKey(), k -> new ArrayDeque<>());
+              for (final Long duration : entry.getValue()) {
+                append(recorded, duration);
+              }
+            }
+            write(merged, directory);
+            durations.clear();
+            durations.putAll(merged);
+          }
+        } catch (IOException e) {
+          LOG.warn("Failed to write duration history to {}.", file, e);
+        }
+        unflushed.clear();
+        cleared.clear();
+      }
+    }
+  }
+
+  private void flushOnShutdown() {
+    if (flushOnShutdown) {
+      return;
+    }
+    flushOnShutdown = true;
+    Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "joala-duration-history"));
+  }
+
+  private static void append(@Nonnull final Deque<Long> recorded, final long durationMillis) {
+    recorded.addLast(durationMillis);
+    while (recorded.size() > MAX_SAMPLES) {
+      recorded.removeFirst();
+    }
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    try {
+      durations.putAll(read());
+    } catch (IOException e) {
+      LOG.warn("Failed to read duration history from {}. Starting with empty history.", file, e);
+    }
+  }
+
+  @Nonnull
+  private Map<String, Deque<Long>> read() throws IOException {
+    final Map<String, Deque<Long>> result = new HashMap<>();
+    if (!Files.isRegularFile(file)) {
+      return result;
+    }
+    final Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    }
+    for (final String key : properties.stringPropertyNames()) {
+      final Deque<Long> recorded = new ArrayDeque<>();
+      for (final String duration : properties.getProperty(key).split(SEPARATOR)) {
+        try {
+          recorded.addLast(Long.valueOf(duration.trim()));
+        } catch (NumberFormatException e) {
+          LOG.warn("Ignoring invalid duration {} for key {} in {}.", duration, key, file, e);
+        }
+      }
+      result.put(key, recorded);
+    }
+    return result;
+  }
+
+  private void write(@Nonnull final Map<String, Deque<Long>> merged, @Nonnull final Path directory) throws IOException {
+    final Properties properties = new Properties();
+    for (final Map.Entry<String, Deque<Long>> entry : merged.entrySet()) {
+      final StringBuilder value = new StringBuilder();
+      for (final Long duration : entry.getValue()) {
+        if (value.length() > 0) {
+          value.append(SEPARATOR);
+        }
+        value.append(duration);
+      }
+      properties.setProperty(entry.getKey(), value.toString());
+    }
+    final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        properties.store(out, "Durations in milliseconds recorded by Joala");
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("file", file)
+            .add("durations", durations)
+            .add("unflushed", unflushed)
+            .add("cleared", cleared)
+            .add("loaded", loaded)
+            .add("flushOnShutdown", flushOnShutdown)
+            .toString();
+  }
+
+  /**
+   * Lazily created default history.
+   */
+  private static final class DefaultHistory {
+    private static final DurationHistory INSTANCE = new DurationHistory(Paths.get(System.getProperty(FILE_PROPERTY,
+            Paths.get(System.getProperty("user.home"), ".joala", "timeout-history.properties").toString())));
+
+    private DefaultHistory() {
+    }
+  }
+}
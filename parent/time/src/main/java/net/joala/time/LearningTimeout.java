@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.round;
+
+/**
+ * <p>
+ * A timeout which learns from the durations recorded for its key in previous runs. Once enough durations
+ * got recorded, the timeout is a high percentile of these durations times a safety factor, but never
+ * more than the configured timeout and never less than a minimum. Thus conditions which are going to
+ * fail do so after a short time instead of burning a generously padded timeout.
+ * </p>
+ * <p>
+ * Waits record the duration of successful waits automatically. A wait which times out
+ * {@link #recordTimeout(long, TimeUnit) records} the duration it waited, as the learned timeout might have
+ * been too short, for example after the system under test slowed down. Repeated timeouts thus raise the
+ * learned timeout by the safety factor each, up to the configured timeout.
+ * </p>
+ *
+ * @see DurationHistory
+ * @since 1.3.0
+ */
+public class LearningTimeout implements Timeout {
+  /**
+   * Percentile of recorded durations used by default.
+   */
+  public static final double DEFAULT_PERCENTILE = 95d;
+  /**
+   * Factor the percentile gets multiplied with by default.
+   */
+  public static final double DEFAULT_SAFETY_FACTOR = 3d;
+  /**
+   * Number of recorded durations required by default before learning.
+   */
+  public static final int DEFAULT_MINIMUM_SAMPLES = 5;
+  /**
+   * Minimum of the learned timeout used by default.
+   */
+  public static final Timeout DEFAULT_MINIMUM = new TimeoutImpl(1L, TimeUnit.SECONDS);
+
+  @Nonnull
+  private final String key;
+  @Nonnull
+  private final Timeout configured;
+  @Nonnull
+  private final DurationHistory history;
+  private double percentile = DEFAULT_PERCENTILE;
+  private double safetyFactor = DEFAULT_SAFETY_FACTOR;
+  private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+  @Nonnull
+  private Timeout minimum = DEFAULT_MINIMUM;
+
+  /**
+   * @param key        key identifying the condition, unique across all tests
+   * @param configured the timeout to use until enough durations got recorded; also the upper limit
+   */
+  public LearningTimeout(@Nonnull final String key, @Nonnull final Timeout configured) {
+    this(key, configured, DurationHistory.defaultHistory());
+  }
+
+  /**
+   * @param key        key identifying the condition, unique within the history
+   * @param configured the timeout to use until enough durations got recorded; also the upper limit
+   * @param history    history of recorded durations
+   */
+  public LearningTimeout(@Nonnull final String key, @Nonnull final Timeout configured, @Nonnull final DurationHistory history) {
+    checkNotNull(key, "Key must not be null.");
+    checkNotNull(configured, "Configured timeout must not be null.");
+    checkNotNull(history, "History must not be null.");
+    this.key = key;
+    this.configured = configured;
+    this.history = history;
+  }
+
+  /**
+   * @param newPercentile percentile of recorded durations to use, greater than 0 and at most 100
+   * @return self-reference
+   */
+  @Nonnull
+  public LearningTimeout withPercentile(final double newPercentile) {
+    checkArgument(newPercentile > 0d && newPercentile <= 100d, "Percentile must be in (0, 100]: %s", newPercentile);
+    percentile = newPercentile;
+    return this;
+  }
+
+  /**
+   * @param newSafetyFactor factor to multiply the percentile with; at least 1
+   * @return self-reference
+   */
+  @Nonnull
+  public LearningTimeout withSafetyFactor(final double newSafetyFactor) {
+    checkArgument(newSafetyFactor >= 1d, "Safety factor must be at least 1: %s", newSafetyFactor);
+    safetyFactor = newSafetyFactor;
+    return this;
+  }
+
+  /**
+   * @param newMinimumSamples number of recorded durations required before learning; at least 1
+   * @return self-reference
+   */
+  @Nonnull
+  public LearningTimeout withMinimumSamples(final int newMinimumSamples) {
+    checkArgument(newMinimumSamples >= 1, "Minimum samples must be at least 1: %s", newMinimumSamples);
+    minimumSamples = newMinimumSamples;
+    return this;
+  }
+
+  /**
+   * @param newMinimum lower limit of the learned timeout
+   * @return self-reference
+   */
+  @Nonnull
+  public LearningTimeout withMinimum(@Nonnull final Timeout newMinimum) {
+    checkNotNull(newMinimum, "Minimum must not be null.");
+    minimum = newMinimum;
+    return this;
+  }
+
+  /**
+   * Record the duration of a successful wait.
+   *
+   * @param duration duration of the wait
+   * @param unit     unit of the duration
+   */
+  public void record(@Nonnegative final long duration, @Nonnull final TimeUnit unit) {
+    checkNotNull(unit, "time unit must not be null");
+    history.record(key, unit.toMillis(duration));
+  }
+
+  /**
+   * Record that a wait timed out. The duration waited is recorded like the duration of a successful wait,
+   * so that the learned timeout grows if waits keep timing out.
+   *
+   * @param duration duration of the wait until it timed out
+   * @param unit     unit of the duration
+   */
+  public void recordTimeout(@Nonnegative final long duration, @Nonnull final TimeUnit unit) {
+    record(duration, unit);
+  }
+
+  @Override
+  @Nonnegative
+  @SuppressWarnings("PMD.ShortMethodName")
+  public long in(@Nonnull final TimeUnit targetUnit) {
+    checkNotNull(targetUnit, "time unit must not be null");
+    return targetUnit.convert(effectiveMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  @Nonnegative
+  @SuppressWarnings("PMD.ShortMethodName")
+  public long in(@Nonnull final TimeUnit targetUnit, @Nonnegative final double factor) {
+    if (Double.compare(factor, 0d) < 0) {
+      throw new IllegalArgumentException("factor must be positive: " + factor);
+    }
+    return round(in(targetUnit) * factor);
+  }
+
+  @Nonnegative
+  private long effectiveMillis() {
+    final long configuredMillis = configured.in(TimeUnit.MILLISECONDS);
+    final long[] durations = history.durationsMillis(key);
+    if (durations.length < minimumSamples) {
+      return configuredMillis;
+    }
+    Arrays.sort(durations);
+    final int index = Math.max(0, (int) Math.ceil(durations.length * percentile / 100d) - 1);
+    final long learnedMillis = (long) Math.ceil(durations[index] * safetyFactor);
+    return Math.min(configuredMillis, Math.max(minimum.in(TimeUnit.MILLISECONDS), learnedMillis));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("key", key)
+            .add("configured", configured)
+            .add("history", history)
+            .add("percentile", percentile)
+            .add("safetyFactor", safetyFactor)
+            .add("minimumSamples", minimumSamples)
+            .add("minimum", minimum)
+            .toString();
+  }
+}
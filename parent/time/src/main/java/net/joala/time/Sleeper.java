@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Lets the current thread pause, as done by waits between two evaluations and by delayed responses.
+ * </p>
+ *
+ * @see Clocks
+ * @see VirtualClock
+ * @since 1.3.0
+ */
+public interface Sleeper {
+  /**
+   * Pause the current thread.
+   *
+   * @param duration how long to pause
+   * @param unit     unit of the duration
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  void sleep(@Nonnegative long duration, @Nonnull TimeUnit unit) throws InterruptedException;
+}
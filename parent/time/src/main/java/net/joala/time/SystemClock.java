@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * The real time of the system. Pauses shorter than a millisecond park the thread, as sleeping is not
+ * that fine-grained.
+ * </p>
+ *
+ * @since 1.3.0
+ */
+public final class SystemClock implements Clock, Sleeper {
+  /**
+   * The one and only system clock.
+   */
+  public static final SystemClock INSTANCE = new SystemClock();
+
+  private SystemClock() {
+  }
+
+  @Override
+  public long nowMillis() {
+    return System.currentTimeMillis();
+  }
+
+  @Override
+  public long nowNanos() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void sleep(@Nonnegative final long duration, @Nonnull final TimeUnit unit) throws InterruptedException {
+    if (unit.toMillis(duration) > 0L) {
+      unit.sleep(duration);
+      return;
+    }
+    LockSupport.parkNanos(unit.toNanos(duration));
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Interrupted while parking.");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SystemClock";
+  }
+}
@@ -59,7 +59,10 @@ public class TimeoutImpl implements Timeout {
   @Nonnegative
   @SuppressWarnings("PMD.ShortMethodName")
   public long in(@Nonnull final TimeUnit targetUnit, @Nonnegative final double factor) {
-    checkArgument(Double.compare(factor, 0d) >= 0, "factor must be positive: %s", factor);
+    if (Double.compare(factor, 0d) < 0) {
+      // checkArgument would box the factor on each call
+      throw new IllegalArgumentException("factor must be positive: " + factor);
+    }
     return round(in(targetUnit) * factor);
   }
 
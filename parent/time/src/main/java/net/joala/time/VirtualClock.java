@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>
+ * Simulated time which only advances when somebody sleeps or when it is advanced explicitly. Sleeping
+ * returns immediately, thus code which depends on timeouts can be tested in milliseconds instead of
+ * seconds:
+ * </p>
+ * <pre>{@code
+ * final VirtualClock clock = Clocks.useVirtualClock();
+ * try {
+ *   condition.waitUntilTrue(); // fails after the simulated timeout
+ * } finally {
+ *   Clocks.reset();
+ * }
+ * }</pre>
+ *
+ * @see Clocks#useVirtualClock()
+ * @since 1.3.0
+ */
+public final class VirtualClock implements Clock, Sleeper {
+  private final long startMillis;
+  private final AtomicLong elapsedNanos = new AtomicLong();
+
+  /**
+   * Virtual clock starting at the current system time.
+   */
+  public VirtualClock() {
+    this(System.currentTimeMillis());
+  }
+
+  /**
+   * @param startMillis the wall clock time to start at, in milliseconds since the epoch
+   */
+  public VirtualClock(final long startMillis) {
+    this.startMillis = startMillis;
+  }
+
+  @Override
+  public long nowMillis() {
+    return startMillis + TimeUnit.NANOSECONDS.toMillis(elapsedNanos.get());
+  }
+
+  @Override
+  public long nowNanos() {
+    return elapsedNanos.get();
+  }
+
+  /**
+   * Advance the simulated time immediately. The thread yields to give other threads the chance to react.
+   *
+   * @param duration how long to pause
+   * @param unit     unit of the duration
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  @Override
+  public void sleep(@Nonnegative final long duration, @Nonnull final TimeUnit unit) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Interrupted while sleeping.");
+    }
+    advance(duration, unit);
+    Thread.yield();
+  }
+
+  /**
+   * Advance the simulated time.
+   *
+   * @param duration how far to advance
+   * @param unit     unit of the duration
+   */
+  public void advance(@Nonnegative final long duration, @Nonnull final TimeUnit unit) {
+    checkArgument(duration >= 0L, "Time cannot go back: %s", duration);
+    elapsedNanos.addAndGet(unit.toNanos(duration));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+            .add("startMillis", startMillis)
+            .add("elapsedNanos", elapsedNanos)
+            .toString();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link Deadline}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class DeadlineTest {
+  @Test
+  public void remaining_should_not_exceed_given_amount() throws Exception {
+    final Deadline deadline = Deadline.after(1L, TimeUnit.MINUTES);
+    final long remaining = deadline.remaining(TimeUnit.SECONDS);
+    assertTrue("Remaining budget should be close to given amount: " + remaining, remaining > 50L && remaining <= 60L);
+    assertFalse("Deadline should not have passed.", deadline.isExpired());
+  }
+
+  @Test
+  public void passed_deadline_should_have_no_budget_left() throws Exception {
+    final Deadline deadline = Deadline.after(0L, TimeUnit.MILLISECONDS);
+    assertTrue("Deadline should have passed.", deadline.isExpired());
+    assertEquals("No budget should be left.", 0L, deadline.in(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void clamp_should_not_change_amount_without_scope() throws Exception {
+    assertNull("No deadline should be current.", Deadline.current());
+    assertEquals("Amount should not have been clamped.", 5L, Deadline.clamp(5L, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void clamp_should_limit_amount_to_remaining_budget() throws Exception {
+    try (Deadline.Scope ignored = Deadline.after(1L, TimeUnit.SECONDS).enter()) {
+      assertTrue("Amount should have been clamped.", Deadline.clamp(5L, TimeUnit.MINUTES) <= TimeUnit.SECONDS.toMillis(1L));
+    }
+    assertNull("Scope should have been left.", Deadline.current());
+  }
+
+  @Test
+  public void nested_scope_should_keep_earlier_outer_deadline() throws Exception {
+    final Deadline outer = Deadline.after(1L, TimeUnit.SECONDS);
+    try (Deadline.Scope ignored = outer.enter()) {
+      try (Deadline.Scope ignoredToo = Deadline.after(1L, TimeUnit.MINUTES).enter()) {
+        assertSame("Outer deadline should have stayed in effect.", outer, Deadline.current());
+      }
+      final Deadline inner = Deadline.after(1L, TimeUnit.MILLISECONDS);
+      try (Deadline.Scope ignoredToo = inner.enter()) {
+        assertSame("Inner deadline should be in effect.", inner, Deadline.current());
+      }
+      assertSame("Outer deadline should have been restored.", outer, Deadline.current());
+    }
+  }
+
+  @Test
+  public void swapCurrentNanos_should_be_restorable() throws Exception {
+    final Deadline outer = Deadline.after(1L, TimeUnit.SECONDS);
+    try (Deadline.Scope ignored = outer.enter()) {
+      final long deadlineNanos = Clocks.getClock().nowNanos() + TimeUnit.MILLISECONDS.toNanos(1L);
+      final Deadline previous = Deadline.swapCurrentNanos(deadlineNanos);
+      assertSame("Outer deadline should have been returned.", outer, previous);
+      assertTrue("Swapped deadline should be in effect.", Deadline.clamp(5L, TimeUnit.MINUTES) <= 1L);
+      Deadline.restoreCurrent(previous);
+      assertSame("Outer deadline should have been restored.", outer, Deadline.current());
+    }
+  }
+
+  @Test
+  public void toString_should_be_implemented() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(Deadline.after(1L, TimeUnit.SECONDS)).excludeFieldNames(Pattern.compile("deadlineNanos")).run();
+  }
+}
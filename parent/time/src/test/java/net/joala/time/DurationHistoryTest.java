@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests {@link DurationHistory}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class DurationHistoryTest {
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_persist_durations() throws Exception {
+    final Path file = temporaryFolder.getRoot().toPath().resolve("sub").resolve("history.properties");
+    final DurationHistory history = new DurationHistory(file);
+    history.record("key", 42L);
+    history.flush();
+    assertArrayEquals("Duration should have been persisted.", new long[]{42L}, new DurationHistory(file).durationsMillis("key"));
+    try (DirectoryStream<Path> temporaryFiles = Files.newDirectoryStream(file.getParent(), "*.tmp")) {
+      assertFalse("Temporary file should have been removed.", temporaryFiles.iterator().hasNext());
+    }
+  }
+
+  @Test
+  public void flush_should_merge_durations_of_other_processes() throws Exception {
+    final Path file = temporaryFolder.getRoot().toPath().resolve("history.properties");
+    final DurationHistory first = new DurationHistory(file);
+    final DurationHistory second = new DurationHistory(file);
+    first.durationsMillis("key");
+    second.durationsMillis("key");
+    first.record("key", 1L);
+    second.record("key", 2L);
+    first.flush();
+    second.flush();
+    assertArrayEquals("Durations of both histories should have been kept.", new long[]{1L, 2L}, new DurationHistory(file).durationsMillis("key"));
+  }
+
+  @Test
+  public void clear_should_remove_durations_from_file() throws Exception {
+    final Path file = temporaryFolder.getRoot().toPath().resolve("history.properties");
+    final DurationHistory previous = new DurationHistory(file);
+    previous.record("key", 1L);
+    previous.flush();
+    final DurationHistory history = new DurationHistory(file);
+    history.clear("key");
+    history.flush();
+    assertEquals("Durations should have been removed.", 0, new DurationHistory(file).durationsMillis("key").length);
+  }
+
+  @Test
+  public void should_keep_most_recent_durations_only() throws Exception {
+    final DurationHistory history = new DurationHistory(temporaryFolder.getRoot().toPath().resolve("history.properties"));
+    for (int i = 0; i <= DurationHistory.MAX_SAMPLES; i++) {
+      history.record("key", i);
+    }
+    final long[] durations = history.durationsMillis("key");
+    assertEquals("Number of durations should have been limited.", DurationHistory.MAX_SAMPLES, durations.length);
+    assertEquals("Oldest duration should have been dropped.", 1L, durations[0]);
+    history.flush();
+  }
+
+  @Test
+  public void should_ignore_unreadable_entries() throws Exception {
+    final Path file = temporaryFolder.getRoot().toPath().resolve("history.properties");
+    Files.write(file, "key=1,x,3\n".getBytes(StandardCharsets.ISO_8859_1));
+    assertArrayEquals("Invalid duration should have been ignored.", new long[]{1L, 3L}, new DurationHistory(file).durationsMillis("key"));
+  }
+
+  @Test
+  public void should_return_empty_durations_for_unknown_key() throws Exception {
+    final DurationHistory history = new DurationHistory(temporaryFolder.getRoot().toPath().resolve("history.properties"));
+    assertEquals("No durations should have been returned.", 0, history.durationsMillis("unknown").length);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new DurationHistory(temporaryFolder.getRoot().toPath().resolve("history.properties"))).run();
+  }
+}
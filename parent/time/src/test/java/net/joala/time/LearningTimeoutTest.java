@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link LearningTimeout}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class LearningTimeoutTest {
+  private static final Timeout CONFIGURED = new TimeoutImpl(2L, TimeUnit.MINUTES);
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private final List<DurationHistory> histories = new ArrayList<>();
+
+  @Test
+  public void should_use_configured_timeout_without_enough_samples() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history());
+    for (int i = 1; i < LearningTimeout.DEFAULT_MINIMUM_SAMPLES; i++) {
+      timeout.record(1L, TimeUnit.SECONDS);
+    }
+    assertEquals("Configured timeout should have been used.", CONFIGURED.in(TimeUnit.MILLISECONDS), timeout.in(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void should_use_percentile_times_safety_factor() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history())
+            .withPercentile(50d)
+            .withSafetyFactor(2d)
+            .withMinimumSamples(3);
+    timeout.record(1L, TimeUnit.SECONDS);
+    timeout.record(3L, TimeUnit.SECONDS);
+    timeout.record(2L, TimeUnit.SECONDS);
+    assertEquals("Median times safety factor should have been used.", 4L, timeout.in(TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void should_not_exceed_configured_timeout() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history()).withMinimumSamples(1);
+    timeout.record(10L, TimeUnit.MINUTES);
+    assertEquals("Configured timeout should have been the limit.", CONFIGURED.in(TimeUnit.MILLISECONDS), timeout.in(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void should_not_fall_below_minimum() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history()).withMinimumSamples(1);
+    timeout.record(1L, TimeUnit.MILLISECONDS);
+    assertEquals("Minimum should have been the limit.", LearningTimeout.DEFAULT_MINIMUM.in(TimeUnit.MILLISECONDS), timeout.in(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void should_apply_factor() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history());
+    assertEquals("Factor should have been applied.", 2L * CONFIGURED.in(TimeUnit.MILLISECONDS), timeout.in(TimeUnit.MILLISECONDS, 2d));
+  }
+
+  @Test
+  public void should_learn_from_previous_runs() throws Exception {
+    final Path file = temporaryFolder.getRoot().toPath().resolve("history.properties");
+    final DurationHistory previousRunHistory = new DurationHistory(file);
+    final LearningTimeout previousRun = new LearningTimeout("key", CONFIGURED, previousRunHistory).withMinimumSamples(1);
+    previousRun.record(2L, TimeUnit.SECONDS);
+    previousRunHistory.flush();
+    final LearningTimeout currentRun = new LearningTimeout("key", CONFIGURED, new DurationHistory(file)).withMinimumSamples(1);
+    assertEquals("Duration of previous run should have been used.", 6L, currentRun.in(TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void timeouts_should_raise_learned_timeout_up_to_configured_timeout() throws Exception {
+    final LearningTimeout timeout = new LearningTimeout("key", CONFIGURED, history()).withMinimumSamples(1).withPercentile(100d);
+    timeout.record(1L, TimeUnit.SECONDS);
+    timeout.recordTimeout(timeout.in(TimeUnit.SECONDS), TimeUnit.SECONDS);
+    assertEquals("Learned timeout should have been raised.", 9L, timeout.in(TimeUnit.SECONDS));
+    for (int i = 0; i < 10; i++) {
+      timeout.recordTimeout(timeout.in(TimeUnit.SECONDS), TimeUnit.SECONDS);
+    }
+    assertEquals("Configured timeout should have been reached.", CONFIGURED.in(TimeUnit.MILLISECONDS), timeout.in(TimeUnit.MILLISECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withSafetyFactor_should_reject_factor_below_one() throws Exception {
+    new LearningTimeout("key", CONFIGURED, history()).withSafetyFactor(0.5d);
+  }
+
+  @Test
+  public void toString_should_contain_necessary_information() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new LearningTimeout("key", CONFIGURED, history())).run();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    // Flush before the folder gets deleted rather than on shutdown.
+    for (final DurationHistory history : histories) {
+      history.flush();
+    }
+  }
+
+  private DurationHistory history() throws Exception {
+    final DurationHistory history = new DurationHistory(temporaryFolder.newFolder().toPath().resolve("history.properties"));
+    histories.add(history);
+    return history;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 CoreMedia AG
+ *
+ * This file is part of Joala.
+ *
+ * Joala is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Joala is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Joala.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.joala.time;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.joala.testlet.ToStringTestlet.toStringTestlet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link VirtualClock} and {@link Clocks}.
+ *
+ * @since 1.3.0
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+public class VirtualClockTest {
+  @After
+  public void tearDown() throws Exception {
+    Clocks.reset();
+  }
+
+  @Test
+  public void sleep_should_advance_time_immediately() throws Exception {
+    final VirtualClock clock = new VirtualClock(1000L);
+    final long startNanos = System.nanoTime();
+    clock.sleep(1L, TimeUnit.HOURS);
+    assertEquals("Simulated time should have advanced.", 1000L + TimeUnit.HOURS.toMillis(1L), clock.nowMillis());
+    assertEquals("Monotonic time should have advanced.", TimeUnit.HOURS.toNanos(1L), clock.nowNanos());
+    assertTrue("Sleep should have returned immediately.", System.nanoTime() - startNanos < TimeUnit.MINUTES.toNanos(1L));
+  }
+
+  @Test(expected = InterruptedException.class)
+  public void sleep_should_fail_if_interrupted() throws Exception {
+    Thread.currentThread().interrupt();
+    new VirtualClock().sleep(1L, TimeUnit.SECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void time_should_not_go_back() throws Exception {
+    new VirtualClock().advance(-1L, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void clocks_should_use_system_clock_by_default() throws Exception {
+    assertSame("System clock should be used.", SystemClock.INSTANCE, Clocks.getClock());
+    assertSame("System clock should sleep.", SystemClock.INSTANCE, Clocks.getSleeper());
+    assertNull("Time should not be simulated.", Clocks.getVirtualClock());
+  }
+
+  @Test
+  public void deadline_should_use_virtual_clock() throws Exception {
+    final VirtualClock clock = Clocks.useVirtualClock();
+    assertSame("Virtual clock should be in use.", clock, Clocks.getVirtualClock());
+    final Deadline deadline = Deadline.after(1L, TimeUnit.MINUTES);
+    clock.advance(1L, TimeUnit.MINUTES);
+    assertTrue("Deadline should have passed in simulated time.", deadline.isExpired());
+  }
+
+  @Test
+  public void toString_should_be_implemented() throws Throwable { // NOSONAR: from JUnit
+    toStringTestlet(new VirtualClock()).run();
+  }
+}